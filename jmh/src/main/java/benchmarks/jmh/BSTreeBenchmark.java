@@ -0,0 +1,255 @@
+package benchmarks.jmh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import implementations.BSTree;
+import utilities.Iterator;
+
+/**
+ * Measures the BSTree operations, with java.util.TreeMap doing the same work as the baseline.
+ *
+ * Every benchmark works through one key sequence of the given size, so each score is the time for the whole
+ * sequence. RANDOM keys are distinct and shuffled, SORTED keys are distinct and ascending, which is the worst
+ * case for an unbalanced tree, and ZIPFIAN keys are drawn from the distinct keys with a skew like word
+ * frequencies in text, so a few keys repeat often. Lookups probe the same sequence, half of them hits and half
+ * misses.
+ *
+ * Usage: java -jar jmh/target/benchmarks.jar BSTreeBenchmark [-p keys=RANDOM] [-p balanced=true]
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class BSTreeBenchmark
+{
+	/**
+	 * How the key sequence is ordered
+	 */
+	public enum Keys
+	{
+		RANDOM, SORTED, ZIPFIAN
+	}
+
+	@Param( { "RANDOM", "SORTED", "ZIPFIAN" } )
+	public Keys keys;
+
+	@Param( { "true", "false" } )
+	public boolean balanced;
+
+	@Param( { "10000" } )
+	public int size;
+
+	private String[] sequence;
+	private String[] probes;
+	private BSTree<String> tree;
+	private TreeMap<String, String> map;
+
+	@Setup
+	public void setUp()
+	{
+		Random random = new Random( 304 );
+		List<String> distinct = new ArrayList<String>( size );
+		for( int i = 0; i < size; i++ )
+		{
+			distinct.add( key( i ) );
+		}
+		Collections.sort( distinct );
+		sequence = new String[size];
+		switch( keys )
+		{
+			case SORTED:
+				distinct.toArray( sequence );
+				break;
+			case RANDOM:
+				Collections.shuffle( distinct, random );
+				distinct.toArray( sequence );
+				break;
+			default:
+				// ranks are shuffled so the frequent keys are spread over the key space
+				Collections.shuffle( distinct, random );
+				double[] cumulative = new double[size];
+				double total = 0;
+				for( int rank = 0; rank < size; rank++ )
+				{
+					total += 1.0 / ( rank + 1 );
+					cumulative[rank] = total;
+				}
+				for( int i = 0; i < size; i++ )
+				{
+					int rank = Arrays.binarySearch( cumulative, random.nextDouble() * total );
+					sequence[i] = distinct.get( rank < 0 ? Math.min( -rank - 1, size - 1 ) : rank );
+				}
+		}
+
+		probes = new String[size];
+		for( int i = 0; i < size; i++ )
+		{
+			// a key that sorts next to the stored one without matching it
+			probes[i] = i % 2 == 0 ? sequence[i] : sequence[i] + "~";
+		}
+
+		tree = new BSTree<String>( balanced );
+		map = new TreeMap<String, String>();
+		for( String key : sequence )
+		{
+			tree.add( key );
+			map.put( key, key );
+		}
+	}
+
+	/**
+	 * Returns a distinct key of about the length of a word
+	 */
+	private static String key( int i )
+	{
+		StringBuilder key = new StringBuilder();
+		for( int n = i * 7919 + 104729; n > 0; n /= 26 )
+		{
+			key.append( (char) ( 'a' + n % 26 ) );
+		}
+		return key.toString();
+	}
+
+	@Benchmark
+	public BSTree<String> add()
+	{
+		BSTree<String> built = new BSTree<String>( balanced );
+		for( String key : sequence )
+		{
+			built.add( key );
+		}
+		return built;
+	}
+
+	@Benchmark
+	public TreeMap<String, String> treeMapPut()
+	{
+		TreeMap<String, String> built = new TreeMap<String, String>();
+		for( String key : sequence )
+		{
+			built.put( key, key );
+		}
+		return built;
+	}
+
+	@Benchmark
+	public int contains()
+	{
+		int found = 0;
+		for( String probe : probes )
+		{
+			if( tree.contains( probe ) )
+			{
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int treeMapContainsKey()
+	{
+		int found = 0;
+		for( String probe : probes )
+		{
+			if( map.containsKey( probe ) )
+			{
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public void search( Blackhole bh )
+	{
+		for( String probe : probes )
+		{
+			bh.consume( tree.search( probe ) );
+		}
+	}
+
+	@Benchmark
+	public void treeMapGet( Blackhole bh )
+	{
+		for( String probe : probes )
+		{
+			bh.consume( map.get( probe ) );
+		}
+	}
+
+	@Benchmark
+	public void inorderIterator( Blackhole bh )
+	{
+		consume( tree.inorderIterator(), bh );
+	}
+
+	@Benchmark
+	public void preorderIterator( Blackhole bh )
+	{
+		consume( tree.preorderIterator(), bh );
+	}
+
+	@Benchmark
+	public void postorderIterator( Blackhole bh )
+	{
+		consume( tree.postorderIterator(), bh );
+	}
+
+	@Benchmark
+	public void treeMapIteration( Blackhole bh )
+	{
+		for( Map.Entry<String, String> entry : map.entrySet() )
+		{
+			bh.consume( entry.getKey() );
+		}
+	}
+
+	@Benchmark
+	public int size()
+	{
+		return tree.size();
+	}
+
+	@Benchmark
+	public int treeMapSize()
+	{
+		return map.size();
+	}
+
+	@Benchmark
+	public int getHeight()
+	{
+		return tree.getHeight();
+	}
+
+	private static void consume( Iterator<String> it, Blackhole bh )
+	{
+		while( it.hasNext() )
+		{
+			bh.consume( it.next() );
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utilities.FileDictionary;
+import utilities.WordStorage;
+
+/**
+ * Measures recording occurrences in a WordStorage and formatting it for the reports.
+ *
+ * The word is found on a number of lines spread evenly over a number of files, in the order TextParse records
+ * them. addOccurrence records them all into a new word, and the display benchmarks format the recorded word the
+ * way -pf, -pl and -po do, with appendTo reusing one builder the way ReportWriter does.
+ *
+ * Usage: java -jar jmh/target/benchmarks.jar WordStorageBenchmark [-p occurrences=1000] [-p files=10]
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class WordStorageBenchmark
+{
+	@Param( { "10", "1000" } )
+	public int occurrences;
+
+	@Param( { "1", "10" } )
+	public int files;
+
+	private int[] fileIds;
+	private WordStorage word;
+	private final StringBuilder builder = new StringBuilder();
+
+	@Setup
+	public void setUp()
+	{
+		fileIds = new int[files];
+		for( int i = 0; i < files; i++ )
+		{
+			fileIds[i] = FileDictionary.getInstance().idOf( "benchmark" + i + ".txt" );
+		}
+		word = this.addOccurrence();
+	}
+
+	@Benchmark
+	public WordStorage addOccurrence()
+	{
+		WordStorage added = new WordStorage( "benchmark" );
+		int perFile = Math.max( 1, occurrences / files );
+		for( int i = 0; i < occurrences; i++ )
+		{
+			added.addOccurrence( fileIds[Math.min( i / perFile, files - 1 )], 1 + ( i % perFile ) * 3 );
+		}
+		return added;
+	}
+
+	@Benchmark
+	public String displayType()
+	{
+		return word.displayType( "-po" );
+	}
+
+	@Benchmark
+	public String displayFiles()
+	{
+		return word.displayFiles();
+	}
+
+	@Benchmark
+	public String displayFilesLines()
+	{
+		return word.displayFilesLines();
+	}
+
+	@Benchmark
+	public String displayAll()
+	{
+		return word.displayAll();
+	}
+
+	@Benchmark
+	public int appendTo()
+	{
+		builder.setLength( 0 );
+		return word.appendTo( builder, "-po" ).length();
+	}
+}
@@ -0,0 +1,107 @@
+package benchmarks.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import implementations.BSTree;
+import implementations.WordTracker;
+import utilities.WordStorage;
+
+/**
+ * Measures WordTracker breaking lines into words and parsing a whole file.
+ *
+ * lineBreaker is timed over every line of the input file. TextParse is timed end to end, reading and recording
+ * every word of the input file written out a number of times into one temporary file, into a new WordTracker
+ * that never touches the repository file. Files this size are parsed on one thread, the parallel parse starts at
+ * WordTracker.PARALLEL_PARSE_SIZE.
+ *
+ * Usage: java -jar jmh/target/benchmarks.jar WordTrackerBenchmark [-p input=res/test3.txt] [-p copies=16],
+ * run from the project root so the default input is found
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class WordTrackerBenchmark
+{
+	@Param( { "res/test3.txt" } )
+	public String input;
+
+	private List<String> lines;
+	private WordTracker tracker;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		lines = Files.readAllLines( Paths.get( input ), StandardCharsets.UTF_8 );
+		tracker = new WordTracker( new BSTree<WordStorage>( true ) );
+	}
+
+	/**
+	 * The input file written out a number of times into a temporary file
+	 */
+	@State( Scope.Benchmark )
+	public static class Scaled
+	{
+		@Param( { "1", "16" } )
+		public int copies;
+
+		private Path file;
+
+		@Setup
+		public void setUp( WordTrackerBenchmark benchmark ) throws IOException
+		{
+			byte[] text = Files.readAllBytes( Paths.get( benchmark.input ) );
+			file = Files.createTempFile( "wordtracker-benchmark", ".txt" );
+			for( int i = 0; i < copies; i++ )
+			{
+				Files.write( file, text, StandardOpenOption.APPEND );
+			}
+		}
+
+		@TearDown
+		public void tearDown() throws IOException
+		{
+			Files.deleteIfExists( file );
+		}
+	}
+
+	@Benchmark
+	public void lineBreaker( Blackhole bh )
+	{
+		for( String line : lines )
+		{
+			bh.consume( tracker.lineBreaker( line ) );
+		}
+	}
+
+	@Benchmark
+	public BSTree<WordStorage> textParse( Scaled scaled )
+	{
+		WordTracker parsed = new WordTracker( new BSTree<WordStorage>( true ) );
+		parsed.TextParse( scaled.file.toString() );
+		return parsed.getTree();
+	}
+}
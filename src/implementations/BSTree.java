@@ -2,7 +2,11 @@ package implementations;
 
 import utilities.Iterator;
 import utilities.BSTreeADT;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
 
 /**
  * <p>
@@ -11,6 +15,21 @@ import java.util.*;
  * SAIT. The implementation is from the BSTreeADT interface  and will be required 
  * to add all the functionality, comparable and serializable.
  * </p>
+ * <p>
+ * Every node tracks the height and size of its subtree, so getHeight and size
+ * are answered in constant time. The subtree sizes also give the order
+ * statistics countLessThan, rank and select, which only walk one path.
+ * Range and prefix iterators only descend into subtrees that overlap the range,
+ * costing O(log n + k) for k returned elements on a balanced tree.
+ * </p>
+ * <p>
+ * A tree constructed in balanced mode keeps itself height balanced (AVL) through
+ * add, removeMin and removeMax, so sorted input no longer degrades it into a
+ * linked list. The default mode keeps the plain insertion shape. Already sorted
+ * input can instead be bulk loaded into a perfectly balanced tree in linear time
+ * with fromSorted, and rebuild rebalances an existing tree the same way. Two trees
+ * are combined in linear time with merge.
+ * </p>
  * 
  * @param <E> The type of elements this list holds.
  */
@@ -22,6 +41,11 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 	 */
 	private static final long serialVersionUID = 1L;
 	private BSTreeNode<E> root;
+	private boolean balanced;
+	/**
+	 * Reusable buffer holding the nodes visited on the way down to an update
+	 */
+	private transient ArrayList<BSTreeNode<E>> descent;
 	
     /**
      * Constructor for BSTree
@@ -38,6 +62,236 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
     {
         this.root = new BSTreeNode<>(initialValue);
     }
+
+    /**
+     * Constructor for BSTree choosing whether the tree rebalances itself
+     * 
+     * @param balanced true to keep the tree height balanced on every update
+     */
+    public BSTree(boolean balanced) 
+    {
+        this.root = null;
+        this.balanced = balanced;
+    }
+
+    /**
+     * Builds a perfectly balanced tree in balanced mode from elements that are
+     * already in ascending order, without comparing or rotating along the way.
+     * 
+     * @param <E> the type of elements the tree holds
+     * @param sorted the elements in strictly ascending order
+     * @return a balanced tree holding the elements
+     * @throws NullPointerException if an element is null
+     * @throws IllegalArgumentException if the elements are not strictly ascending
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> fromSorted(E[] sorted) 
+            throws NullPointerException, IllegalArgumentException 
+    {
+        return fromSorted(Arrays.asList(sorted));
+    }
+
+    /**
+     * Builds a perfectly balanced tree in balanced mode from elements that are
+     * already in ascending order, without comparing or rotating along the way.
+     * 
+     * @param <E> the type of elements the tree holds
+     * @param sorted the elements in strictly ascending order
+     * @return a balanced tree holding the elements
+     * @throws NullPointerException if an element is null
+     * @throws IllegalArgumentException if the elements are not strictly ascending
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> fromSorted(List<? extends E> sorted) 
+            throws NullPointerException, IllegalArgumentException 
+    {
+        E previous = null;
+
+        for (E element : sorted) 
+        {
+            if (element == null) 
+            {
+                throw new NullPointerException("Cannot add null element to the tree.");
+            }
+            if (previous != null && previous.compareTo(element) >= 0) 
+            {
+                throw new IllegalArgumentException("Elements are not in strictly ascending order.");
+            }
+            previous = element;
+        }
+
+        BSTree<E> tree = new BSTree<>(true);
+        tree.root = build(sorted, 0, sorted.size() - 1);
+        return tree;
+    }
+
+    /**
+     * Builds a perfectly balanced tree in balanced mode from an iteration that
+     * returns its elements in ascending order, such as another tree's in-order
+     * iterator.
+     * 
+     * @param <E> the type of elements the tree holds
+     * @param sorted an iterator returning the elements in strictly ascending order
+     * @return a balanced tree holding the elements
+     * @throws NullPointerException if an element is null
+     * @throws IllegalArgumentException if the elements are not strictly ascending
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> fromSorted(Iterator<? extends E> sorted) 
+            throws NullPointerException, IllegalArgumentException 
+    {
+        ArrayList<E> elements = new ArrayList<>();
+
+        while (sorted.hasNext()) 
+        {
+            elements.add(sorted.next());
+        }
+
+        return fromSorted(elements);
+    }
+
+    /**
+     * Combines two trees into a new perfectly balanced tree in balanced mode in
+     * O(n + m) time, by walking both in order at the same time. Elements found in
+     * only one tree are carried over as they are, equal elements are passed to the
+     * combiner and only its result is kept. The given trees are left unchanged,
+     * though the combiner may change the elements they share.
+     * 
+     * @param <E> the type of elements the trees hold
+     * @param first the first tree, its element is the combiner's first argument
+     * @param second the second tree, its element is the combiner's second argument
+     * @param combiner merges two equal elements into one that is still equal to them
+     * @return a new balanced tree holding the elements of both trees
+     * @throws NullPointerException if the combiner returns null
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> merge(BSTree<E> first, BSTree<E> second,
+            BinaryOperator<E> combiner) throws NullPointerException 
+    {
+        ArrayList<E> merged = new ArrayList<>(first.size() + second.size());
+        Iterator<E> left = first.inorderIterator();
+        Iterator<E> right = second.inorderIterator();
+        E leftNext = left.hasNext() ? left.next() : null;
+        E rightNext = right.hasNext() ? right.next() : null;
+
+        while (leftNext != null && rightNext != null) 
+        {
+            int compareResult = leftNext.compareTo(rightNext);
+
+            if (compareResult < 0) 
+            {
+                merged.add(leftNext);
+                leftNext = left.hasNext() ? left.next() : null;
+            } 
+            else if (compareResult > 0) 
+            {
+                merged.add(rightNext);
+                rightNext = right.hasNext() ? right.next() : null;
+            } 
+            else 
+            {
+                E combined = combiner.apply(leftNext, rightNext);
+                if (combined == null) 
+                {
+                    throw new NullPointerException("Cannot add null element to the tree.");
+                }
+                merged.add(combined);
+                leftNext = left.hasNext() ? left.next() : null;
+                rightNext = right.hasNext() ? right.next() : null;
+            }
+        }
+
+        // At most one of the trees has elements left
+        for (; leftNext != null; leftNext = left.hasNext() ? left.next() : null) 
+        {
+            merged.add(leftNext);
+        }
+        for (; rightNext != null; rightNext = right.hasNext() ? right.next() : null) 
+        {
+            merged.add(rightNext);
+        }
+
+        BSTree<E> tree = new BSTree<>(true);
+        tree.root = build(merged, 0, merged.size() - 1);
+        return tree;
+    }
+
+    /**
+     * Creates the subtree for a range of sorted elements, rooted at the middle one.
+     * 
+     * @param <E> the type of elements the tree holds
+     * @param sorted the elements in ascending order
+     * @param low index of the first element in the range
+     * @param high index of the last element in the range
+     * @return the root of the subtree, or null for an empty range
+     */
+    private static <E> BSTreeNode<E> build(List<? extends E> sorted, int low, int high) 
+    {
+        if (low > high) 
+        {
+            return null;
+        }
+
+        int middle = (low + high) >>> 1;
+        BSTreeNode<E> left = build(sorted, low, middle - 1);
+        BSTreeNode<E> right = build(sorted, middle + 1, high);
+        return new BSTreeNode<E>(sorted.get(middle), left, right);
+    }
+
+    /**
+     * Rearranges the existing nodes of the tree into a perfectly balanced shape
+     * in linear time. The nodes and the order of the elements are kept.
+     */
+    public void rebuild() 
+    {
+        ArrayList<BSTreeNode<E>> nodes = new ArrayList<>(size());
+        Stack<BSTreeNode<E>> stack = new Stack<>();
+        BSTreeNode<E> current = root;
+
+        // Collect the nodes in order without going through the element iterator
+        while (current != null || !stack.isEmpty()) 
+        {
+            while (current != null) 
+            {
+                stack.push(current);
+                current = current.getLeft();
+            }
+
+            current = stack.pop();
+            nodes.add(current);
+            current = current.getRight();
+        }
+
+        root = relink(nodes, 0, nodes.size() - 1);
+    }
+
+    /**
+     * Links a range of nodes into a subtree rooted at the middle one.
+     * 
+     * @param nodes the nodes in ascending order
+     * @param low index of the first node in the range
+     * @param high index of the last node in the range
+     * @return the root of the subtree, or null for an empty range
+     */
+    private BSTreeNode<E> relink(List<BSTreeNode<E>> nodes, int low, int high) 
+    {
+        if (low > high) 
+        {
+            return null;
+        }
+
+        int middle = (low + high) >>> 1;
+        BSTreeNode<E> node = nodes.get(middle);
+        node.setLeft(relink(nodes, low, middle - 1));
+        node.setRight(relink(nodes, middle + 1, high));
+        return update(node);
+    }
+
+    /**
+     * Checks if the tree rebalances itself on every update.
+     * 
+     * @return true if the tree was constructed in balanced mode
+     */
+    public boolean isBalanced() 
+    {
+        return balanced;
+    }
 	/**
 	 * The node at the root of the Binary Search Tree will be returned.
 	 * 
@@ -64,35 +318,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
     @Override
     public int getHeight() 
     {
-        if (root == null) 
-        {
-            return 0;
-        }
-
-        Queue<BSTreeNode<E>> queue = new LinkedList<>();
-        queue.add(root);
-        int height = 0;
-
-        while (!queue.isEmpty()) 
-        {
-            int levelSize = queue.size(); // Number of nodes at the current level
-            for (int i = 0; i < levelSize; i++) 
-            {
-                BSTreeNode<E> currentNode = queue.poll();
-                if (currentNode.getLeft() != null) 
-                {
-                    queue.add(currentNode.getLeft());
-                }
-                if (currentNode.getRight() != null) 
-                {
-                    queue.add(currentNode.getRight());
-                }
-            }
-            
-            height++; // Increment height after processing a level
-        }
-        
-        return height;
+        return BSTreeNode.heightOf(root);
     }
 
 	/**
@@ -104,30 +330,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
     @Override
     public int size() 
     {
-        if (root == null) 
-        {
-            return 0;
-        }
-
-        Queue<BSTreeNode<E>> queue = new LinkedList<>();
-        queue.add(root);
-        int size = 0;
-
-        while (!queue.isEmpty()) 
-        {
-            BSTreeNode<E> currentNode = queue.poll();
-            size++; // Count the current node
-            if (currentNode.getLeft() != null) 
-            {
-                queue.add(currentNode.getLeft());
-            }
-            if (currentNode.getRight() != null) 
-            {
-                queue.add(currentNode.getRight());
-            }
-        }
-
-        return size;
+        return BSTreeNode.sizeOf(root);
     }
 
 	/**
@@ -205,7 +408,20 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
             throw new NullPointerException("Cannot search null elements.");
         }
 
-        BSTreeNode<E> current = root;
+        return search(root, entry);
+    }
+
+    /**
+     * Retrieves the node holding an element from a subtree.
+     * 
+     * @param <E> the type of elements the subtree holds
+     * @param node the root of the subtree, may be null
+     * @param entry element object being searched
+     * @return the node with the element located in the subtree, null if not found
+     */
+    static <E extends Comparable<? super E>> BSTreeNode<E> search(BSTreeNode<E> node, E entry) 
+    {
+        BSTreeNode<E> current = node;
 
         while (current != null) 
         {
@@ -226,6 +442,162 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
         return null; // Element not found
     }
 
+	/**
+	 * Counts the elements in the tree that are smaller than the element passed in
+	 * according to the natural ordering established by the Comparable
+	 * implementation. The element itself does not need to be stored in the tree.
+	 * 
+	 * @param entry the element to compare the tree contents against
+	 * @return the number of elements in the tree smaller than the entry
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+    @Override
+    public int countLessThan(E entry) throws NullPointerException 
+    {
+        if (entry == null) 
+        {
+            throw new NullPointerException("Cannot rank null elements.");
+        }
+
+        return countLessThan(root, entry);
+    }
+
+    /**
+     * Counts the elements of a subtree that are smaller than an element.
+     * 
+     * @param <E> the type of elements the subtree holds
+     * @param node the root of the subtree, may be null
+     * @param entry the element to compare the subtree contents against
+     * @return the number of elements in the subtree smaller than the entry
+     */
+    static <E extends Comparable<? super E>> int countLessThan(BSTreeNode<E> node, E entry) 
+    {
+        BSTreeNode<E> current = node;
+        int count = 0;
+
+        while (current != null) 
+        {
+            if (entry.compareTo(current.getElement()) <= 0) 
+            {
+                current = current.getLeft(); // Everything smaller is further left
+            } 
+            else 
+            {
+                // The current node and its whole left subtree are smaller
+                count += BSTreeNode.sizeOf(current.getLeft()) + 1;
+                current = current.getRight();
+            }
+        }
+
+        return count;
+    }
+
+	/**
+	 * Determines the zero-based position of an element in the natural ordering of
+	 * the tree, which is the position it is returned at by the in-order iterator.
+	 * 
+	 * @param entry the element to find in the tree
+	 * @return the position of the element, or -1 if the element is not in the tree
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+    @Override
+    public int rank(E entry) throws NullPointerException 
+    {
+        if (entry == null) 
+        {
+            throw new NullPointerException("Cannot rank null elements.");
+        }
+
+        return rank(root, entry);
+    }
+
+    /**
+     * Determines the zero-based position of an element in a subtree.
+     * 
+     * @param <E> the type of elements the subtree holds
+     * @param node the root of the subtree, may be null
+     * @param entry the element to find in the subtree
+     * @return the position of the element, or -1 if the element is not in the subtree
+     */
+    static <E extends Comparable<? super E>> int rank(BSTreeNode<E> node, E entry) 
+    {
+        BSTreeNode<E> current = node;
+        int count = 0;
+
+        while (current != null) 
+        {
+            int compareResult = entry.compareTo(current.getElement());
+
+            if (compareResult == 0) 
+            {
+                return count + BSTreeNode.sizeOf(current.getLeft()); // Element found
+            } 
+            else if (compareResult < 0) 
+            {
+                current = current.getLeft();
+            } 
+            else 
+            {
+                count += BSTreeNode.sizeOf(current.getLeft()) + 1;
+                current = current.getRight();
+            }
+        }
+
+        return -1; // Element not found
+    }
+
+	/**
+	 * Retrieves the node holding the element at a zero-based position in the
+	 * natural ordering of the tree, the k-th smallest element.
+	 * 
+	 * @param index the position of the element to retrieve
+	 * @return the node at that position
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than
+	 *         the size of the tree
+	 */
+    @Override
+    public BSTreeNode<E> select(int index) throws IndexOutOfBoundsException 
+    {
+        if (index < 0 || index >= size()) 
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        return select(root, index);
+    }
+
+    /**
+     * Retrieves the node at a zero-based position in a subtree.
+     * 
+     * @param <E> the type of elements the subtree holds
+     * @param node the root of the subtree
+     * @param index the position of the element, at least zero and less than the
+     *        size of the subtree
+     * @return the node at that position
+     */
+    static <E> BSTreeNode<E> select(BSTreeNode<E> node, int index) 
+    {
+        BSTreeNode<E> current = node;
+
+        while (true) 
+        {
+            int leftSize = BSTreeNode.sizeOf(current.getLeft());
+
+            if (index < leftSize) 
+            {
+                current = current.getLeft();
+            } 
+            else if (index == leftSize) 
+            {
+                return current;
+            } 
+            else 
+            {
+                index -= leftSize + 1; // Skip the left subtree and this node
+                current = current.getRight();
+            }
+        }
+    }
 
 	/**
 	 * Adds a new element to the tree according to the natural ordering established
@@ -238,52 +610,67 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
     @Override
     public boolean add(E newEntry) throws NullPointerException 
     {
-        if (newEntry == null) 
+        int sizeBefore = size();
+        getOrInsert(newEntry);
+        return size() != sizeBefore;
+    }
+
+	/**
+	 * Retrieves the node holding an element equal to the one passed in, adding
+	 * the element to the tree first if no such node exists. The tree is only
+	 * descended once either way.
+	 * 
+	 * @param entry the element to find, or to add when it is not found
+	 * @return the node holding the existing element, or the new node holding the
+	 *         entry if it was added
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+    @Override
+    public BSTreeNode<E> getOrInsert(E entry) throws NullPointerException 
+    {
+        if (entry == null) 
         {
             throw new NullPointerException("Cannot add null element to the tree.");
         }
 
-        BSTreeNode<E> newNode = new BSTreeNode<>(newEntry);
-
         if (root == null) 
         {
-            root = newNode; // The tree was empty, set the root
-            return true;
+            root = new BSTreeNode<>(entry); // The tree was empty, set the root
+            return root;
         }
 
+        ArrayList<BSTreeNode<E>> path = pathBuffer();
         BSTreeNode<E> current = root;
-        BSTreeNode<E> parent = null;
+        int compareResult = 0;
 
         while (current != null) 
         {
-            int compareResult = newEntry.compareTo(current.getElement());
-            parent = current;
+            compareResult = entry.compareTo(current.getElement());
 
-            if (compareResult < 0) 
-            {
-                current = current.getLeft();
-                if (current == null) 
-                {
-                    parent.setLeft(newNode); // Insert as the left child
-                    return true;
-                }
-            } else if (compareResult > 0) 
-            {
-                current = current.getRight();
-                if (current == null) 
-                {
-                    parent.setRight(newNode); // Insert as the right child
-                    return true;
-                }
-            } 
-            else 
+            if (compareResult == 0) 
             {
-                // The element already exists in the tree; do nothing
-                return false;
+                return current; // The element already exists in the tree
             }
+
+            path.add(current);
+            current = compareResult < 0 ? current.getLeft() : current.getRight();
+        }
+
+        BSTreeNode<E> parent = path.get(path.size() - 1);
+        BSTreeNode<E> newNode = new BSTreeNode<>(entry);
+
+        if (compareResult < 0) 
+        {
+            parent.setLeft(newNode); // Insert as the left child
+        } 
+        else 
+        {
+            parent.setRight(newNode); // Insert as the right child
         }
 
-        return false; // Should never reach here
+        // Rotations relink nodes without moving elements, so newNode still holds the entry
+        retrace(path);
+        return newNode;
     }
 
 	/**
@@ -300,34 +687,28 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
             return null; // Tree is empty, nothing to remove.
         }
 
-        // Special case: If the root itself is the minimum
-        if (root.getLeft() == null) 
-        {
-            BSTreeNode<E> minNode = root;
-            root = root.getRight(); // Update root to the right subtree
-            return minNode;
-        }
-
+        ArrayList<BSTreeNode<E>> path = pathBuffer();
         BSTreeNode<E> current = root;
-        BSTreeNode<E> parent = null;
 
         // Traverse the left subtree to find the minimum
         while (current.getLeft() != null) 
         {
-            parent = current;
+            path.add(current);
             current = current.getLeft();
         }
 
-        // Current now points to the minimum node
-        BSTreeNode<E> minNode = current;
-
-        // If the minimum node has a right child, connect it to the parent
-        if (parent != null) 
+        // Current now points to the minimum node, its right child takes its place
+        if (path.isEmpty()) 
+        {
+            root = current.getRight();
+        } 
+        else 
         {
-            parent.setLeft(current.getRight());
+            path.get(path.size() - 1).setLeft(current.getRight());
         }
 
-        return minNode;
+        retrace(path);
+        return current;
     }
 
 	/**
@@ -344,34 +725,301 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
             return null; // Tree is empty, nothing to remove
         }
 
-        // Special case: If the root itself is the maximum
-        if (root.getRight() == null) 
-        {
-            BSTreeNode<E> maxNode = root;
-            root = root.getLeft(); // Update root to the left subtree
-            return maxNode;
-        }
-
+        ArrayList<BSTreeNode<E>> path = pathBuffer();
         BSTreeNode<E> current = root;
-        BSTreeNode<E> parent = null;
 
         // Traverse the right subtree to find the maximum
         while (current.getRight() != null) 
         {
-            parent = current;
+            path.add(current);
             current = current.getRight();
         }
 
-        // Current now points to the maximum node
-        BSTreeNode<E> maxNode = current;
+        // Current now points to the maximum node, its left child takes its place
+        if (path.isEmpty()) 
+        {
+            root = current.getLeft();
+        } 
+        else 
+        {
+            path.get(path.size() - 1).setRight(current.getLeft());
+        }
+
+        retrace(path);
+        return current;
+    }
+
+	/**
+	 * Removes the element equal to the one passed in according to the natural
+	 * ordering established by the Comparable implementation. A node with two
+	 * children is replaced by its in-order successor, so only one path from the
+	 * root is walked and retraced.
+	 * 
+	 * @param entry the element to remove from the tree
+	 * @return the removed element or null if it is not in the tree
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+    @Override
+    public BSTreeNode<E> remove(E entry) throws NullPointerException 
+    {
+        if (entry == null) 
+        {
+            throw new NullPointerException("Cannot remove null elements.");
+        }
+
+        ArrayList<BSTreeNode<E>> path = pathBuffer();
+        BSTreeNode<E> current = root;
+
+        while (current != null) 
+        {
+            int compareResult = entry.compareTo(current.getElement());
+
+            if (compareResult == 0) 
+            {
+                break; // Element found
+            }
+
+            path.add(current);
+            current = compareResult < 0 ? current.getLeft() : current.getRight();
+        }
+
+        if (current == null) 
+        {
+            path.clear();
+            return null; // Element not found, nothing to remove
+        }
+
+        int depth = path.size();
+        BSTreeNode<E> replacement;
+
+        if (current.getLeft() == null) 
+        {
+            replacement = current.getRight();
+        } 
+        else if (current.getRight() == null) 
+        {
+            replacement = current.getLeft();
+        } 
+        else 
+        {
+            // Unlink the in-order successor, the smallest node of the right subtree
+            path.add(current);
+            BSTreeNode<E> parent = current;
+            BSTreeNode<E> successor = current.getRight();
+
+            while (successor.getLeft() != null) 
+            {
+                path.add(successor);
+                parent = successor;
+                successor = successor.getLeft();
+            }
+
+            if (parent == current) 
+            {
+                current.setRight(successor.getRight());
+            } 
+            else 
+            {
+                parent.setLeft(successor.getRight());
+            }
+
+            // The successor takes the removed node's place, including on the recorded path
+            successor.setLeft(current.getLeft());
+            successor.setRight(current.getRight());
+            path.set(depth, successor);
+            replacement = successor;
+        }
+
+        if (depth == 0) 
+        {
+            root = replacement;
+        } 
+        else if (path.get(depth - 1).getLeft() == current) 
+        {
+            path.get(depth - 1).setLeft(replacement);
+        } 
+        else 
+        {
+            path.get(depth - 1).setRight(replacement);
+        }
+
+        retrace(path);
+
+        // Detach the removed node so it no longer holds on to the tree
+        current.setLeft(null);
+        current.setRight(null);
+        return update(current);
+    }
+
+    /**
+     * Returns the cleared path buffer used to record the nodes visited by an update.
+     *
+     * @return an empty list to record the descent in
+     */
+    private ArrayList<BSTreeNode<E>> pathBuffer() 
+    {
+        if (descent == null) 
+        {
+            descent = new ArrayList<>();
+        }
+
+        descent.clear();
+        return descent;
+    }
+
+    /**
+     * Walks back up a recorded descent, refreshing the height and size of every
+     * node on it and, in balanced mode, rotating any node that became unbalanced.
+     *
+     * @param path the nodes from the root down to the parent of the changed link
+     */
+    private void retrace(List<BSTreeNode<E>> path) 
+    {
+        for (int i = path.size() - 1; i >= 0; i--) 
+        {
+            BSTreeNode<E> node = path.get(i);
+            BSTreeNode<E> subtreeRoot = balanced ? rebalance(node) : update(node);
+
+            if (subtreeRoot != node) 
+            {
+                // A rotation replaced the subtree root, hook it back into its parent
+                if (i == 0) 
+                {
+                    root = subtreeRoot;
+                } 
+                else if (path.get(i - 1).getLeft() == node) 
+                {
+                    path.get(i - 1).setLeft(subtreeRoot);
+                } 
+                else 
+                {
+                    path.get(i - 1).setRight(subtreeRoot);
+                }
+            }
+        }
+
+        path.clear();
+    }
+
+    /**
+     * Recalculates the height and size of a node from its children.
+     *
+     * @param node the node to refresh
+     * @return the same node
+     */
+    private BSTreeNode<E> update(BSTreeNode<E> node) 
+    {
+        node.setHeight(1 + Math.max(BSTreeNode.heightOf(node.getLeft()), BSTreeNode.heightOf(node.getRight())));
+        node.setSize(1 + BSTreeNode.sizeOf(node.getLeft()) + BSTreeNode.sizeOf(node.getRight()));
+        return node;
+    }
+
+    /**
+     * Restores the AVL property at a node whose children differ in height by at
+     * most two.
+     *
+     * @param node the node to rebalance
+     * @return the root of the rebalanced subtree
+     */
+    private BSTreeNode<E> rebalance(BSTreeNode<E> node) 
+    {
+        update(node);
+        int balance = BSTreeNode.heightOf(node.getLeft()) - BSTreeNode.heightOf(node.getRight());
+
+        if (balance > 1) 
+        {
+            BSTreeNode<E> left = node.getLeft();
+            if (BSTreeNode.heightOf(left.getLeft()) < BSTreeNode.heightOf(left.getRight())) 
+            {
+                node.setLeft(rotateLeft(left)); // Left-right case
+            }
+            return rotateRight(node);
+        }
 
-        // If the maximum node has a left child, connect it to the parent
-        if (parent != null) 
+        if (balance < -1) 
         {
-            parent.setRight(current.getLeft());
+            BSTreeNode<E> right = node.getRight();
+            if (BSTreeNode.heightOf(right.getRight()) < BSTreeNode.heightOf(right.getLeft())) 
+            {
+                node.setRight(rotateRight(right)); // Right-left case
+            }
+            return rotateLeft(node);
         }
 
-        return maxNode;
+        return node;
+    }
+
+    /**
+     * Rotates a subtree to the right, lifting the left child into its place.
+     *
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private BSTreeNode<E> rotateRight(BSTreeNode<E> node) 
+    {
+        BSTreeNode<E> left = node.getLeft();
+        node.setLeft(left.getRight());
+        left.setRight(node);
+        update(node);
+        return update(left);
+    }
+
+    /**
+     * Rotates a subtree to the left, lifting the right child into its place.
+     *
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private BSTreeNode<E> rotateLeft(BSTreeNode<E> node) 
+    {
+        BSTreeNode<E> right = node.getRight();
+        node.setRight(right.getLeft());
+        right.setLeft(node);
+        update(node);
+        return update(right);
+    }
+
+    /**
+     * Restores the tree and recomputes node heights and sizes for trees that were
+     * saved before nodes carried them.
+     *
+     * @param in the stream being read
+     * @throws IOException if the stream cannot be read
+     * @throws ClassNotFoundException if a serialized class cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException 
+    {
+        in.defaultReadObject();
+
+        if (root == null || root.getSize() != 0) 
+        {
+            return;
+        }
+
+        // Visit children before parents so every height is computed from fresh values
+        Stack<BSTreeNode<E>> stack1 = new Stack<>();
+        Stack<BSTreeNode<E>> stack2 = new Stack<>();
+        stack1.push(root);
+
+        while (!stack1.isEmpty()) 
+        {
+            BSTreeNode<E> current = stack1.pop();
+            stack2.push(current);
+
+            if (current.getLeft() != null) 
+            {
+                stack1.push(current.getLeft());
+            }
+            if (current.getRight() != null) 
+            {
+                stack1.push(current.getRight());
+            }
+        }
+
+        while (!stack2.isEmpty()) 
+        {
+            update(stack2.pop());
+        }
     }
 
 	/**
@@ -383,10 +1031,29 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
     @Override
     public Iterator<E> inorderIterator() 
     {
-        return new InorderIterator(root);
+        return new InorderIterator<>(root);
+    }
+
+	/**
+	 * Generates an in-order iteration that starts at a zero-based position in the
+	 * natural ordering, skipping the elements before it without visiting them.
+	 * 
+	 * @param startIndex the position of the first element returned
+	 * @return an iterator with the elements from that position on in natural order
+	 * @throws IndexOutOfBoundsException if the index is negative or greater than the
+	 *         size of the tree
+	 */
+    public Iterator<E> inorderIterator(int startIndex) throws IndexOutOfBoundsException 
+    {
+        if (startIndex < 0 || startIndex > size()) 
+        {
+            throw new IndexOutOfBoundsException("Index: " + startIndex + ", Size: " + size());
+        }
+
+        return new InorderIterator<>(root, startIndex);
     }
 
-    private class InorderIterator implements Iterator<E> 
+    static class InorderIterator<E> implements Iterator<E> 
     {
 
         private Stack<BSTreeNode<E>> stack;
@@ -403,6 +1070,40 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
             current = root;
         }
 
+        /**
+         * Constructs an in-order iterator positioned at an element, stacking only
+         * the ancestors that are still to be visited after it.
+         *
+         * @param root the root of the tree
+         * @param startIndex the position of the first element to return
+         */
+        public InorderIterator(BSTreeNode<E> root, int startIndex) 
+        {
+            stack = new Stack<>();
+            current = null;
+            BSTreeNode<E> node = root;
+
+            while (node != null) 
+            {
+                int leftSize = BSTreeNode.sizeOf(node.getLeft());
+
+                if (startIndex <= leftSize) 
+                {
+                    stack.push(node); // Visited once the left side is done
+                    if (startIndex == leftSize) 
+                    {
+                        break;
+                    }
+                    node = node.getLeft();
+                } 
+                else 
+                {
+                    startIndex -= leftSize + 1;
+                    node = node.getRight();
+                }
+            }
+        }
+
         /**
          * Checks if there are more elements in the iteration.
          *
@@ -441,6 +1142,175 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
         }
     }
 
+	/**
+	 * Generates an in-order iteration over the elements from a lower bound,
+	 * inclusive, up to an upper bound, exclusive.
+	 * 
+	 * @param fromEntry the smallest element that may be returned
+	 * @param toEntry the element that ends the range, it is never returned
+	 * @return an iterator with the elements in the range in natural order
+	 * @throws NullPointerException if either bound is null
+	 * @throws IllegalArgumentException if the lower bound is greater than the upper bound
+	 */
+    public Iterator<E> subSet(E fromEntry, E toEntry) throws NullPointerException, IllegalArgumentException 
+    {
+        if (fromEntry == null || toEntry == null) 
+        {
+            throw new NullPointerException("Cannot bound a range with null elements.");
+        }
+        if (fromEntry.compareTo(toEntry) > 0) 
+        {
+            throw new IllegalArgumentException("The lower bound is greater than the upper bound.");
+        }
+
+        return new RangeIterator<>(root, fromEntry, toEntry, null);
+    }
+
+	/**
+	 * Generates an in-order iteration over the elements smaller than an upper
+	 * bound.
+	 * 
+	 * @param toEntry the element that ends the range, it is never returned
+	 * @return an iterator with the elements below the bound in natural order
+	 * @throws NullPointerException if the bound is null
+	 */
+    public Iterator<E> headSet(E toEntry) throws NullPointerException 
+    {
+        if (toEntry == null) 
+        {
+            throw new NullPointerException("Cannot bound a range with null elements.");
+        }
+
+        return new RangeIterator<>(root, null, toEntry, null);
+    }
+
+	/**
+	 * Generates an in-order iteration over the elements greater than or equal to
+	 * a lower bound.
+	 * 
+	 * @param fromEntry the smallest element that may be returned
+	 * @return an iterator with the elements from the bound on in natural order
+	 * @throws NullPointerException if the bound is null
+	 */
+    public Iterator<E> tailSet(E fromEntry) throws NullPointerException 
+    {
+        if (fromEntry == null) 
+        {
+            throw new NullPointerException("Cannot bound a range with null elements.");
+        }
+
+        return new RangeIterator<>(root, fromEntry, null, null);
+    }
+
+	/**
+	 * Generates an in-order iteration over the elements that share a prefix. The
+	 * iteration starts at the prefix itself and stops at the first element the
+	 * predicate rejects, which is correct because every element starting with a
+	 * prefix sorts at or after it and the matches are contiguous.
+	 * 
+	 * @param prefix the element holding the prefix, the smallest possible match
+	 * @param hasPrefix tells whether an element starts with the prefix
+	 * @return an iterator with the matching elements in natural order
+	 * @throws NullPointerException if the prefix or predicate is null
+	 */
+    public Iterator<E> prefixIterator(E prefix, Predicate<? super E> hasPrefix) throws NullPointerException 
+    {
+        if (prefix == null || hasPrefix == null) 
+        {
+            throw new NullPointerException("Cannot search for a null prefix.");
+        }
+
+        return new RangeIterator<>(root, prefix, null, hasPrefix);
+    }
+
+    static class RangeIterator<E extends Comparable<? super E>> implements Iterator<E> 
+    {
+
+        private Stack<BSTreeNode<E>> stack;
+        private E upper;
+        private Predicate<? super E> within;
+
+        /**
+         * Constructs an in-order iterator over a range, stacking only the path to
+         * the first element at or above the lower bound.
+         *
+         * @param root the root of the tree
+         * @param lower the smallest element returned, null for no lower bound
+         * @param upper the exclusive end of the range, null for no upper bound
+         * @param within an extra condition that ends the range, null for none
+         */
+        public RangeIterator(BSTreeNode<E> root, E lower, E upper, Predicate<? super E> within) 
+        {
+            this.stack = new Stack<>();
+            this.upper = upper;
+            this.within = within;
+            BSTreeNode<E> node = root;
+
+            while (node != null) 
+            {
+                if (lower == null || lower.compareTo(node.getElement()) <= 0) 
+                {
+                    stack.push(node); // In range, but smaller ones may be to the left
+                    node = node.getLeft();
+                } 
+                else 
+                {
+                    node = node.getRight(); // The whole left subtree is below the range
+                }
+            }
+        }
+
+        /**
+         * Checks if there are more elements in the range.
+         *
+         * @return true if there are more elements, false otherwise
+         */
+        @Override
+        public boolean hasNext() 
+        {
+            if (stack.isEmpty()) 
+            {
+                return false;
+            }
+
+            E next = stack.peek().getElement();
+
+            if ((upper != null && next.compareTo(upper) >= 0) || (within != null && !within.test(next))) 
+            {
+                stack.clear(); // Everything after this element is out of range too
+                return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * Retrieves the next element in the range.
+         *
+         * @return the next element
+         * @throws NoSuchElementException if there are no more elements
+         */
+        @Override
+        public E next() 
+        {
+            if (!hasNext()) 
+            {
+                throw new NoSuchElementException("No more elements in the iteration");
+            }
+
+            BSTreeNode<E> node = stack.pop();
+            BSTreeNode<E> current = node.getRight();
+
+            while (current != null) 
+            {
+                stack.push(current);
+                current = current.getLeft(); // Go left as far as possible
+            }
+
+            return node.getElement();
+        }
+    }
+
 	/**
 	 * Generates a pre-order iteration over the contents of the tree. Elements are
 	 * order in such a way as the root element is first.
@@ -449,10 +1319,10 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 	 */
     @Override
     public Iterator<E> preorderIterator() {
-        return new PreorderIterator(root);
+        return new PreorderIterator<>(root);
     }
 
-    private class PreorderIterator implements Iterator<E> 
+    static class PreorderIterator<E> implements Iterator<E> 
     {
 
         private Stack<BSTreeNode<E>> stack;
@@ -520,10 +1390,10 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
     @Override
     public Iterator<E> postorderIterator() 
     {
-        return new PostorderIterator(root);
+        return new PostorderIterator<>(root);
     }
 
-    private class PostorderIterator implements Iterator<E> 
+    static class PostorderIterator<E> implements Iterator<E> 
     {
 
         private Stack<BSTreeNode<E>> stack1;
@@ -15,6 +15,8 @@ public class BSTreeNode<E> implements Serializable
 	private E data;
     private BSTreeNode<E> left;
     private BSTreeNode<E> right;
+    private int height;
+    private int size;
 
     /**
      * Constructor for BSTreeNode
@@ -26,6 +28,8 @@ public class BSTreeNode<E> implements Serializable
         this.data = data;
         this.left = null;
         this.right = null;
+        this.height = 1;
+        this.size = 1;
     }
 
     /**
@@ -40,6 +44,8 @@ public class BSTreeNode<E> implements Serializable
         this.data = data;
         this.left = left;
         this.right = right;
+        this.height = 1 + Math.max(heightOf(left), heightOf(right));
+        this.size = 1 + sizeOf(left) + sizeOf(right);
     }
 
     /**
@@ -102,4 +108,66 @@ public class BSTreeNode<E> implements Serializable
         this.right = right;
     }
 
-}
\ No newline at end of file
+    /**
+     * Getter for height
+     * 
+     * @return number of levels in the subtree rooted at this node
+     */
+    public int getHeight() 
+    {
+        return height;
+    }
+
+    /**
+     * Setter for height, only the owning tree keeps this value up to date
+     * 
+     * @param height number of levels in the subtree rooted at this node
+     */
+    void setHeight(int height) 
+    {
+        this.height = height;
+    }
+
+    /**
+     * Getter for size
+     * 
+     * @return number of nodes in the subtree rooted at this node
+     */
+    public int getSize() 
+    {
+        return size;
+    }
+
+    /**
+     * Setter for size, only the owning tree keeps this value up to date
+     * 
+     * @param size number of nodes in the subtree rooted at this node
+     */
+    void setSize(int size) 
+    {
+        this.size = size;
+    }
+
+    /**
+     * Null safe height of a subtree
+     * 
+     * @param node root of the subtree, may be null
+     * @return height of the subtree, 0 when empty
+     */
+    static int heightOf(BSTreeNode<?> node) 
+    {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Null safe size of a subtree
+     * 
+     * @param node root of the subtree, may be null
+     * @return number of nodes in the subtree, 0 when empty
+     */
+    static int sizeOf(BSTreeNode<?> node) 
+    {
+        return node == null ? 0 : node.size;
+    }
+
+}
@@ -0,0 +1,310 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import utilities.Iterator;
+import utilities.WordStorage;
+
+/**
+ * Writes checkpoints of a repository, whole copies of its words and manifest, to its file on a background thread.
+ *
+ * A checkpoint starts with a snapshot taken on the calling thread. Every word is copied with WordStorage.snapshot,
+ * which shares the encoded lines, so the snapshot costs time in the number of words and files rather than lines,
+ * and the tree can be changed as soon as checkpoint returns. The background thread writes the snapshot with
+ * RepositoryFormat to a temporary file, flushes it to the disk and moves it over the repository file in one step,
+ * so a crash leaves either the old file or the new one. The repository log is emptied afterwards, unless
+ * something was appended to it after the snapshot was taken.
+ *
+ * Checkpoints are written one at a time in the order they were started. The caller chooses whether to wait for
+ * one by waiting on the returned future or not. The thread is a daemon, so a program that must not lose its last
+ * checkpoint waits for it, or calls close, before it exits.
+ *
+ * @version 1.0
+ */
+public final class Checkpointer implements AutoCloseable {
+	/**
+	 * The repository file
+	 */
+	private final Path path;
+	/**
+	 * The log kept next to the repository file
+	 */
+	private final RepositoryLog log;
+	/**
+	 * Writes the checkpoints, one at a time
+	 */
+	private final ExecutorService executor;
+	/**
+	 * Number of checkpoints written
+	 */
+	private final AtomicLong checkpoints = new AtomicLong();
+	/**
+	 * Number of checkpoints that failed
+	 */
+	private final AtomicLong failures = new AtomicLong();
+	/**
+	 * Bytes written by every checkpoint
+	 */
+	private final AtomicLong totalBytes = new AtomicLong();
+	/**
+	 * Time taken by every checkpoint, from the snapshot until the file was in place
+	 */
+	private final AtomicLong totalNanos = new AtomicLong();
+	/**
+	 * The last checkpoint written
+	 */
+	private volatile Result last;
+	/**
+	 * How the checkpoints started from now on are compressed
+	 */
+	private volatile RepositoryCompression compression = RepositoryCompression.NONE;
+
+	/**
+	 * Constructor for Checkpointer
+	 *
+	 * @param path the repository file, which does not need to exist yet
+	 */
+	public Checkpointer(Path path) {
+		this.path = path;
+		this.log = RepositoryLog.forRepository(path);
+		this.executor = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "repository-checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns the repository file
+	 * @return the path checkpoints are written to
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Sets how the checkpoints started from now on are compressed
+	 * @param compression the compression of the repository file
+	 */
+	public void setCompression(RepositoryCompression compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Returns how the checkpoints started from now on are compressed
+	 * @return the compression of the repository file
+	 */
+	public RepositoryCompression getCompression() {
+		return compression;
+	}
+
+	/**
+	 * Takes a snapshot of a repository and starts writing it in the background
+	 *
+	 * @param tree the words of the repository
+	 * @param manifest the fingerprints of its input files, null for none
+	 * @return completes with the metrics of the checkpoint once the file is in place, or with the error that
+	 *         stopped it
+	 * @throws IOException if the size of the log cannot be read
+	 */
+	public CompletableFuture<Result> checkpoint(BSTree<WordStorage> tree, FileManifest manifest) throws IOException {
+		final long start = System.nanoTime();
+		List<WordStorage> words = new ArrayList<WordStorage>(tree.size());
+		Iterator<WordStorage> it = tree.inorderIterator();
+		while(it.hasNext()) {
+			words.add(it.next().snapshot());
+		}
+		final BSTree<WordStorage> snapshot = BSTree.fromSorted(words);
+		final FileManifest files = new FileManifest();
+		if(manifest != null) {
+			files.putAll(manifest);
+		}
+		final long logged = log.size();
+		final RepositoryCompression compressed = compression;
+		final long snapshotNanos = System.nanoTime() - start;
+		final CompletableFuture<Result> result = new CompletableFuture<Result>();
+		executor.execute(() -> {
+			try {
+				long bytes = RepositoryFormat.write(snapshot, files, path, compressed);
+				// segments appended since the snapshot are not in the new file, replaying the whole log again is harmless
+				if(log.size() == logged) {
+					log.reset();
+				}
+				Result done = new Result(snapshot.size(), bytes, snapshotNanos, System.nanoTime() - start);
+				checkpoints.incrementAndGet();
+				totalBytes.addAndGet(done.bytes);
+				totalNanos.addAndGet(done.nanos);
+				last = done;
+				result.complete(done);
+			}
+			catch(Throwable e) {
+				failures.incrementAndGet();
+				result.completeExceptionally(e);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Takes a snapshot of a repository and writes it, returning once the file is in place
+	 *
+	 * @param tree the words of the repository
+	 * @param manifest the fingerprints of its input files, null for none
+	 * @return the metrics of the checkpoint
+	 * @throws IOException if the checkpoint cannot be written
+	 */
+	public Result checkpointAndWait(BSTree<WordStorage> tree, FileManifest manifest) throws IOException {
+		return await(this.checkpoint(tree, manifest));
+	}
+
+	/**
+	 * Waits for a checkpoint to be written
+	 *
+	 * @param checkpoint a checkpoint started by this Checkpointer
+	 * @return the metrics of the checkpoint
+	 * @throws IOException if the checkpoint failed or the wait was interrupted
+	 */
+	public static Result await(CompletableFuture<Result> checkpoint) throws IOException {
+		try {
+			return checkpoint.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a checkpoint");
+		}
+		catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if(cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			throw new IOException("Checkpoint failed", cause);
+		}
+	}
+
+	/**
+	 * Returns the number of checkpoints written
+	 * @return the checkpoint count
+	 */
+	public long getCheckpointCount() {
+		return checkpoints.get();
+	}
+
+	/**
+	 * Returns the number of checkpoints that failed
+	 * @return the failure count
+	 */
+	public long getFailureCount() {
+		return failures.get();
+	}
+
+	/**
+	 * Returns the bytes written by every checkpoint
+	 * @return the total size in bytes
+	 */
+	public long getTotalBytes() {
+		return totalBytes.get();
+	}
+
+	/**
+	 * Returns the time taken by every checkpoint
+	 * @return the total duration in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	/**
+	 * Returns the metrics of the last checkpoint written
+	 * @return the last checkpoint, or null if none has been written
+	 */
+	public Result getLast() {
+		return last;
+	}
+
+	/**
+	 * Waits for the checkpoints already started, then stops the background thread
+	 *
+	 * @throws InterruptedIOException if the wait was interrupted
+	 */
+	@Override
+	public void close() throws InterruptedIOException {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for checkpoints");
+		}
+	}
+
+	/**
+	 * The metrics of one checkpoint
+	 */
+	public static final class Result {
+		private final int words;
+		private final long bytes;
+		private final long snapshotNanos;
+		private final long nanos;
+
+		/**
+		 * Constructor for Result
+		 * @param words the number of words written
+		 * @param bytes the size of the file written
+		 * @param snapshotNanos the time taken by the snapshot
+		 * @param nanos the time taken from the snapshot until the file was in place
+		 */
+		private Result(int words, long bytes, long snapshotNanos, long nanos) {
+			this.words = words;
+			this.bytes = bytes;
+			this.snapshotNanos = snapshotNanos;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * Returns the number of words written
+		 * @return the word count
+		 */
+		public int getWords() {
+			return words;
+		}
+
+		/**
+		 * Returns the size of the file written
+		 * @return the size in bytes
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * Returns the time the snapshot took on the calling thread
+		 * @return the duration in nanoseconds
+		 */
+		public long getSnapshotNanos() {
+			return snapshotNanos;
+		}
+
+		/**
+		 * Returns the time taken from the snapshot until the file was in place
+		 * @return the duration in nanoseconds
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+	}
+}
@@ -0,0 +1,375 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Thread-safe BSTreeADT that lets many threads look up and add elements at the same time.
+ *
+ * The elements live in a balanced BSTree guarded by a StampedLock. Lookups (contains, search, size, getHeight
+ * and the lookup half of getOrInsert) run optimistically: they walk the tree without taking any lock and
+ * validate the lock's stamp afterwards, so readers never block each other or write to shared memory. Only
+ * when a writer got in the way is the walk repeated under the read lock. Writes rebalance the tree and take
+ * the write lock.
+ *
+ * This suits ingestion, where almost every word is already in the tree after the first few pages, so nearly
+ * all getOrInsert calls finish on the lock-free path and the threads only contend on the occurrence lists of
+ * the words themselves. The iterators walk a copy of the elements taken under the read lock.
+ *
+ * Nodes returned from search and getOrInsert stay valid, but their links are only meaningful under the lock,
+ * so callers should only use their elements.
+ *
+ * @param <E> The type of elements this tree holds.
+ * @version 1.0
+ */
+public class ConcurrentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Longest walk an optimistic lookup takes before it assumes it saw the tree in the middle of a rotation.
+	 * A balanced tree of any size that fits in memory is far shallower
+	 */
+	private static final int MAX_OPTIMISTIC_STEPS = 128;
+
+	/**
+	 * The elements, only changed under the write lock
+	 */
+	private final BSTree<E> tree;
+	/**
+	 * Guards the tree
+	 */
+	private transient StampedLock lock = new StampedLock();
+
+	/**
+	 * Constructor for ConcurrentBSTree
+	 */
+	public ConcurrentBSTree() {
+		this.tree = new BSTree<E>(true);
+	}
+
+	/**
+	 * Constructor for ConcurrentBSTree taking over an existing tree, which must not be used directly afterwards
+	 *
+	 * @param tree the tree holding the initial elements, rebalanced if it is not in balanced mode
+	 */
+	public ConcurrentBSTree(BSTree<E> tree) {
+		if(!tree.isBalanced()) {
+			tree = BSTree.fromSorted(tree.inorderIterator());
+		}
+		this.tree = tree;
+	}
+
+	@Override
+	public BSTreeNode<E> getRoot() throws NullPointerException {
+		long stamp = lock.readLock();
+		try {
+			return tree.getRoot();
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int getHeight() {
+		long stamp = lock.tryOptimisticRead();
+		int height = tree.getHeight();
+		if(!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				height = tree.getHeight();
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return height;
+	}
+
+	@Override
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		int size = tree.size();
+		if(!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				size = tree.size();
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	@Override
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			tree.clear();
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean contains(E entry) throws NullPointerException {
+		return this.search(entry) != null;
+	}
+
+	@Override
+	public BSTreeNode<E> search(E entry) throws NullPointerException {
+		if(entry == null) {
+			throw new NullPointerException("Cannot search null elements.");
+		}
+		long stamp = lock.tryOptimisticRead();
+		if(stamp != 0) {
+			try {
+				BSTreeNode<E> found = this.find(entry);
+				if(lock.validate(stamp)) {
+					return found;
+				}
+			}
+			catch(RuntimeException e) {
+				// saw a half finished rotation, retry under the lock
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return tree.search(entry);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int countLessThan(E entry) throws NullPointerException {
+		long stamp = lock.readLock();
+		try {
+			return tree.countLessThan(entry);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int rank(E entry) throws NullPointerException {
+		long stamp = lock.readLock();
+		try {
+			return tree.rank(entry);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public BSTreeNode<E> select(int index) throws IndexOutOfBoundsException {
+		long stamp = lock.readLock();
+		try {
+			return tree.select(index);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public boolean add(E newEntry) throws NullPointerException {
+		if(newEntry == null) {
+			throw new NullPointerException("Cannot add null element to the tree.");
+		}
+		long stamp = lock.writeLock();
+		try {
+			return tree.add(newEntry);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Finds the node holding an element equal to the entry, or adds the entry when it is not found. An entry
+	 * that is already in the tree is found without locking
+	 *
+	 * @param entry the element to find, or to add when it is not found
+	 * @return the node holding the existing element, or the new node holding the entry if it was added
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	@Override
+	public BSTreeNode<E> getOrInsert(E entry) throws NullPointerException {
+		if(entry == null) {
+			throw new NullPointerException("Cannot add null element to the tree.");
+		}
+		BSTreeNode<E> found = this.search(entry);
+		if(found != null) {
+			return found;
+		}
+		// another thread may add the entry before the write lock is granted, getOrInsert finds it then
+		long stamp = lock.writeLock();
+		try {
+			return tree.getOrInsert(entry);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public BSTreeNode<E> removeMin() {
+		long stamp = lock.writeLock();
+		try {
+			return tree.removeMin();
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public BSTreeNode<E> removeMax() {
+		long stamp = lock.writeLock();
+		try {
+			return tree.removeMax();
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public BSTreeNode<E> remove(E entry) throws NullPointerException {
+		long stamp = lock.writeLock();
+		try {
+			return tree.remove(entry);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Iterator<E> inorderIterator() {
+		long stamp = lock.readLock();
+		try {
+			return new SnapshotIterator<E>(tree.inorderIterator(), tree.size());
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public Iterator<E> preorderIterator() {
+		long stamp = lock.readLock();
+		try {
+			return new SnapshotIterator<E>(tree.preorderIterator(), tree.size());
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public Iterator<E> postorderIterator() {
+		long stamp = lock.readLock();
+		try {
+			return new SnapshotIterator<E>(tree.postorderIterator(), tree.size());
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Walks down from the root without locking. Writers may be relinking nodes at the same time, so the result
+	 * only counts if the stamp is still valid afterwards, and the walk is cut short if it runs into a cycle
+	 *
+	 * @param entry the element to find
+	 * @return the node holding the element, or null if it was not found
+	 * @throws IllegalStateException if the walk took too many steps
+	 */
+	private BSTreeNode<E> find(E entry) {
+		BSTreeNode<E> current = tree.isEmpty() ? null : tree.getRoot();
+		for(int steps = 0; current != null; steps++) {
+			if(steps == MAX_OPTIMISTIC_STEPS) {
+				throw new IllegalStateException("Tree changed during lookup");
+			}
+			int compareResult = entry.compareTo(current.getElement());
+			if(compareResult == 0) {
+				return current;
+			}
+			current = compareResult < 0 ? current.getLeft() : current.getRight();
+		}
+		return null;
+	}
+
+	/**
+	 * Writes the tree while holding the read lock
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		long stamp = lock.readLock();
+		try {
+			out.defaultWriteObject();
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Reads the tree and creates a new lock for it
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		lock = new StampedLock();
+	}
+
+	/**
+	 * Iterates over a copy of the elements, unaffected by later changes to the tree
+	 */
+	private static final class SnapshotIterator<E> implements Iterator<E> {
+		private final Object[] elements;
+		private int position;
+
+		/**
+		 * Constructor for SnapshotIterator
+		 *
+		 * @param source the elements to copy, in the order they are returned
+		 * @param size the number of elements
+		 */
+		SnapshotIterator(Iterator<E> source, int size) {
+			this.elements = new Object[size];
+			for(int i = 0; i < size; i++) {
+				elements[i] = source.next();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return position < elements.length;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next() throws NoSuchElementException {
+			if(!hasNext()) {
+				throw new NoSuchElementException("No more elements in the tree.");
+			}
+			return (E) elements[position++];
+		}
+	}
+}
@@ -0,0 +1,313 @@
+package implementations;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fingerprints of the input files a repository was built from, so files that did not change since they were
+ * parsed are not parsed again.
+ *
+ * Every entry holds a file's size, last modified time and a SHA-256 hash of its content. A file whose size and
+ * modified time match its entry is taken as unchanged without reading it. When only the time differs the content
+ * is hashed, so a file that was touched or copied over with the same bytes is still recognized. Entries are keyed
+ * by the file name exactly as it was given to the tracker, as the FileDictionary names are.
+ *
+ * The manifest is stored in the repository file by RepositoryFormat.
+ *
+ * @version 1.0
+ */
+public final class FileManifest {
+	/**
+	 * Digest the content hashes are made with
+	 */
+	public static final String HASH_ALGORITHM = "SHA-256";
+	/**
+	 * Size of the buffer files are hashed through
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * What a file looks like compared to its entry
+	 */
+	public enum Status {
+		/**
+		 * The file has no entry
+		 */
+		NEW,
+		/**
+		 * The file has the content it had when its entry was made
+		 */
+		UNCHANGED,
+		/**
+		 * The content of the file differs from its entry
+		 */
+		CHANGED,
+		/**
+		 * The file has an entry but no longer exists
+		 */
+		MISSING
+	}
+
+	/**
+	 * The entries keyed by file name, in the order they were first added
+	 */
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+	/**
+	 * Returns the number of files in the manifest
+	 * @return the entry count
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the entry of a file
+	 * @param file the file name
+	 * @return the entry, or null if the file has none
+	 */
+	public Entry get(String file) {
+		return entries.get(file);
+	}
+
+	/**
+	 * Adds the entry of a file, replacing the one it had
+	 * @param entry the entry
+	 */
+	public void put(Entry entry) {
+		entries.put(entry.getFile(), entry);
+	}
+
+	/**
+	 * Adds every entry of another manifest, replacing the entries of the same files
+	 * @param other the manifest to copy from
+	 */
+	public void putAll(FileManifest other) {
+		entries.putAll(other.entries);
+	}
+
+	/**
+	 * Removes the entry of a file
+	 * @param file the file name
+	 * @return the removed entry, or null if the file had none
+	 */
+	public Entry remove(String file) {
+		return entries.remove(file);
+	}
+
+	/**
+	 * Removes every entry
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Returns the entries in the order they were first added
+	 * @return an unmodifiable view of the entries
+	 */
+	public Collection<Entry> entries() {
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	/**
+	 * Compares a file against its entry, reading the file only when its size matches but its modified time does
+	 * not. A file whose content is unchanged under a new time gets its entry updated, so it is not hashed again
+	 *
+	 * @param file the file name
+	 * @return the status of the file
+	 * @throws IOException if the file cannot be read
+	 */
+	public Status check(String file) throws IOException {
+		Entry entry = entries.get(file);
+		Path path = Paths.get(file);
+		if(!Files.isRegularFile(path)) {
+			return entry == null ? Status.NEW : Status.MISSING;
+		}
+		if(entry == null) {
+			return Status.NEW;
+		}
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		if(attributes.size() != entry.getSize()) {
+			return Status.CHANGED;
+		}
+		if(attributes.lastModifiedTime().toMillis() == entry.getModified()) {
+			return Status.UNCHANGED;
+		}
+		Entry current = fingerprint(path, file);
+		if(!Arrays.equals(current.hash, entry.hash)) {
+			return Status.CHANGED;
+		}
+		entries.put(file, current);
+		return Status.UNCHANGED;
+	}
+
+	/**
+	 * Makes the entry of a file from its attributes and content
+	 *
+	 * @param path the file
+	 * @param file the name the entry is kept under
+	 * @return the entry of the file as it is now
+	 * @throws IOException if the file cannot be read
+	 */
+	public static Entry fingerprint(Path path, String file) throws IOException {
+		// the attributes are read first, so a change made while hashing shows up as a new time on the next check
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		if(!attributes.isRegularFile()) {
+			throw new NoSuchFileException(file);
+		}
+		MessageDigest digest = newDigest();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			while(channel.read(buffer) >= 0) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		return new Entry(file, attributes.size(), attributes.lastModifiedTime().toMillis(), digest.digest());
+	}
+
+	/**
+	 * Writes the manifest in the repository format
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	void writeTo(DataOutput out) throws IOException {
+		RepositoryFormat.writeVarInt(out, entries.size());
+		for(Entry entry : entries.values()) {
+			writeEntry(out, entry);
+		}
+	}
+
+	/**
+	 * Reads entries written by writeTo into this manifest
+	 *
+	 * @param in the stream positioned at the manifest
+	 * @throws IOException if the stream cannot be read
+	 */
+	void readFrom(DataInput in) throws IOException {
+		int count = RepositoryFormat.readVarInt(in);
+		for(int i = 0; i < count; i++) {
+			this.put(readEntry(in));
+		}
+	}
+
+	/**
+	 * Writes one entry, as the manifest and the repository log store it
+	 *
+	 * @param out the stream to write to
+	 * @param entry the entry
+	 * @throws IOException if the stream cannot be written
+	 */
+	static void writeEntry(DataOutput out, Entry entry) throws IOException {
+		out.writeUTF(entry.file);
+		out.writeLong(entry.size);
+		out.writeLong(entry.modified);
+		RepositoryFormat.writeVarInt(out, entry.hash.length);
+		out.write(entry.hash);
+	}
+
+	/**
+	 * Reads one entry written by writeEntry
+	 *
+	 * @param in the stream positioned at the entry
+	 * @return the entry
+	 * @throws IOException if the stream cannot be read
+	 */
+	static Entry readEntry(DataInput in) throws IOException {
+		String file = in.readUTF();
+		long size = in.readLong();
+		long modified = in.readLong();
+		byte[] hash = new byte[RepositoryFormat.readVarInt(in)];
+		in.readFully(hash);
+		return new Entry(file, size, modified, hash);
+	}
+
+	/**
+	 * Returns a new content digest
+	 * @return the digest
+	 */
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		}
+		catch(NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The fingerprint of one file
+	 */
+	public static final class Entry {
+		private final String file;
+		private final long size;
+		private final long modified;
+		private final byte[] hash;
+
+		/**
+		 * Constructor for Entry
+		 * @param file the file name
+		 * @param size the size of the file in bytes
+		 * @param modified the last modified time of the file in milliseconds since the epoch
+		 * @param hash the digest of the file's content
+		 */
+		Entry(String file, long size, long modified, byte[] hash) {
+			this.file = file;
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+		}
+
+		/**
+		 * Returns the file name
+		 * @return the name the entry is kept under
+		 */
+		public String getFile() {
+			return file;
+		}
+
+		/**
+		 * Returns the size of the file
+		 * @return the size in bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns the last modified time of the file
+		 * @return the time in milliseconds since the epoch
+		 */
+		public long getModified() {
+			return modified;
+		}
+
+		/**
+		 * Returns the digest of the file's content
+		 * @return a copy of the hash
+		 */
+		public byte[] getHash() {
+			return hash.clone();
+		}
+	}
+}
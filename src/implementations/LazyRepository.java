@@ -0,0 +1,235 @@
+package implementations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import utilities.FileDictionary;
+import utilities.WordStorage;
+
+/**
+ * A repository file and its log opened without loading the words, so they can be loaded one at a time or a range
+ * at a time as a WordTracker first needs them.
+ *
+ * The file is opened as a MappedRepository, which only reads its header and manifest. The log is replayed into
+ * an overlay holding the last logged state of every file in it, since every logged file replaces all of that
+ * file's occurrences. A word is loaded by decoding its record, if it has one, and applying the overlay to it:
+ * every logged file is taken out of it and the occurrences logged for the word added back, in the order the files
+ * were last logged. That is the state replaying the whole log over the whole file leaves the word in, including
+ * the order of its files.
+ *
+ * Every load returns new WordStorages, which later loads do not share.
+ *
+ * @version 1.0
+ */
+public final class LazyRepository implements Closeable {
+	/**
+	 * The repository file
+	 */
+	private final MappedRepository base;
+	/**
+	 * The fingerprints of the input files, with the logged changes applied
+	 */
+	private final FileManifest manifest;
+	/**
+	 * The words of every logged file keyed by word, by FileDictionary ID in the order the files were last logged
+	 */
+	private final LinkedHashMap<Integer, Map<String, WordStorage>> logged = new LinkedHashMap<Integer, Map<String, WordStorage>>();
+	/**
+	 * Every word found in a logged file, in alphabetical order
+	 */
+	private final TreeSet<String> loggedWords = new TreeSet<String>();
+
+	/**
+	 * Constructor for LazyRepository, use open
+	 *
+	 * @param base the mapped repository file
+	 */
+	private LazyRepository(MappedRepository base) {
+		this.base = base;
+		this.manifest = base.getManifest();
+	}
+
+	/**
+	 * Opens a repository file and replays its log into the overlay, cutting off a torn tail the way a full load
+	 * does
+	 *
+	 * @param path the repository file, written uncompressed by RepositoryFormat version 2 or later
+	 * @return the opened repository, to be closed when done
+	 * @throws IOException if the file cannot be mapped or the log cannot be read
+	 */
+	public static LazyRepository open(Path path) throws IOException {
+		MappedRepository base = MappedRepository.open(path);
+		try {
+			final LazyRepository repository = new LazyRepository(base);
+			RepositoryLog.forRepository(path).replay(repository::log);
+			return repository;
+		}
+		catch(IOException | RuntimeException e) {
+			base.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the manifest of the repository with the logged changes applied
+	 * @return the fingerprints of the input files, which the caller may change
+	 */
+	public FileManifest getManifest() {
+		return manifest;
+	}
+
+	/**
+	 * Returns the number of words in the repository file, not counting the log
+	 * @return the word count of the file
+	 */
+	public int baseSize() {
+		return base.size();
+	}
+
+	/**
+	 * Returns whether a file has occurrences in the repository file or was logged, so loading only some of its
+	 * words would leave out the others
+	 *
+	 * @param fileId the ID of the file in the file name dictionary
+	 * @return true if the file is in the repository file or its log
+	 */
+	public boolean containsFile(int fileId) {
+		return logged.containsKey(fileId) || base.containsFile(fileId);
+	}
+
+	/**
+	 * Loads one word
+	 *
+	 * @param word the word to load
+	 * @return a new WordStorage holding every occurrence of the word, or null if it has none
+	 * @throws IOException if the record cannot be decoded
+	 */
+	public WordStorage get(String word) throws IOException {
+		return this.overlay(word, base.get(word));
+	}
+
+	/**
+	 * Loads every word starting with a prefix
+	 *
+	 * @param prefix the start every loaded word shares
+	 * @return new WordStorages for the words in alphabetical order
+	 * @throws IOException if a record cannot be decoded
+	 */
+	public List<WordStorage> getPrefix(String prefix) throws IOException {
+		return this.load(prefix);
+	}
+
+	/**
+	 * Loads every word, in one pass over the file
+	 *
+	 * @return new WordStorages for the words in alphabetical order
+	 * @throws IOException if a record cannot be decoded
+	 */
+	public List<WordStorage> getAll() throws IOException {
+		return this.load("");
+	}
+
+	/**
+	 * Closes the repository file
+	 */
+	@Override
+	public void close() throws IOException {
+		base.close();
+	}
+
+	/**
+	 * Loads the words starting with a prefix from the file and the overlay, walking both in alphabetical order
+	 *
+	 * @param prefix the start every loaded word shares, empty for every word
+	 * @return the loaded words in alphabetical order
+	 * @throws IOException if a record cannot be decoded
+	 */
+	private List<WordStorage> load(String prefix) throws IOException {
+		List<WordStorage> words = new ArrayList<WordStorage>(prefix.isEmpty() ? base.size() + loggedWords.size() : 16);
+		int index = base.lowerBound(prefix);
+		String stored = index < base.size() ? base.wordAt(index) : null;
+		Iterator<String> it = loggedWords.tailSet(prefix).iterator();
+		String extra = it.hasNext() ? it.next() : null;
+		while(true) {
+			if(stored != null && !stored.startsWith(prefix)) {
+				stored = null;
+			}
+			if(extra != null && !extra.startsWith(prefix)) {
+				extra = null;
+			}
+			if(stored == null && extra == null) {
+				return words;
+			}
+			int order = stored == null ? 1 : extra == null ? -1 : stored.compareTo(extra);
+			String word = order <= 0 ? stored : extra;
+			WordStorage loaded = this.overlay(word, order <= 0 ? base.storageAt(index) : null);
+			if(loaded != null) {
+				words.add(loaded);
+			}
+			if(order <= 0) {
+				index++;
+				stored = index < base.size() ? base.wordAt(index) : null;
+			}
+			if(order >= 0) {
+				extra = it.hasNext() ? it.next() : null;
+			}
+		}
+	}
+
+	/**
+	 * Applies the overlay to a word decoded from the file
+	 *
+	 * @param word the word
+	 * @param stored the word's record, null if the file has none
+	 * @return the word with the logged files replaced, or null if it has no occurrences left
+	 */
+	private WordStorage overlay(String word, WordStorage stored) {
+		if(logged.isEmpty()) {
+			return stored;
+		}
+		if(stored == null) {
+			if(!loggedWords.contains(word)) {
+				return null;
+			}
+			stored = new WordStorage(word);
+		}
+		for(Map.Entry<Integer, Map<String, WordStorage>> file : logged.entrySet()) {
+			stored.removeFile(file.getKey());
+			WordStorage lines = file.getValue().get(word);
+			if(lines != null) {
+				stored.addOccurrences(lines, 0);
+			}
+		}
+		return stored.getFrequency() == 0 ? null : stored;
+	}
+
+	/**
+	 * Records a replayed file in the overlay and the manifest, moving it after the files logged before it
+	 *
+	 * @param file the file name
+	 * @param entry the file's manifest entry, null if it is no longer indexed
+	 * @param words the words found in the file
+	 */
+	private void log(String file, FileManifest.Entry entry, List<WordStorage> words) {
+		int fileId = FileDictionary.getInstance().idOf(file);
+		Map<String, WordStorage> byWord = new HashMap<String, WordStorage>();
+		for(WordStorage word : words) {
+			byWord.put(word.getWord(), word);
+			loggedWords.add(word.getWord());
+		}
+		logged.remove(fileId);
+		logged.put(fileId, byWord);
+		manifest.remove(file);
+		if(entry != null) {
+			manifest.put(entry);
+		}
+	}
+}
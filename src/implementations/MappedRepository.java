@@ -0,0 +1,338 @@
+package implementations;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import utilities.WordStorage;
+
+/**
+ * Read-only view of a repository file that is memory mapped instead of loaded.
+ *
+ * Opening only reads the header, the file name dictionary, the manifest and the end of the file, so it takes
+ * about the same time whatever the size of the repository. Lookups binary search the record directory written by
+ * RepositoryFormat in place and decode only the records they touch, leaving the rest of the file to the
+ * operating system's page cache rather than the heap.
+ *
+ * Files larger than a single mapping are mapped in chunks. A record that straddles two chunks is copied out
+ * before it is decoded.
+ *
+ * @version 1.0
+ */
+public final class MappedRepository implements Closeable {
+	/**
+	 * Largest number of bytes covered by one mapping
+	 */
+	private static final long CHUNK_SIZE = 1L << 30;
+	/**
+	 * The open repository file
+	 */
+	private final FileChannel channel;
+	/**
+	 * The file mapped in consecutive chunks of CHUNK_SIZE bytes
+	 */
+	private final ByteBuffer[] chunks;
+	/**
+	 * The IDs of the files in the file name dictionary
+	 */
+	private final int[] files;
+	/**
+	 * The fingerprints of the input files, empty for versions before 3
+	 */
+	private final FileManifest manifest = new FileManifest();
+	/**
+	 * Number of words in the repository
+	 */
+	private final int wordCount;
+	/**
+	 * Size of the file in bytes
+	 */
+	private final long length;
+	/**
+	 * Offset of the record directory
+	 */
+	private final long directory;
+
+	/**
+	 * Constructor for MappedRepository, use open
+	 *
+	 * @param channel the open repository file
+	 * @throws IOException if the file cannot be mapped or is not an indexed repository
+	 */
+	private MappedRepository(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.length = channel.size();
+		this.chunks = new ByteBuffer[(int) ((length + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+		for(int i = 0; i < chunks.length; i++) {
+			long start = i * CHUNK_SIZE;
+			chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, length - start));
+		}
+
+		if(length < 16 || getInt(0) != RepositoryFormat.MAGIC) {
+			throw new IOException("Not a word repository file");
+		}
+		int version = getInt(4);
+		if(version < 2 || version > RepositoryFormat.VERSION) {
+			throw new IOException("Repository version " + version + " has no directory, save it again to map it");
+		}
+		long headerEnd = 8;
+		if(version >= 4) {
+			if(slice(8, 1).get() != 0) {
+				throw new IOException("Compressed repositories cannot be mapped, load them instead");
+			}
+			headerEnd = 9;
+		}
+
+		this.directory = getLong(length - 8);
+		if(directory < headerEnd || directory > length - 8) {
+			throw new IOException("Corrupt repository directory");
+		}
+		this.wordCount = (int) ((length - 8 - directory) / 8);
+		long firstRecord = wordCount == 0 ? directory : getLong(directory);
+		DataInputStream header = input(headerEnd, firstRecord - headerEnd);
+		this.files = RepositoryFormat.readFileIds(header);
+		if(version >= 3) {
+			manifest.readFrom(header);
+		}
+	}
+
+	/**
+	 * Opens and maps a repository file
+	 *
+	 * @param path the repository file, written uncompressed by RepositoryFormat version 2 or later
+	 * @return the mapped repository, to be closed when done
+	 * @throws IOException if the file cannot be mapped, is compressed or is not an indexed repository
+	 */
+	public static MappedRepository open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new MappedRepository(channel);
+		}
+		catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the number of words in the repository
+	 * @return the word count
+	 */
+	public int size() {
+		return wordCount;
+	}
+
+	/**
+	 * Returns the manifest stored in the repository
+	 * @return the fingerprints of the input files, which the caller may change
+	 */
+	public FileManifest getManifest() {
+		return manifest;
+	}
+
+	/**
+	 * Returns whether a file has occurrences in the repository
+	 *
+	 * @param fileId the ID of the file in the file name dictionary
+	 * @return true if the file is in the repository's file table
+	 */
+	public boolean containsFile(int fileId) {
+		for(int file : files) {
+			if(file == fileId) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the word at a position in alphabetical order, decoding only the word itself
+	 *
+	 * @param index the position of the word
+	 * @return the word
+	 * @throws IOException if the record cannot be decoded
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the word count
+	 */
+	public String wordAt(int index) throws IOException {
+		return record(index).readUTF();
+	}
+
+	/**
+	 * Returns the word at a position in alphabetical order with all of its occurrences
+	 *
+	 * @param index the position of the word
+	 * @return a new WordStorage holding the decoded record
+	 * @throws IOException if the record cannot be decoded
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the word count
+	 */
+	public WordStorage storageAt(int index) throws IOException {
+		return RepositoryFormat.readRecord(record(index), files);
+	}
+
+	/**
+	 * Finds the position of the first word that is not alphabetically before a key
+	 *
+	 * @param word the key to search for
+	 * @return the position of the first word greater than or equal to the key, the word count if there is none
+	 * @throws IOException if a record cannot be decoded
+	 */
+	public int lowerBound(String word) throws IOException {
+		int low = 0;
+		int high = wordCount;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(wordAt(middle).compareTo(word) < 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Looks up a word and decodes its occurrences
+	 *
+	 * @param word the word to look up
+	 * @return a new WordStorage holding the record, or null if the word is not in the repository
+	 * @throws IOException if a record cannot be decoded
+	 */
+	public WordStorage get(String word) throws IOException {
+		int index = this.lowerBound(word);
+		if(index == wordCount || !wordAt(index).equals(word)) {
+			return null;
+		}
+		return storageAt(index);
+	}
+
+	/**
+	 * Closes the file, the mappings are released once they are no longer reachable
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Returns a stream over one record, its length is the distance to the next record or the directory
+	 *
+	 * @param index the position of the record
+	 * @return a stream positioned at the start of the record
+	 * @throws IOException if the directory is corrupt
+	 */
+	private DataInputStream record(int index) throws IOException {
+		if(index < 0 || index >= wordCount) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + wordCount);
+		}
+		long start = getLong(directory + 8L * index);
+		long end = index + 1 == wordCount ? directory : getLong(directory + 8L * (index + 1));
+		return input(start, end - start);
+	}
+
+	/**
+	 * Returns a stream over a range of the file
+	 *
+	 * @param offset the start of the range
+	 * @param length the number of bytes in the range
+	 * @return a stream over the range
+	 * @throws IOException if the range is outside the file
+	 */
+	private DataInputStream input(long offset, long length) throws IOException {
+		if(offset < 0 || length < 0 || length > Integer.MAX_VALUE || offset + length > this.length) {
+			throw new IOException("Corrupt repository directory");
+		}
+		return new DataInputStream(new ByteBufferInputStream(slice(offset, (int) length)));
+	}
+
+	/**
+	 * Returns a buffer over a range of the file, copying it only if it crosses a chunk boundary
+	 *
+	 * @param offset the start of the range
+	 * @param length the number of bytes in the range
+	 * @return a buffer positioned at the start of the range
+	 */
+	private ByteBuffer slice(long offset, int length) {
+		int chunk = (int) (offset / CHUNK_SIZE);
+		int position = (int) (offset % CHUNK_SIZE);
+		ByteBuffer source = chunks[chunk].duplicate();
+		if(position + length <= source.limit()) {
+			source.position(position);
+			source.limit(position + length);
+			return source.slice();
+		}
+
+		ByteBuffer copy = ByteBuffer.allocate(length);
+		while(true) {
+			source.position(position);
+			source.limit(Math.min(source.capacity(), position + copy.remaining()));
+			copy.put(source);
+			if(!copy.hasRemaining()) {
+				break;
+			}
+			source = chunks[++chunk].duplicate();
+			position = 0;
+		}
+		copy.flip();
+		return copy;
+	}
+
+	/**
+	 * Reads a big endian int at an offset
+	 *
+	 * @param offset the offset of the value
+	 * @return the value
+	 */
+	private int getInt(long offset) {
+		return slice(offset, 4).getInt();
+	}
+
+	/**
+	 * Reads a big endian long at an offset
+	 *
+	 * @param offset the offset of the value
+	 * @return the value
+	 */
+	private long getLong(long offset) {
+		return slice(offset, 8).getLong();
+	}
+
+	/**
+	 * Reads the remaining bytes of a buffer as a stream
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+		/**
+		 * The bytes to read
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Constructor for ByteBufferInputStream
+		 *
+		 * @param buffer the bytes to read
+		 */
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if(!buffer.hasRemaining()) {
+				return -1;
+			}
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+	}
+}
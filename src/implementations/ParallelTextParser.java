@@ -0,0 +1,263 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+import utilities.FileDictionary;
+import utilities.Iterator;
+import utilities.WordStorage;
+
+/**
+ * Parses one large file on several cores.
+ *
+ * The file is cut into byte ranges that each end right after a \n byte, so no range splits a line, a \r\n pair
+ * or a multi-byte character. The ranges are tokenized in parallel on a ForkJoinPool, each into a BSTree of its
+ * own with line numbers counted from the start of the range. Each range's line numbers are then shifted, again
+ * in parallel, by the line breaks in the ranges before it. The trees are merged pairwise in file order on the
+ * pool with the linear BSTree.merge, and the result is merged into the target tree once, which gives the same
+ * tree a sequential parse would.
+ *
+ * Only charsets that encode \n as the single byte 0x0A and never use that byte inside another character can be
+ * cut this way, see supports.
+ *
+ * @version 1.0
+ */
+public final class ParallelTextParser {
+	/**
+	 * Smallest range worth handing to a worker
+	 */
+	public static final long MIN_CHUNK_SIZE = 8L << 20;
+
+	/**
+	 * The charset the files are decoded with
+	 */
+	private final Charset charset;
+	/**
+	 * The pool the ranges are parsed on
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * Smallest size of a range
+	 */
+	private final long minChunkSize;
+
+	/**
+	 * Constructor for ParallelTextParser
+	 *
+	 * @param charset the charset the files are decoded with, see supports
+	 * @param pool the pool the ranges are parsed on
+	 * @param minChunkSize the smallest size of a range in bytes
+	 * @throws IllegalArgumentException if the charset cannot be cut at line breaks
+	 */
+	public ParallelTextParser(Charset charset, ForkJoinPool pool, long minChunkSize) {
+		if(!supports(charset)) {
+			throw new IllegalArgumentException("Cannot split " + charset + " text at byte boundaries");
+		}
+		this.charset = charset;
+		this.pool = pool;
+		this.minChunkSize = minChunkSize;
+	}
+
+	/**
+	 * Checks if text in a charset can be cut into ranges after \n bytes
+	 *
+	 * @param charset the charset to check
+	 * @return true for UTF-8, US-ASCII and ISO-8859-1
+	 */
+	public static boolean supports(Charset charset) {
+		return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+				|| charset.equals(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Parses a file in parallel and merges every occurrence into a tree, exactly as TextParse would
+	 *
+	 * @param path the file to parse
+	 * @param fileName the name the occurrences are recorded under
+	 * @param tree the tree holding the occurrences so far, its elements receive the new occurrences
+	 * @return a new balanced tree holding the occurrences so far and those of the file
+	 * @throws IOException if the file cannot be read
+	 */
+	public BSTree<WordStorage> parse(Path path, String fileName, BSTree<WordStorage> tree) throws IOException {
+		long[] bounds = this.split(path);
+		int chunks = bounds.length - 1;
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		BSTree<WordStorage>[] trees = new BSTree[chunks];
+		int[] lineBreaks = new int[chunks];
+
+		int fileId = FileDictionary.getInstance().idOf(fileName);
+		try {
+			pool.invoke(new ChunkTask(path, fileId, bounds, trees, lineBreaks, 0, chunks));
+		}
+		catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		final int[] lineOffsets = new int[chunks];
+		for(int i = 1; i < chunks; i++) {
+			lineOffsets[i] = lineOffsets[i - 1] + lineBreaks[i - 1];
+		}
+		pool.submit(() -> IntStream.range(1, chunks).parallel().forEach(i -> {
+			Iterator<WordStorage> it = trees[i].inorderIterator();
+			while(it.hasNext()) {
+				it.next().offsetLines(lineOffsets[i]);
+			}
+		})).join();
+
+		// merging the ranges pairwise keeps every occurrence in O(log chunks) merges instead of one per range
+		BSTree<WordStorage> parsed = pool.invoke(new MergeTask(trees, 0, chunks));
+		return BSTree.merge(tree, parsed, WordStorage::merge);
+	}
+
+	/**
+	 * Cuts a file into ranges of at least the minimum size, each ending right after a \n byte or at the end of
+	 * the file
+	 *
+	 * @param path the file to cut
+	 * @return the offsets where the ranges start followed by the size of the file
+	 * @throws IOException if the file cannot be read
+	 */
+	private long[] split(Path path) throws IOException {
+		List<Long> bounds = new ArrayList<Long>();
+		bounds.add(0L);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long chunkSize = Math.max(minChunkSize, size / (pool.getParallelism() * 4L) + 1);
+			ByteBuffer buffer = ByteBuffer.allocate(8192);
+			long next = chunkSize;
+			while(next < size) {
+				// move the cut forward to just after the next line feed
+				long position = next;
+				long cut = size;
+				while(cut == size && position < size) {
+					buffer.clear();
+					int count = channel.read(buffer, position);
+					for(int i = 0; i < count; i++) {
+						if(buffer.get(i) == '\n') {
+							cut = position + i + 1;
+							break;
+						}
+					}
+					position += Math.max(count, 0);
+				}
+				if(cut < size) {
+					bounds.add(cut);
+				}
+				next = cut + chunkSize;
+			}
+			bounds.add(size);
+		}
+
+		long[] result = new long[bounds.size()];
+		for(int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a run of ranges, splitting it in half until a single range is left
+	 */
+	private final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Path path;
+		private final int fileId;
+		private final long[] bounds;
+		private final BSTree<WordStorage>[] trees;
+		private final int[] lineBreaks;
+		private final int from;
+		private final int to;
+
+		/**
+		 * Constructor for ChunkTask
+		 *
+		 * @param path the file being parsed
+		 * @param fileId the ID of the file the occurrences are recorded under
+		 * @param bounds the range offsets from split
+		 * @param trees receives the tree of each range
+		 * @param lineBreaks receives the number of line breaks in each range
+		 * @param from the first range of the run
+		 * @param to the range after the last one of the run
+		 */
+		ChunkTask(Path path, int fileId, long[] bounds, BSTree<WordStorage>[] trees, int[] lineBreaks,
+				int from, int to) {
+			this.path = path;
+			this.fileId = fileId;
+			this.bounds = bounds;
+			this.trees = trees;
+			this.lineBreaks = lineBreaks;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkTask(path, fileId, bounds, trees, lineBreaks, from, middle),
+						new ChunkTask(path, fileId, bounds, trees, lineBreaks, middle, to));
+				return;
+			}
+
+			final BSTree<WordStorage> local = new BSTree<WordStorage>(true);
+			try {
+				lineBreaks[from] = new StreamingTextReader(charset).read(path, bounds[from], bounds[from + 1],
+						(word, line) -> local.getOrInsert(new WordStorage(word)).getElement().addOccurrence(fileId, line),
+						null);
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			trees[from] = local;
+		}
+	}
+
+	/**
+	 * Merges a run of range trees in file order, splitting it in half until a single tree is left
+	 */
+	private static final class MergeTask extends RecursiveTask<BSTree<WordStorage>> {
+		private static final long serialVersionUID = 1L;
+		private final BSTree<WordStorage>[] trees;
+		private final int from;
+		private final int to;
+
+		/**
+		 * Constructor for MergeTask
+		 *
+		 * @param trees the tree of each range, cleared as they are merged
+		 * @param from the first range of the run
+		 * @param to the range after the last one of the run
+		 */
+		MergeTask(BSTree<WordStorage>[] trees, int from, int to) {
+			this.trees = trees;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BSTree<WordStorage> compute() {
+			if(to - from == 1) {
+				BSTree<WordStorage> tree = trees[from];
+				trees[from] = null;
+				return tree;
+			}
+			int middle = (from + to) >>> 1;
+			MergeTask first = new MergeTask(trees, from, middle);
+			first.fork();
+			BSTree<WordStorage> second = new MergeTask(trees, middle, to).compute();
+			return BSTree.merge(first.join(), second, WordStorage::merge);
+		}
+	}
+}
@@ -0,0 +1,441 @@
+package implementations;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Height balanced BSTreeADT whose nodes are never changed once they are part of the tree.
+ *
+ * An update copies only the O(log n) nodes on the path it touches, including any rotations, and shares every
+ * other subtree with the previous version. The new root is then published with a single compare-and-set, so
+ * readers always see a complete version of the tree and never wait for a writer. Concurrent writers retry
+ * their update on the newer root when the compare-and-set fails.
+ *
+ * Since an old root stays valid forever, snapshot and every iterator capture the version current at the time
+ * of the call in constant time. They are unaffected by later updates, however long they are used.
+ *
+ * Snapshots share elements as well as nodes, so they only stay consistent if the elements are not changed
+ * in place. Nodes are copied as the tree changes, so callers should keep elements rather than nodes, and must
+ * not change the nodes returned by getRoot, search or select.
+ *
+ * @param <E> The type of elements this tree holds.
+ * @version 1.0
+ */
+public class PersistentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The current version of the tree
+	 */
+	private final AtomicReference<BSTreeNode<E>> root;
+
+	/**
+	 * Constructor for PersistentBSTree
+	 */
+	public PersistentBSTree() {
+		this.root = new AtomicReference<BSTreeNode<E>>();
+	}
+
+	/**
+	 * Constructor for PersistentBSTree holding the elements of an existing tree, which is left unchanged
+	 *
+	 * @param tree the tree holding the initial elements
+	 */
+	public PersistentBSTree(BSTree<E> tree) {
+		BSTree<E> copy = BSTree.fromSorted(tree.inorderIterator());
+		this.root = new AtomicReference<BSTreeNode<E>>(copy.isEmpty() ? null : copy.getRoot());
+	}
+
+	/**
+	 * Constructor for a snapshot sharing a version of another tree
+	 *
+	 * @param root the root of the version
+	 */
+	private PersistentBSTree(BSTreeNode<E> root) {
+		this.root = new AtomicReference<BSTreeNode<E>>(root);
+	}
+
+	/**
+	 * Captures the current version of the tree in constant time. The snapshot and this tree can both be
+	 * changed afterwards without affecting each other
+	 *
+	 * @return a tree holding the current elements
+	 */
+	public PersistentBSTree<E> snapshot() {
+		return new PersistentBSTree<E>(root.get());
+	}
+
+	@Override
+	public BSTreeNode<E> getRoot() throws NullPointerException {
+		BSTreeNode<E> current = root.get();
+		if(current == null) {
+			throw new NullPointerException("The tree is empty; root is null.");
+		}
+		return current;
+	}
+
+	@Override
+	public int getHeight() {
+		return BSTreeNode.heightOf(root.get());
+	}
+
+	@Override
+	public int size() {
+		return BSTreeNode.sizeOf(root.get());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return root.get() == null;
+	}
+
+	@Override
+	public void clear() {
+		root.set(null);
+	}
+
+	@Override
+	public boolean contains(E entry) throws NullPointerException {
+		return this.search(entry) != null;
+	}
+
+	@Override
+	public BSTreeNode<E> search(E entry) throws NullPointerException {
+		if(entry == null) {
+			throw new NullPointerException("Cannot search null elements.");
+		}
+		return BSTree.search(root.get(), entry);
+	}
+
+	@Override
+	public int countLessThan(E entry) throws NullPointerException {
+		if(entry == null) {
+			throw new NullPointerException("Cannot rank null elements.");
+		}
+		return BSTree.countLessThan(root.get(), entry);
+	}
+
+	@Override
+	public int rank(E entry) throws NullPointerException {
+		if(entry == null) {
+			throw new NullPointerException("Cannot rank null elements.");
+		}
+		return BSTree.rank(root.get(), entry);
+	}
+
+	@Override
+	public BSTreeNode<E> select(int index) throws IndexOutOfBoundsException {
+		BSTreeNode<E> current = root.get();
+		if(index < 0 || index >= BSTreeNode.sizeOf(current)) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + BSTreeNode.sizeOf(current));
+		}
+		return BSTree.select(current, index);
+	}
+
+	@Override
+	public boolean add(E newEntry) throws NullPointerException {
+		if(newEntry == null) {
+			throw new NullPointerException("Cannot add null element to the tree.");
+		}
+		while(true) {
+			BSTreeNode<E> current = root.get();
+			BSTreeNode<E> updated = insert(current, newEntry, null);
+			if(updated == current) {
+				return false; // the element already exists in the tree
+			}
+			if(root.compareAndSet(current, updated)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Finds the node holding an element equal to the entry, or adds the entry when it is not found
+	 *
+	 * @param entry the element to find, or to add when it is not found
+	 * @return the node holding the existing element, or the new node holding the entry if it was added. Later
+	 *         updates may replace the node with a copy holding the same element
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	@Override
+	public BSTreeNode<E> getOrInsert(E entry) throws NullPointerException {
+		if(entry == null) {
+			throw new NullPointerException("Cannot add null element to the tree.");
+		}
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		BSTreeNode<E>[] found = new BSTreeNode[1];
+		while(true) {
+			BSTreeNode<E> current = root.get();
+			BSTreeNode<E> updated = insert(current, entry, found);
+			if(updated == current || root.compareAndSet(current, updated)) {
+				return found[0];
+			}
+		}
+	}
+
+	@Override
+	public BSTreeNode<E> removeMin() {
+		while(true) {
+			BSTreeNode<E> current = root.get();
+			if(current == null) {
+				return null;
+			}
+			BSTreeNode<E> min = current;
+			while(min.getLeft() != null) {
+				min = min.getLeft();
+			}
+			if(root.compareAndSet(current, removeMin(current))) {
+				return min;
+			}
+		}
+	}
+
+	@Override
+	public BSTreeNode<E> removeMax() {
+		while(true) {
+			BSTreeNode<E> current = root.get();
+			if(current == null) {
+				return null;
+			}
+			BSTreeNode<E> max = current;
+			while(max.getRight() != null) {
+				max = max.getRight();
+			}
+			if(root.compareAndSet(current, removeMax(current))) {
+				return max;
+			}
+		}
+	}
+
+	@Override
+	public BSTreeNode<E> remove(E entry) throws NullPointerException {
+		if(entry == null) {
+			throw new NullPointerException("Cannot remove null elements.");
+		}
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		BSTreeNode<E>[] found = new BSTreeNode[1];
+		while(true) {
+			BSTreeNode<E> current = root.get();
+			found[0] = null;
+			BSTreeNode<E> updated = remove(current, entry, found);
+			if(found[0] == null || root.compareAndSet(current, updated)) {
+				return found[0];
+			}
+		}
+	}
+
+	@Override
+	public Iterator<E> inorderIterator() {
+		return new BSTree.InorderIterator<E>(root.get());
+	}
+
+	/**
+	 * Generates an in-order iteration that starts at a zero-based position in the natural ordering
+	 *
+	 * @param startIndex the position of the first element returned
+	 * @return an iterator with the elements from that position on in natural order
+	 * @throws IndexOutOfBoundsException if the index is negative or greater than the size of the tree
+	 */
+	public Iterator<E> inorderIterator(int startIndex) throws IndexOutOfBoundsException {
+		BSTreeNode<E> current = root.get();
+		if(startIndex < 0 || startIndex > BSTreeNode.sizeOf(current)) {
+			throw new IndexOutOfBoundsException("Index: " + startIndex + ", Size: " + BSTreeNode.sizeOf(current));
+		}
+		return new BSTree.InorderIterator<E>(current, startIndex);
+	}
+
+	/**
+	 * Generates an in-order iteration over the elements from a lower bound, inclusive, up to an upper bound,
+	 * exclusive
+	 *
+	 * @param fromEntry the smallest element that may be returned
+	 * @param toEntry the element that ends the range, it is never returned
+	 * @return an iterator with the elements in the range in natural order
+	 * @throws NullPointerException if either bound is null
+	 * @throws IllegalArgumentException if the lower bound is greater than the upper bound
+	 */
+	public Iterator<E> subSet(E fromEntry, E toEntry) throws NullPointerException, IllegalArgumentException {
+		if(fromEntry == null || toEntry == null) {
+			throw new NullPointerException("Cannot bound a range with null elements.");
+		}
+		if(fromEntry.compareTo(toEntry) > 0) {
+			throw new IllegalArgumentException("The lower bound is greater than the upper bound.");
+		}
+		return new BSTree.RangeIterator<E>(root.get(), fromEntry, toEntry, null);
+	}
+
+	/**
+	 * Generates an in-order iteration over the elements that share a prefix, see BSTree.prefixIterator
+	 *
+	 * @param prefix the element holding the prefix, the smallest possible match
+	 * @param hasPrefix tells whether an element starts with the prefix
+	 * @return an iterator with the matching elements in natural order
+	 * @throws NullPointerException if the prefix or predicate is null
+	 */
+	public Iterator<E> prefixIterator(E prefix, Predicate<? super E> hasPrefix) throws NullPointerException {
+		if(prefix == null || hasPrefix == null) {
+			throw new NullPointerException("Cannot search for a null prefix.");
+		}
+		return new BSTree.RangeIterator<E>(root.get(), prefix, null, hasPrefix);
+	}
+
+	@Override
+	public Iterator<E> preorderIterator() {
+		return new BSTree.PreorderIterator<E>(root.get());
+	}
+
+	@Override
+	public Iterator<E> postorderIterator() {
+		return new BSTree.PostorderIterator<E>(root.get());
+	}
+
+	/**
+	 * Adds an entry to a version of a subtree, copying the path down to it
+	 *
+	 * @param node the root of the subtree, may be null
+	 * @param entry the element to add
+	 * @param found receives the node holding the entry or the equal element, may be null
+	 * @return the root of the new version, the same node if the entry was already in the subtree
+	 */
+	private static <E extends Comparable<? super E>> BSTreeNode<E> insert(BSTreeNode<E> node, E entry,
+			BSTreeNode<E>[] found) {
+		if(node == null) {
+			BSTreeNode<E> leaf = new BSTreeNode<E>(entry);
+			if(found != null) {
+				found[0] = leaf;
+			}
+			return leaf;
+		}
+		int compareResult = entry.compareTo(node.getElement());
+		if(compareResult == 0) {
+			if(found != null) {
+				found[0] = node;
+			}
+			return node;
+		}
+		if(compareResult < 0) {
+			BSTreeNode<E> left = insert(node.getLeft(), entry, found);
+			return left == node.getLeft() ? node : balance(node.getElement(), left, node.getRight());
+		}
+		BSTreeNode<E> right = insert(node.getRight(), entry, found);
+		return right == node.getRight() ? node : balance(node.getElement(), node.getLeft(), right);
+	}
+
+	/**
+	 * Removes an entry from a version of a subtree, copying the path down to it. A node with two children is
+	 * replaced by a copy of its in-order successor
+	 *
+	 * @param node the root of the subtree, may be null
+	 * @param entry the element to remove
+	 * @param found receives the node holding the removed element, left null if it is not in the subtree
+	 * @return the root of the new version, the same node if the entry was not in the subtree
+	 */
+	private static <E extends Comparable<? super E>> BSTreeNode<E> remove(BSTreeNode<E> node, E entry,
+			BSTreeNode<E>[] found) {
+		if(node == null) {
+			return null;
+		}
+		int compareResult = entry.compareTo(node.getElement());
+		if(compareResult < 0) {
+			BSTreeNode<E> left = remove(node.getLeft(), entry, found);
+			return left == node.getLeft() ? node : balance(node.getElement(), left, node.getRight());
+		}
+		if(compareResult > 0) {
+			BSTreeNode<E> right = remove(node.getRight(), entry, found);
+			return right == node.getRight() ? node : balance(node.getElement(), node.getLeft(), right);
+		}
+		found[0] = node;
+		if(node.getLeft() == null) {
+			return node.getRight();
+		}
+		if(node.getRight() == null) {
+			return node.getLeft();
+		}
+		BSTreeNode<E> successor = node.getRight();
+		while(successor.getLeft() != null) {
+			successor = successor.getLeft();
+		}
+		return balance(successor.getElement(), node.getLeft(), removeMin(node.getRight()));
+	}
+
+	/**
+	 * Removes the smallest element from a version of a subtree
+	 *
+	 * @param node the root of the subtree
+	 * @return the root of the new version
+	 */
+	private static <E> BSTreeNode<E> removeMin(BSTreeNode<E> node) {
+		if(node.getLeft() == null) {
+			return node.getRight();
+		}
+		return balance(node.getElement(), removeMin(node.getLeft()), node.getRight());
+	}
+
+	/**
+	 * Removes the largest element from a version of a subtree
+	 *
+	 * @param node the root of the subtree
+	 * @return the root of the new version
+	 */
+	private static <E> BSTreeNode<E> removeMax(BSTreeNode<E> node) {
+		if(node.getRight() == null) {
+			return node.getLeft();
+		}
+		return balance(node.getElement(), node.getLeft(), removeMax(node.getRight()));
+	}
+
+	/**
+	 * Creates a node over two subtrees whose heights differ by at most two, rotating new copies into place
+	 * when they differ by two
+	 *
+	 * @param data the element of the node
+	 * @param left the left subtree
+	 * @param right the right subtree
+	 * @return the root of the balanced subtree
+	 */
+	private static <E> BSTreeNode<E> balance(E data, BSTreeNode<E> left, BSTreeNode<E> right) {
+		int difference = BSTreeNode.heightOf(left) - BSTreeNode.heightOf(right);
+		if(difference > 1) {
+			if(BSTreeNode.heightOf(left.getLeft()) < BSTreeNode.heightOf(left.getRight())) {
+				left = rotateLeft(left.getElement(), left.getLeft(), left.getRight()); // left-right case
+			}
+			return rotateRight(data, left, right);
+		}
+		if(difference < -1) {
+			if(BSTreeNode.heightOf(right.getRight()) < BSTreeNode.heightOf(right.getLeft())) {
+				right = rotateRight(right.getElement(), right.getLeft(), right.getRight()); // right-left case
+			}
+			return rotateLeft(data, left, right);
+		}
+		return new BSTreeNode<E>(data, left, right);
+	}
+
+	/**
+	 * Creates the right rotation of a node, lifting a copy of the left child into its place
+	 *
+	 * @param data the element of the node
+	 * @param left the left subtree
+	 * @param right the right subtree
+	 * @return the new root of the subtree
+	 */
+	private static <E> BSTreeNode<E> rotateRight(E data, BSTreeNode<E> left, BSTreeNode<E> right) {
+		return new BSTreeNode<E>(left.getElement(), left.getLeft(),
+				new BSTreeNode<E>(data, left.getRight(), right));
+	}
+
+	/**
+	 * Creates the left rotation of a node, lifting a copy of the right child into its place
+	 *
+	 * @param data the element of the node
+	 * @param left the left subtree
+	 * @param right the right subtree
+	 * @return the new root of the subtree
+	 */
+	private static <E> BSTreeNode<E> rotateLeft(E data, BSTreeNode<E> left, BSTreeNode<E> right) {
+		return new BSTreeNode<E>(right.getElement(), new BSTreeNode<E>(data, left, right.getLeft()),
+				right.getRight());
+	}
+}
@@ -0,0 +1,470 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writer that hands report text to a background thread, which encodes it with an explicit charset and writes it
+ * to a channel through a direct buffer.
+ *
+ * The formatting thread fills large char blocks and puts full ones on a bounded queue. The writer thread takes
+ * them, encodes them and writes them, then gives the blocks back to be filled again, so the memory in use stays
+ * fixed and formatting and I/O overlap. When the writer thread falls behind the formatting thread blocks on the
+ * queue, so a report is written at the speed of the slower of the two. Each write to the channel covers a whole
+ * block rather than a line.
+ *
+ * Only one thread may write to a ReportWriter. An error on the writer thread is thrown by the next write, flush
+ * or close. Malformed or unmappable characters are replaced, as OutputStreamWriter does.
+ *
+ * @version 1.0
+ */
+public final class ReportWriter extends Writer {
+	/**
+	 * Default number of chars in a block
+	 */
+	public static final int BLOCK_SIZE = 1 << 17;
+	/**
+	 * Default number of full blocks that may wait for the writer thread
+	 */
+	public static final int QUEUE_DEPTH = 8;
+	/**
+	 * Put on the queue to stop the writer thread
+	 */
+	private static final CharBuffer END = CharBuffer.allocate(0);
+
+	/**
+	 * Where the encoded text goes
+	 */
+	private final WritableByteChannel channel;
+	/**
+	 * True to close the channel when the writer is closed
+	 */
+	private final boolean closeChannel;
+	/**
+	 * Encodes the text, only used by the writer thread
+	 */
+	private final CharsetEncoder encoder;
+	/**
+	 * Number of chars in a block
+	 */
+	private final int blockSize;
+	/**
+	 * Most blocks that exist at once
+	 */
+	private final int maxBlocks;
+	/**
+	 * Full blocks waiting to be written
+	 */
+	private final BlockingQueue<CharBuffer> full;
+	/**
+	 * Written blocks ready to be filled again
+	 */
+	private final BlockingQueue<CharBuffer> free;
+	/**
+	 * Encodes and writes the blocks
+	 */
+	private final Thread writerThread;
+	/**
+	 * Number of blocks that were created
+	 */
+	private int blocks;
+	/**
+	 * The block being filled, null if none
+	 */
+	private CharBuffer current;
+	/**
+	 * Number of blocks put on the queue, only used by the formatting thread
+	 */
+	private long submitted;
+	/**
+	 * Number of blocks the writer thread is done with, guarded by the writer
+	 */
+	private long completed;
+	/**
+	 * The first error of the writer thread
+	 */
+	private volatile IOException failure;
+	/**
+	 * True once close was called
+	 */
+	private boolean closed;
+
+	/**
+	 * Constructor for ReportWriter using the default block size and queue depth
+	 *
+	 * @param channel where the encoded text goes
+	 * @param charset the charset the text is encoded in
+	 * @param closeChannel true to close the channel when the writer is closed
+	 */
+	public ReportWriter(WritableByteChannel channel, Charset charset, boolean closeChannel) {
+		this(channel, charset, closeChannel, BLOCK_SIZE, QUEUE_DEPTH);
+	}
+
+	/**
+	 * Constructor for ReportWriter
+	 *
+	 * @param channel where the encoded text goes
+	 * @param charset the charset the text is encoded in
+	 * @param closeChannel true to close the channel when the writer is closed
+	 * @param blockSize the number of chars in a block
+	 * @param queueDepth the number of full blocks that may wait for the writer thread
+	 * @throws IllegalArgumentException if the block size or queue depth is not positive
+	 */
+	public ReportWriter(WritableByteChannel channel, Charset charset, boolean closeChannel, int blockSize,
+			int queueDepth) {
+		if(blockSize < 1 || queueDepth < 1) {
+			throw new IllegalArgumentException("Block size and queue depth must be positive");
+		}
+		this.channel = channel;
+		this.closeChannel = closeChannel;
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.blockSize = blockSize;
+		// one being filled, the queued ones and one being written
+		this.maxBlocks = queueDepth + 2;
+		this.full = new ArrayBlockingQueue<CharBuffer>(queueDepth + 1);
+		this.free = new ArrayBlockingQueue<CharBuffer>(maxBlocks);
+		this.writerThread = new Thread(this::drain, "report-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * Creates a report file, replacing it if it exists
+	 *
+	 * @param path the file to write
+	 * @param charset the charset the text is encoded in
+	 * @return a writer that closes the file when it is closed
+	 * @throws IOException if the file cannot be created
+	 */
+	public static ReportWriter open(Path path, Charset charset) throws IOException {
+		return new ReportWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING), charset, true);
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		this.block().put((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		while(len > 0) {
+			CharBuffer block = this.block();
+			int count = Math.min(len, block.remaining());
+			block.put(cbuf, off, count);
+			off += count;
+			len -= count;
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		this.copy(str, off, off + len);
+	}
+
+	@Override
+	public Writer append(CharSequence csq) throws IOException {
+		CharSequence text = csq == null ? "null" : csq;
+		this.copy(text, 0, text.length());
+		return this;
+	}
+
+	@Override
+	public Writer append(CharSequence csq, int start, int end) throws IOException {
+		this.copy(csq == null ? "null" : csq, start, end);
+		return this;
+	}
+
+	/**
+	 * Hands the text written so far to the writer thread and waits until it is written to the channel
+	 */
+	@Override
+	public void flush() throws IOException {
+		this.checkOpen();
+		this.submit();
+		long target = submitted;
+		synchronized(this) {
+			while(completed < target && failure == null) {
+				try {
+					this.wait();
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while flushing the report");
+				}
+			}
+		}
+		this.checkFailure();
+	}
+
+	/**
+	 * Writes the remaining text, stops the writer thread and closes the channel if it was asked to. The writer
+	 * thread is stopped even when it failed
+	 */
+	@Override
+	public void close() throws IOException {
+		if(closed) {
+			return;
+		}
+		try {
+			try {
+				this.submit();
+			}
+			finally {
+				this.put(END);
+				writerThread.join();
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while closing the report");
+		}
+		finally {
+			closed = true;
+			if(closeChannel) {
+				channel.close();
+			}
+		}
+		this.checkFailure();
+	}
+
+	/**
+	 * Copies part of a CharSequence into the blocks, straight from the sequence's own chars for strings and builders
+	 *
+	 * @param text the text to copy
+	 * @param start the position of the first char to copy
+	 * @param end the position after the last char to copy
+	 * @throws IOException if the writer thread failed
+	 */
+	private void copy(CharSequence text, int start, int end) throws IOException {
+		while(start < end) {
+			CharBuffer block = this.block();
+			int count = Math.min(end - start, block.remaining());
+			int position = block.position();
+			if(text instanceof String) {
+				((String) text).getChars(start, start + count, block.array(), position);
+			}
+			else if(text instanceof StringBuilder) {
+				((StringBuilder) text).getChars(start, start + count, block.array(), position);
+			}
+			else {
+				for(int i = 0; i < count; i++) {
+					block.array()[position + i] = text.charAt(start + i);
+				}
+			}
+			block.position(position + count);
+			start += count;
+		}
+	}
+
+	/**
+	 * Returns a block with room in it, handing the current one to the writer thread if it is full
+	 *
+	 * @return the block to write into
+	 * @throws IOException if the writer is closed or the writer thread failed
+	 */
+	private CharBuffer block() throws IOException {
+		this.checkOpen();
+		if(current != null && !current.hasRemaining()) {
+			this.submit();
+		}
+		if(current == null) {
+			current = free.poll();
+			if(current == null && blocks < maxBlocks) {
+				current = CharBuffer.allocate(blockSize);
+				blocks++;
+			}
+			if(current == null) {
+				try {
+					current = free.take();
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while writing the report");
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Hands the current block to the writer thread if anything was written to it
+	 *
+	 * @throws IOException if the writer thread failed
+	 */
+	private void submit() throws IOException {
+		this.checkFailure();
+		if(current == null || current.position() == 0) {
+			return;
+		}
+		current.flip();
+		CharBuffer block = current;
+		current = null;
+		try {
+			this.put(block);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing the report");
+		}
+		submitted++;
+	}
+
+	/**
+	 * Puts a block on the queue, waiting for room
+	 *
+	 * @param block the block to put
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	private void put(CharBuffer block) throws InterruptedException {
+		full.put(block);
+	}
+
+	/**
+	 * Body of the writer thread: encodes and writes blocks until END is taken. After an error the blocks are
+	 * only given back, so the formatting thread never waits forever
+	 */
+	private void drain() {
+		ByteBuffer bytes = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE,
+				(long) Math.ceil(blockSize * (double) encoder.maxBytesPerChar()) + 16));
+		// a high surrogate at the end of a block, waiting for the low one at the start of the next
+		CharBuffer pending = CharBuffer.allocate(2);
+		try {
+			while(true) {
+				CharBuffer block = full.take();
+				if(block == END) {
+					break;
+				}
+				if(failure == null) {
+					try {
+						this.encode(pending, block, bytes);
+					}
+					catch(IOException e) {
+						failure = e;
+					}
+					catch(RuntimeException e) {
+						failure = new IOException(e);
+					}
+				}
+				block.clear();
+				free.offer(block);
+				synchronized(this) {
+					completed++;
+					this.notifyAll();
+				}
+			}
+			if(failure == null) {
+				pending.flip();
+				this.encode(pending, bytes, true);
+				while(encoder.flush(bytes).isOverflow()) {
+					this.write(bytes);
+				}
+				this.write(bytes);
+			}
+		}
+		catch(IOException e) {
+			failure = e;
+		}
+		catch(InterruptedException e) {
+			failure = new InterruptedIOException("Report writer interrupted");
+		}
+		finally {
+			synchronized(this) {
+				this.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Encodes one block and writes it to the channel, joining a surrogate pair split between two blocks
+	 *
+	 * @param pending holds a high surrogate left from the previous block, in write mode
+	 * @param block the block to encode, in read mode
+	 * @param bytes the buffer the encoded bytes go through
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void encode(CharBuffer pending, CharBuffer block, ByteBuffer bytes) throws IOException {
+		if(pending.position() > 0 && block.hasRemaining()) {
+			pending.put(block.get());
+			pending.flip();
+			this.encode(pending, bytes, false);
+			pending.compact();
+		}
+		this.encode(block, bytes, false);
+		if(block.hasRemaining()) {
+			pending.put(block);
+		}
+		this.write(bytes);
+	}
+
+	/**
+	 * Encodes chars into the byte buffer, writing it out whenever it fills up
+	 *
+	 * @param chars the chars to encode, in read mode
+	 * @param bytes the buffer the encoded bytes go through
+	 * @param endOfInput true if no more chars follow
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void encode(CharBuffer chars, ByteBuffer bytes, boolean endOfInput) throws IOException {
+		while(true) {
+			CoderResult result = encoder.encode(chars, bytes, endOfInput);
+			if(!result.isOverflow()) {
+				return;
+			}
+			this.write(bytes);
+		}
+	}
+
+	/**
+	 * Writes the bytes in the buffer to the channel and empties it
+	 *
+	 * @param bytes the buffer, in write mode
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void write(ByteBuffer bytes) throws IOException {
+		bytes.flip();
+		while(bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		bytes.clear();
+	}
+
+	/**
+	 * Throws if the writer was closed
+	 *
+	 * @throws IOException if the writer was closed or the writer thread failed
+	 */
+	private void checkOpen() throws IOException {
+		if(closed) {
+			throw new IOException("Report writer is closed");
+		}
+		this.checkFailure();
+	}
+
+	/**
+	 * Throws the writer thread's error, if any
+	 *
+	 * @throws IOException if the writer thread failed
+	 */
+	private void checkFailure() throws IOException {
+		IOException error = failure;
+		if(error != null) {
+			throw new IOException("Report could not be written", error);
+		}
+	}
+}
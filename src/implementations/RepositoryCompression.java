@@ -0,0 +1,351 @@
+package implementations;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * How the body of a repository file, everything after its header, is compressed.
+ *
+ * A compressed body is cut into blocks of BLOCK_SIZE bytes that are deflated on their own and written as the
+ * raw length, the compressed length and the compressed bytes. Only one block is held in memory in either
+ * direction, so the size of the repository never matters. Deflate levels 1 to 9 trade save time for size, and
+ * HUFFMAN_ONLY skips the search for repeated strings and only entropy codes the bytes, which is nearly as fast
+ * as writing them uncompressed.
+ *
+ * The setting is stored in the header by its ID, so a file is read the same way whichever setting wrote it.
+ * A compressed file cannot be memory mapped, MappedRepository refuses it and it is loaded instead.
+ *
+ * @version 1.0
+ */
+public final class RepositoryCompression {
+	/**
+	 * Number of uncompressed bytes in a block
+	 */
+	public static final int BLOCK_SIZE = 1 << 18;
+	/**
+	 * ID of HUFFMAN_ONLY, the IDs 1 to 9 are the deflate levels
+	 */
+	private static final int HUFFMAN_ID = 10;
+	/**
+	 * Every setting, indexed by ID
+	 */
+	private static final RepositoryCompression[] SETTINGS = new RepositoryCompression[HUFFMAN_ID + 1];
+	static {
+		for(int id = 0; id < SETTINGS.length; id++) {
+			SETTINGS[id] = new RepositoryCompression(id);
+		}
+	}
+	/**
+	 * The body is written as it is
+	 */
+	public static final RepositoryCompression NONE = SETTINGS[0];
+	/**
+	 * Huffman coding only, the fastest setting that still compresses
+	 */
+	public static final RepositoryCompression HUFFMAN_ONLY = SETTINGS[HUFFMAN_ID];
+
+	/**
+	 * The ID stored in the header
+	 */
+	private final int id;
+
+	/**
+	 * Constructor for RepositoryCompression, use the constants or level
+	 *
+	 * @param id the ID stored in the header
+	 */
+	private RepositoryCompression(int id) {
+		this.id = id;
+	}
+
+	/**
+	 * Returns the setting that deflates blocks at a level
+	 *
+	 * @param level the deflate level, from 1 for the fastest to 9 for the smallest, or 0 for none
+	 * @return the setting
+	 * @throws IllegalArgumentException if the level is not between 0 and 9
+	 */
+	public static RepositoryCompression level(int level) throws IllegalArgumentException {
+		if(level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Compression level must be between 0 and 9: " + level);
+		}
+		return SETTINGS[level];
+	}
+
+	/**
+	 * Returns the setting named on the command line, a deflate level from 0 to 9 or "h" for HUFFMAN_ONLY
+	 *
+	 * @param name the name of the setting
+	 * @return the setting
+	 * @throws IllegalArgumentException if the name is not a setting
+	 */
+	public static RepositoryCompression parse(String name) throws IllegalArgumentException {
+		if(name.equalsIgnoreCase("h")) {
+			return HUFFMAN_ONLY;
+		}
+		if(name.length() != 1 || !Character.isDigit(name.charAt(0))) {
+			throw new IllegalArgumentException("Unknown compression: " + name);
+		}
+		return level(name.charAt(0) - '0');
+	}
+
+	/**
+	 * Returns the setting stored in a header
+	 *
+	 * @param id the stored ID
+	 * @return the setting
+	 * @throws IOException if the ID is not a setting
+	 */
+	static RepositoryCompression fromId(int id) throws IOException {
+		if(id < 0 || id >= SETTINGS.length) {
+			throw new IOException("Unknown repository compression: " + id);
+		}
+		return SETTINGS[id];
+	}
+
+	/**
+	 * Returns the ID stored in the header
+	 * @return the ID
+	 */
+	int getId() {
+		return id;
+	}
+
+	/**
+	 * Checks if the body is compressed
+	 * @return false for NONE
+	 */
+	public boolean isCompressed() {
+		return id != 0;
+	}
+
+	/**
+	 * Returns the name of the setting
+	 * @return a description of the setting
+	 */
+	@Override
+	public String toString() {
+		return id == 0 ? "none" : id == HUFFMAN_ID ? "huffman only" : "deflate level " + id;
+	}
+
+	/**
+	 * Returns a stream that compresses what is written to it in blocks
+	 *
+	 * @param out the stream receiving the blocks
+	 * @return the compressing stream, which must be finished
+	 */
+	BlockOutputStream compress(OutputStream out) {
+		Deflater deflater = id == HUFFMAN_ID ? new Deflater(Deflater.BEST_SPEED, true) : new Deflater(id, true);
+		if(id == HUFFMAN_ID) {
+			deflater.setStrategy(Deflater.HUFFMAN_ONLY);
+		}
+		return new BlockOutputStream(out, deflater);
+	}
+
+	/**
+	 * Returns a stream that decompresses the blocks read from another
+	 *
+	 * @param in the stream positioned at the first block
+	 * @return the decompressing stream
+	 */
+	static InputStream decompress(InputStream in) {
+		return new BlockInputStream(in);
+	}
+
+	/**
+	 * Deflates the bytes written to it a block at a time
+	 */
+	static final class BlockOutputStream extends OutputStream {
+		private final DataOutputStream out;
+		private final Deflater deflater;
+		private final byte[] block = new byte[BLOCK_SIZE];
+		private byte[] compressed = new byte[BLOCK_SIZE + (BLOCK_SIZE >> 4)];
+		private int length;
+
+		/**
+		 * Constructor for BlockOutputStream
+		 *
+		 * @param out the stream receiving the blocks
+		 * @param deflater deflates every block, set up for raw deflate
+		 */
+		BlockOutputStream(OutputStream out, Deflater deflater) {
+			this.out = new DataOutputStream(out);
+			this.deflater = deflater;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if(length == block.length) {
+				this.writeBlock();
+			}
+			block[length++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while(len > 0) {
+				if(length == block.length) {
+					this.writeBlock();
+				}
+				int copied = Math.min(len, block.length - length);
+				System.arraycopy(b, off, block, length, copied);
+				length += copied;
+				off += copied;
+				len -= copied;
+			}
+		}
+
+		/**
+		 * Flushes the stream below without cutting the current block short, so flushing never changes the file
+		 */
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		/**
+		 * Writes the last block and releases the deflater, leaving the stream below open
+		 *
+		 * @throws IOException if the block cannot be written
+		 */
+		void finish() throws IOException {
+			if(length > 0) {
+				this.writeBlock();
+			}
+			deflater.end();
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.finish();
+			out.close();
+		}
+
+		/**
+		 * Deflates the current block and writes it
+		 *
+		 * @throws IOException if the block cannot be written
+		 */
+		private void writeBlock() throws IOException {
+			deflater.reset();
+			deflater.setInput(block, 0, length);
+			deflater.finish();
+			int size = 0;
+			while(!deflater.finished()) {
+				if(size == compressed.length) {
+					compressed = Arrays.copyOf(compressed, compressed.length * 2);
+				}
+				size += deflater.deflate(compressed, size, compressed.length - size);
+			}
+			out.writeInt(length);
+			out.writeInt(size);
+			out.write(compressed, 0, size);
+			length = 0;
+		}
+	}
+
+	/**
+	 * Inflates blocks written by BlockOutputStream
+	 */
+	private static final class BlockInputStream extends InputStream {
+		private final DataInputStream in;
+		private final Inflater inflater = new Inflater(true);
+		private byte[] block = new byte[BLOCK_SIZE];
+		private byte[] compressed = new byte[0];
+		private int position;
+		private int length;
+
+		/**
+		 * Constructor for BlockInputStream
+		 *
+		 * @param in the stream positioned at the first block
+		 */
+		BlockInputStream(InputStream in) {
+			this.in = new DataInputStream(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			while(position == length) {
+				if(!this.readBlock()) {
+					return -1;
+				}
+			}
+			return block[position++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(len == 0) {
+				return 0;
+			}
+			while(position == length) {
+				if(!this.readBlock()) {
+					return -1;
+				}
+			}
+			int copied = Math.min(len, length - position);
+			System.arraycopy(block, position, b, off, copied);
+			position += copied;
+			return copied;
+		}
+
+		@Override
+		public void close() throws IOException {
+			inflater.end();
+			in.close();
+		}
+
+		/**
+		 * Reads and inflates the next block
+		 *
+		 * @return false if the stream ended before the block
+		 * @throws IOException if the block is cut short or corrupt
+		 */
+		private boolean readBlock() throws IOException {
+			int first = in.read();
+			if(first < 0) {
+				return false;
+			}
+			int rawLength = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedShort());
+			int size = in.readInt();
+			if(rawLength < 0 || size < 0) {
+				throw new IOException("Corrupt compressed block");
+			}
+			if(rawLength > block.length) {
+				block = new byte[rawLength];
+			}
+			if(size > compressed.length) {
+				compressed = new byte[size];
+			}
+			in.readFully(compressed, 0, size);
+			inflater.reset();
+			inflater.setInput(compressed, 0, size);
+			try {
+				int inflated = 0;
+				while(inflated < rawLength) {
+					int read = inflater.inflate(block, inflated, rawLength - inflated);
+					if(read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+						throw new EOFException("Compressed block ended early");
+					}
+					inflated += read;
+				}
+			}
+			catch(DataFormatException e) {
+				throw new IOException("Corrupt compressed block", e);
+			}
+			position = 0;
+			length = rawLength;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,545 @@
+package implementations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import utilities.FileDictionary;
+import utilities.Iterator;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+/**
+ * Reads and writes a word repository in a compact, versioned binary format instead of default Java serialization.
+ *
+ * The file holds a header (magic number and version), a dictionary of every file name in the repository,
+ * then one record per word in alphabetical order. A record is the word followed by, for each file it is found in,
+ * the file's index in the dictionary and its line numbers. Counts and indexes are written as variable length
+ * integers and line numbers as zigzag encoded differences from the previous line, so a typical occurrence takes
+ * a single byte. This is the encoding WordStorage keeps the lines in, so they are copied rather than re-encoded.
+ * The frequency of a word is the number of lines recorded for it and is not stored.
+ *
+ * Since version 2 the records are followed by a directory holding the file offset of every record as a fixed
+ * size long, and the file ends with the offset of that directory. Sequential readers check the directory against
+ * the records they read, while MappedRepository uses it to binary search the words in place.
+ *
+ * Since version 3 the file name dictionary is followed by the FileManifest of the input files the repository
+ * was built from, which older versions do not have.
+ *
+ * Since version 4 the version is followed by a byte naming the RepositoryCompression of the rest of the file.
+ * Record offsets are positions in the uncompressed body, so only uncompressed files can be memory mapped.
+ *
+ * Both directions stream through buffered channels and never recurse over the tree, so the size of the
+ * repository is only limited by disk space and heap.
+ *
+ * @version 1.0
+ */
+public final class RepositoryFormat {
+	/**
+	 * Marks the start of a repository file, the characters "WTRP"
+	 */
+	public static final int MAGIC = 0x57545250;
+	/**
+	 * Version of the format written by this class
+	 */
+	public static final int VERSION = 4;
+	/**
+	 * Oldest version of the format this class can still read
+	 */
+	public static final int OLDEST_VERSION = 1;
+	/**
+	 * Size of the buffers between the streams and the file channel
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Not instantiable, all methods are static
+	 */
+	private RepositoryFormat() {
+	}
+
+	/**
+	 * Writes every word in a tree to a repository file, replacing the file if it exists
+	 *
+	 * @param tree the words to write
+	 * @param path the repository file
+	 * @return the number of bytes written
+	 * @throws IOException if the file cannot be written
+	 */
+	public static long write(BSTree<WordStorage> tree, Path path) throws IOException {
+		return write(tree, null, path);
+	}
+
+	/**
+	 * Writes every word in a tree and the manifest of the files they were read from to a repository file,
+	 * replacing the file if it exists. The words are written to a temporary file next to it that is flushed to
+	 * the disk and then moved over it, so a crash leaves either the old file or the new one, never part of one
+	 *
+	 * @param tree the words to write
+	 * @param manifest the fingerprints of the input files, null for none
+	 * @param path the repository file
+	 * @return the number of bytes written
+	 * @throws IOException if the file cannot be written
+	 */
+	public static long write(BSTree<WordStorage> tree, FileManifest manifest, Path path) throws IOException {
+		return write(tree, manifest, path, RepositoryCompression.NONE);
+	}
+
+	/**
+	 * Writes every word in a tree and the manifest of the files they were read from to a repository file,
+	 * compressing everything after the header, and replaces the file the way the uncompressed write does
+	 *
+	 * @param tree the words to write
+	 * @param manifest the fingerprints of the input files, null for none
+	 * @param path the repository file
+	 * @param compression how the body of the file is compressed
+	 * @return the number of bytes written
+	 * @throws IOException if the file cannot be written
+	 */
+	public static long write(BSTree<WordStorage> tree, FileManifest manifest, Path path,
+			RepositoryCompression compression) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		long written;
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+				OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+			written = write(tree, manifest, out, compression);
+			channel.force(true);
+		}
+		try {
+			Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch(AtomicMoveNotSupportedException e) {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return written;
+	}
+
+	/**
+	 * Writes every word in a tree to a stream in the repository format
+	 *
+	 * @param tree the words to write
+	 * @param stream the stream to write to, it is flushed but not closed
+	 * @return the number of bytes written
+	 * @throws IOException if the stream cannot be written
+	 */
+	public static long write(BSTree<WordStorage> tree, OutputStream stream) throws IOException {
+		return write(tree, null, stream);
+	}
+
+	/**
+	 * Writes every word in a tree and the manifest of the files they were read from to a stream in the
+	 * repository format
+	 *
+	 * @param tree the words to write
+	 * @param manifest the fingerprints of the input files, null for none
+	 * @param stream the stream to write to, it is flushed but not closed
+	 * @return the number of bytes written
+	 * @throws IOException if the stream cannot be written
+	 */
+	public static long write(BSTree<WordStorage> tree, FileManifest manifest, OutputStream stream) throws IOException {
+		return write(tree, manifest, stream, RepositoryCompression.NONE);
+	}
+
+	/**
+	 * Writes every word in a tree and the manifest of the files they were read from to a stream in the
+	 * repository format, compressing everything after the header as it is written
+	 *
+	 * @param tree the words to write
+	 * @param manifest the fingerprints of the input files, null for none
+	 * @param stream the stream to write to, it is flushed but not closed
+	 * @param compression how the body is compressed
+	 * @return the number of bytes written
+	 * @throws IOException if the stream cannot be written
+	 */
+	public static long write(BSTree<WordStorage> tree, FileManifest manifest, OutputStream stream,
+			RepositoryCompression compression) throws IOException {
+		CountingOutputStream written = new CountingOutputStream(stream, 0);
+		DataOutputStream header = new DataOutputStream(written);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.writeByte(compression.getId());
+		RepositoryCompression.BlockOutputStream blocks = compression.isCompressed() ? compression.compress(written) : null;
+		// offsets count the uncompressed bytes, which are the file positions when nothing is compressed
+		CountingOutputStream counter = new CountingOutputStream(blocks == null ? written : blocks, written.count);
+		DataOutputStream out = new DataOutputStream(counter);
+
+		// first pass numbers the files used by the tree so the words can refer to them by index, indexed by the
+		// files' IDs in the FileDictionary
+		FileDictionary dictionary = FileDictionary.getInstance();
+		List<String> fileNames = new ArrayList<String>();
+		int[] fileIndexes = new int[0];
+		Iterator<WordStorage> it = tree.inorderIterator();
+		while(it.hasNext()) {
+			WordStorage word = it.next();
+			for(int i = 0; i < word.getFileCount(); i++) {
+				int id = word.getFileId(i);
+				if(id >= fileIndexes.length) {
+					int grown = fileIndexes.length;
+					fileIndexes = Arrays.copyOf(fileIndexes, Math.max(id + 1, grown * 2));
+					Arrays.fill(fileIndexes, grown, fileIndexes.length, -1);
+				}
+				if(fileIndexes[id] < 0) {
+					fileIndexes[id] = fileNames.size();
+					fileNames.add(dictionary.nameOf(id));
+				}
+			}
+		}
+
+		writeVarInt(out, fileNames.size());
+		for(String file : fileNames) {
+			out.writeUTF(file);
+		}
+		(manifest == null ? new FileManifest() : manifest).writeTo(out);
+
+		writeVarInt(out, tree.size());
+		long[] offsets = new long[tree.size()];
+		int index = 0;
+		it = tree.inorderIterator();
+		while(it.hasNext()) {
+			WordStorage word = it.next();
+			offsets[index++] = counter.count;
+			out.writeUTF(word.getWord());
+			writeVarInt(out, word.getFileCount());
+			for(int i = 0; i < word.getFileCount(); i++) {
+				writeVarInt(out, fileIndexes[word.getFileId(i)]);
+				writeVarInt(out, word.getLineCountAt(i));
+				word.writeLinesAt(i, out);
+			}
+		}
+
+		long directory = counter.count;
+		for(long offset : offsets) {
+			out.writeLong(offset);
+		}
+		out.writeLong(directory);
+		out.flush();
+		if(blocks != null) {
+			blocks.finish();
+		}
+		return written.count;
+	}
+
+	/**
+	 * Reads a repository file into a new balanced tree
+	 *
+	 * @param path the repository file
+	 * @return a balanced tree holding every word in the file
+	 * @throws IOException if the file cannot be read or is not a repository
+	 */
+	public static BSTree<WordStorage> read(Path path) throws IOException {
+		return read(path, null);
+	}
+
+	/**
+	 * Reads a repository file into a new balanced tree and its manifest into a FileManifest
+	 *
+	 * @param path the repository file
+	 * @param manifest receives the fingerprints stored in the file, none for versions before 3, may be null
+	 * @return a balanced tree holding every word in the file
+	 * @throws IOException if the file cannot be read or is not a repository
+	 */
+	public static BSTree<WordStorage> read(Path path, FileManifest manifest) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+				DataInputStream in = new DataInputStream(
+						new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE))) {
+			return read(in, manifest);
+		}
+	}
+
+	/**
+	 * Reads a stream in the repository format into a new balanced tree
+	 *
+	 * @param in the stream to read from, it is not closed
+	 * @return a balanced tree holding every word in the stream
+	 * @throws IOException if the stream cannot be read or is not a repository
+	 */
+	public static BSTree<WordStorage> read(DataInput in) throws IOException {
+		return read(in, null);
+	}
+
+	/**
+	 * Reads a stream in the repository format into a new balanced tree and its manifest into a FileManifest
+	 *
+	 * @param in the stream to read from, it is not closed
+	 * @param manifest receives the fingerprints stored in the stream, none for versions before 3, may be null
+	 * @return a balanced tree holding every word in the stream
+	 * @throws IOException if the stream cannot be read or is not a repository
+	 */
+	public static BSTree<WordStorage> read(DataInput in, FileManifest manifest) throws IOException {
+		if(in.readInt() != MAGIC) {
+			throw new IOException("Not a word repository file");
+		}
+		int version = in.readInt();
+		if(version < OLDEST_VERSION || version > VERSION) {
+			throw new IOException("Unsupported repository version: " + version);
+		}
+
+		InputStream body = asStream(in);
+		long headerEnd = 8;
+		if(version >= 4) {
+			RepositoryCompression compression = RepositoryCompression.fromId(in.readUnsignedByte());
+			if(compression.isCompressed()) {
+				body = RepositoryCompression.decompress(body);
+			}
+			headerEnd = 9;
+		}
+		// positions in the uncompressed file, to check the directory against
+		CountingInputStream counter = new CountingInputStream(body, headerEnd);
+		in = new DataInputStream(counter);
+		int[] files = readFileIds(in);
+		if(version >= 3) {
+			(manifest == null ? new FileManifest() : manifest).readFrom(in);
+		}
+		int wordCount = readVarInt(in);
+		List<WordStorage> words = new ArrayList<WordStorage>(wordCount);
+		long[] offsets = version >= 2 ? new long[wordCount] : null;
+		for(int i = 0; i < wordCount; i++) {
+			if(offsets != null) {
+				offsets[i] = counter.count;
+			}
+			words.add(readRecord(in, files));
+		}
+		if(offsets != null) {
+			// the directory is not needed to load the words, but a file whose directory is damaged cannot be mapped
+			long directory = counter.count;
+			for(long offset : offsets) {
+				if(in.readLong() != offset) {
+					throw new IOException("Corrupt repository directory");
+				}
+			}
+			if(in.readLong() != directory) {
+				throw new IOException("Corrupt repository directory");
+			}
+		}
+
+		// the words are stored in order, so the tree is bulk loaded rather than added to one at a time
+		return BSTree.fromSorted(words);
+	}
+
+	/**
+	 * Returns how the body of a repository file is compressed, reading only its header
+	 *
+	 * @param path the repository file
+	 * @return the compression, NONE for versions before 4
+	 * @throws IOException if the file cannot be read or is not a repository
+	 */
+	public static RepositoryCompression compressionOf(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+			if(in.readInt() != MAGIC) {
+				throw new IOException("Not a word repository file");
+			}
+			return in.readInt() >= 4 ? RepositoryCompression.fromId(in.readUnsignedByte()) : RepositoryCompression.NONE;
+		}
+	}
+
+	/**
+	 * Returns a DataInput as an InputStream, so compressed bodies can be read from any DataInput
+	 *
+	 * @param in the input
+	 * @return the input itself if it is a stream, otherwise a stream reading from it
+	 */
+	private static InputStream asStream(final DataInput in) {
+		if(in instanceof InputStream) {
+			return (InputStream) in;
+		}
+		return new InputStream() {
+			@Override
+			public int read() throws IOException {
+				try {
+					return in.readUnsignedByte();
+				}
+				catch(EOFException e) {
+					return -1;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Reads the file name dictionary that follows the header, giving every name an ID in the FileDictionary
+	 *
+	 * @param in the stream positioned after the version
+	 * @return the IDs of the files indexed by their position in the dictionary
+	 * @throws IOException if the stream cannot be read
+	 */
+	static int[] readFileIds(DataInput in) throws IOException {
+		FileDictionary dictionary = FileDictionary.getInstance();
+		int[] files = new int[readVarInt(in)];
+		for(int i = 0; i < files.length; i++) {
+			files[i] = dictionary.idOf(in.readUTF());
+		}
+		return files;
+	}
+
+	/**
+	 * Reads one word record
+	 *
+	 * @param in the stream positioned at the start of the record
+	 * @param files the IDs of the files in the file name dictionary
+	 * @return the word with all of its occurrences
+	 * @throws IOException if the stream cannot be read
+	 */
+	static WordStorage readRecord(DataInput in, int[] files) throws IOException {
+		WordStorage word = new WordStorage(in.readUTF());
+		int fileCount = readVarInt(in);
+		for(int j = 0; j < fileCount; j++) {
+			int file = files[readVarInt(in)];
+			int lineCount = readVarInt(in);
+			word.addOccurrences(file, PostingList.readFrom(in, lineCount), 0);
+		}
+		return word;
+	}
+
+	/**
+	 * Writes an unsigned integer using seven bits per byte, with the high bit marking that more bytes follow
+	 *
+	 * @param out the stream to write to
+	 * @param value the value to write, treated as unsigned
+	 * @throws IOException if the stream cannot be written
+	 */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Reads an unsigned integer written by writeVarInt
+	 *
+	 * @param in the stream to read from
+	 * @return the value read
+	 * @throws IOException if the stream cannot be read or the value is malformed
+	 */
+	static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for(int shift = 0; shift < 35; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length integer");
+	}
+
+	/**
+	 * Maps a signed value to an unsigned one so small negative differences stay small
+	 *
+	 * @param value the signed value
+	 * @return the zigzag encoded value
+	 */
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	/**
+	 * Reverses zigzag
+	 *
+	 * @param value the zigzag encoded value
+	 * @return the signed value
+	 */
+	static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Passes bytes through while counting them, so record offsets can be checked against the directory
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+		/**
+		 * Number of bytes read so far
+		 */
+		private long count;
+
+		/**
+		 * Constructor for CountingInputStream
+		 *
+		 * @param in the stream to read the bytes from
+		 * @param count the number of bytes read before
+		 */
+		CountingInputStream(InputStream in, long count) {
+			super(in);
+			this.count = count;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if(b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = in.read(b, off, len);
+			if(read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+	/**
+	 * Passes bytes through while counting them, so record offsets are known without flushing the buffers
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream {
+		/**
+		 * Number of bytes written so far
+		 */
+		private long count;
+
+		/**
+		 * Constructor for CountingOutputStream
+		 *
+		 * @param out the stream to pass the bytes to
+		 * @param count the number of bytes written before
+		 */
+		CountingOutputStream(OutputStream out, long count) {
+			super(out);
+			this.count = count;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,306 @@
+package implementations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import utilities.FileDictionary;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+/**
+ * Append-only log of the changes made to a repository since its base file was last written, so a run that
+ * changes a few files saves only those files instead of the whole repository.
+ *
+ * The log is a sequence of segments, one per save. A segment starts with a magic number, the length of its
+ * payload and the CRC32 of the payload. The payload holds, for every file the save changed, the file's name,
+ * its FileManifest entry if it is still indexed, and every word found in it with the lines it is found on,
+ * encoded as RepositoryFormat records. A file is always logged whole, so replaying it means taking its
+ * occurrences out of the repository and adding the logged ones back. Replaying a segment twice therefore
+ * leaves the repository as replaying it once does, which keeps a crash between writing a new base and
+ * emptying the log harmless.
+ *
+ * Segments are appended with a single write followed by a flush to the disk. A crash can only tear the last
+ * segment, so replay stops at the first segment that is cut short or fails its check, and drops it and
+ * anything after it.
+ *
+ * @version 1.0
+ */
+public final class RepositoryLog {
+	/**
+	 * Marks the start of a segment, the characters "WTLG"
+	 */
+	public static final int SEGMENT_MAGIC = 0x57544C47;
+	/**
+	 * Size of the magic number, payload length and checksum in front of every payload
+	 */
+	private static final int HEADER_SIZE = 12;
+
+	/**
+	 * Receives the files of replayed segments, in the order they were logged
+	 */
+	public interface Handler {
+		/**
+		 * Called for every logged file
+		 *
+		 * @param file the file name
+		 * @param entry the file's manifest entry, null if it is no longer indexed
+		 * @param words every word found in the file, each holding only the occurrences in this file
+		 * @throws IOException if the change cannot be applied
+		 */
+		void file(String file, FileManifest.Entry entry, List<WordStorage> words) throws IOException;
+	}
+
+	/**
+	 * The log file
+	 */
+	private final Path path;
+
+	/**
+	 * Constructor for RepositoryLog
+	 *
+	 * @param path the log file, which does not need to exist yet
+	 */
+	public RepositoryLog(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Returns the log kept next to a repository file, named after it with ".log" added
+	 *
+	 * @param repository the repository file
+	 * @return the log of the repository
+	 */
+	public static RepositoryLog forRepository(Path repository) {
+		return new RepositoryLog(repository.resolveSibling(repository.getFileName() + ".log"));
+	}
+
+	/**
+	 * Returns the log file
+	 * @return the path of the log
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns the size of the log
+	 * @return the size in bytes, 0 if the log does not exist
+	 * @throws IOException if the size cannot be read
+	 */
+	public long size() throws IOException {
+		return Files.exists(path) ? Files.size(path) : 0;
+	}
+
+	/**
+	 * Appends a segment and flushes it to the disk. The log must have been replayed first, so a torn segment
+	 * left by a crash is gone before anything is appended after it
+	 *
+	 * @param segment the changes to append
+	 * @return the number of bytes appended, 0 if the segment is empty
+	 * @throws IOException if the log cannot be written
+	 */
+	public long append(Segment segment) throws IOException {
+		if(segment.fileCount == 0) {
+			return 0;
+		}
+		byte[] payload = segment.bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+		buffer.putInt(SEGMENT_MAGIC).putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		return buffer.limit();
+	}
+
+	/**
+	 * Replays every intact segment and cuts off a torn or corrupt tail, so later appends follow the last good
+	 * segment
+	 *
+	 * @param handler receives the logged files
+	 * @return the number of segments replayed
+	 * @throws IOException if the log cannot be read or a segment cannot be applied
+	 */
+	public int replay(Handler handler) throws IOException {
+		return this.read(handler, true);
+	}
+
+	/**
+	 * Replays every intact segment without changing the log, for readers that must not write
+	 *
+	 * @param handler receives the logged files
+	 * @return the number of segments replayed
+	 * @throws IOException if the log cannot be read or a segment cannot be applied
+	 */
+	public int scan(Handler handler) throws IOException {
+		return this.read(handler, false);
+	}
+
+	/**
+	 * Deletes the log, once its changes are part of a new base file
+	 *
+	 * @throws IOException if the log cannot be deleted
+	 */
+	public void reset() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Replays the intact segments at the start of the log
+	 *
+	 * @param handler receives the logged files
+	 * @param repair true to cut off the segments that are not intact
+	 * @return the number of segments replayed
+	 * @throws IOException if the log cannot be read or a segment cannot be applied
+	 */
+	private int read(Handler handler, boolean repair) throws IOException {
+		if(!Files.exists(path)) {
+			return 0;
+		}
+		try (FileChannel channel = repair ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			int replayed = 0;
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while(size - position >= HEADER_SIZE) {
+				header.clear();
+				readFully(channel, header, position);
+				header.flip();
+				int magic = header.getInt();
+				int length = header.getInt();
+				int checksum = header.getInt();
+				if(magic != SEGMENT_MAGIC || length < 0 || length > size - position - HEADER_SIZE) {
+					break;
+				}
+				ByteBuffer payload = ByteBuffer.allocate(length);
+				readFully(channel, payload, position + HEADER_SIZE);
+				CRC32 crc = new CRC32();
+				crc.update(payload.array(), 0, length);
+				if((int) crc.getValue() != checksum) {
+					break;
+				}
+				apply(payload.array(), handler);
+				position += HEADER_SIZE + length;
+				replayed++;
+			}
+			if(repair && position < size) {
+				channel.truncate(position);
+				channel.force(true);
+			}
+			return replayed;
+		}
+	}
+
+	/**
+	 * Decodes the files of a segment payload and hands them to the handler
+	 *
+	 * @param payload the payload of an intact segment
+	 * @param handler receives the logged files
+	 * @throws IOException if the payload is malformed or a file cannot be applied
+	 */
+	private static void apply(byte[] payload, Handler handler) throws IOException {
+		FileDictionary dictionary = FileDictionary.getInstance();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		while(in.available() > 0) {
+			String file = in.readUTF();
+			FileManifest.Entry entry = in.readBoolean() ? FileManifest.readEntry(in) : null;
+			int fileId = dictionary.idOf(file);
+			int wordCount = RepositoryFormat.readVarInt(in);
+			List<WordStorage> words = new ArrayList<WordStorage>(wordCount);
+			for(int i = 0; i < wordCount; i++) {
+				WordStorage word = new WordStorage(in.readUTF());
+				int lineCount = RepositoryFormat.readVarInt(in);
+				word.addOccurrences(fileId, PostingList.readFrom(in, lineCount), 0);
+				words.add(word);
+			}
+			handler.file(file, entry, words);
+		}
+	}
+
+	/**
+	 * Reads bytes at a position until the buffer is full
+	 *
+	 * @param channel the channel to read
+	 * @param buffer the buffer to fill
+	 * @param position the position of the first byte
+	 * @throws IOException if the channel ends first or cannot be read
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if(read < 0) {
+				throw new EOFException("Log ended inside a segment");
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * The changes of one save, built file by file before it is appended
+	 */
+	public static final class Segment {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private int fileCount;
+
+		/**
+		 * Adds the current state of a file
+		 *
+		 * @param file the file name
+		 * @param fileId the ID of the file in the FileDictionary
+		 * @param entry the file's manifest entry, null if it is not indexed
+		 * @param words the words found in the file, words not found in it are skipped
+		 * @throws IOException if the words cannot be encoded
+		 */
+		public void addFile(String file, int fileId, FileManifest.Entry entry, Collection<WordStorage> words)
+				throws IOException {
+			out.writeUTF(file);
+			out.writeBoolean(entry != null);
+			if(entry != null) {
+				FileManifest.writeEntry(out, entry);
+			}
+			int wordCount = 0;
+			for(WordStorage word : words) {
+				wordCount += word.getFileIndex(fileId) >= 0 ? 1 : 0;
+			}
+			RepositoryFormat.writeVarInt(out, wordCount);
+			for(WordStorage word : words) {
+				int index = word.getFileIndex(fileId);
+				if(index >= 0) {
+					out.writeUTF(word.getWord());
+					RepositoryFormat.writeVarInt(out, word.getLineCountAt(index));
+					word.writeLinesAt(index, out);
+				}
+			}
+			fileCount++;
+		}
+
+		/**
+		 * Returns the number of files added
+		 * @return the file count
+		 */
+		public int fileCount() {
+			return fileCount;
+		}
+	}
+}
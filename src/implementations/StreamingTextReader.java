@@ -0,0 +1,229 @@
+package implementations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a text file through large NIO buffers and hands every word to a handler together with its line number.
+ *
+ * The file is decoded with an explicit charset one buffer at a time and never split into line strings, so lines
+ * of any length are read in the same fixed amount of memory. Lines end at the same characters java.util.Scanner
+ * uses (\r\n, \n, \r, \u2028, \u2029 and \u0085), which keeps line numbers the same as the Scanner based reader
+ * had. Malformed input is replaced rather than failing the whole file.
+ *
+ * @version 1.0
+ */
+public final class StreamingTextReader {
+	/**
+	 * Receives the words read from a file
+	 */
+	public interface WordHandler {
+		/**
+		 * Called once for every word in the file, in order
+		 *
+		 * @param word the word, lower case and never empty
+		 * @param line the line the word is on, starting at 1
+		 */
+		void word(String word, int line);
+	}
+
+	/**
+	 * Receives progress while a file is read
+	 */
+	public interface ProgressListener {
+		/**
+		 * Called every PROGRESS_INTERVAL bytes and once more when the file is done
+		 *
+		 * @param bytes the number of bytes read so far
+		 * @param lines the number of line breaks read so far
+		 * @param nanos the time spent so far
+		 */
+		void progress(long bytes, long lines, long nanos);
+	}
+
+	/**
+	 * Number of bytes read between two progress reports
+	 */
+	public static final long PROGRESS_INTERVAL = 256L << 20;
+	/**
+	 * Size of the byte and char buffers
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * The charset the files are decoded with
+	 */
+	private final Charset charset;
+	/**
+	 * Breaks the decoded text into words
+	 */
+	private final WordTokenizer tokenizer = new WordTokenizer();
+	/**
+	 * Receives the words of the file being read
+	 */
+	private WordHandler handler;
+	/**
+	 * The line being read, starting at 1
+	 */
+	private int line;
+	/**
+	 * True if the last character seen was a \r, so a \n right after it does not start another line
+	 */
+	private boolean afterCarriageReturn;
+
+	/**
+	 * Constructor for StreamingTextReader
+	 *
+	 * @param charset the charset the files are decoded with
+	 */
+	public StreamingTextReader(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Reads a whole file, passing every word to the handler
+	 *
+	 * @param path the file to read
+	 * @param handler receives the words
+	 * @param listener receives progress reports, may be null
+	 * @return the number of line breaks in the file
+	 * @throws IOException if the file cannot be read
+	 */
+	public int read(Path path, WordHandler handler, ProgressListener listener) throws IOException {
+		return this.read(path, 0, Long.MAX_VALUE, handler, listener);
+	}
+
+	/**
+	 * Reads a range of a file as if it were a file of its own, passing every word to the handler. Line numbers
+	 * start at 1 at the start of the range, so the range should start at the beginning of a line
+	 *
+	 * @param path the file to read
+	 * @param start the offset of the first byte to read
+	 * @param end the offset after the last byte to read, past the end of the file reads to the end
+	 * @param handler receives the words
+	 * @param listener receives progress reports, may be null
+	 * @return the number of line breaks in the range
+	 * @throws IOException if the file cannot be read
+	 */
+	public int read(Path path, long start, long end, WordHandler handler, ProgressListener listener)
+			throws IOException {
+		this.handler = handler;
+		this.line = 1;
+		this.afterCarriageReturn = false;
+		this.tokenizer.flush();
+
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+		long startTime = System.nanoTime();
+		long bytesRead = 0;
+		long nextReport = PROGRESS_INTERVAL;
+		boolean endOfFile = false;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			channel.position(start);
+			while(true) {
+				if(!endOfFile) {
+					// never read past the end of the range
+					long rangeLeft = end - start - bytesRead;
+					bytes.limit((int) Math.min(bytes.capacity(), bytes.position() + rangeLeft));
+					int count = rangeLeft > 0 ? channel.read(bytes) : -1;
+					if(count < 0) {
+						endOfFile = true;
+					}
+					else {
+						bytesRead += count;
+					}
+				}
+
+				bytes.flip();
+				CoderResult result = decoder.decode(bytes, chars, endOfFile);
+				bytes.compact();
+				this.scan(chars);
+
+				if(endOfFile && result.isUnderflow()) {
+					while(decoder.flush(chars).isOverflow()) {
+						this.scan(chars);
+					}
+					this.scan(chars);
+					break;
+				}
+
+				if(listener != null && bytesRead >= nextReport) {
+					listener.progress(bytesRead, line - 1, System.nanoTime() - startTime);
+					nextReport += PROGRESS_INTERVAL;
+				}
+			}
+		}
+
+		// the last line may end without a line break
+		String last = tokenizer.flush();
+		if(last != null) {
+			handler.word(last, line);
+		}
+		if(listener != null) {
+			listener.progress(bytesRead, line - 1, System.nanoTime() - startTime);
+		}
+		this.handler = null;
+		return line - 1;
+	}
+
+	/**
+	 * Tokenizes the decoded characters, ending a line at every line break, then empties the buffer
+	 *
+	 * @param chars the decoded characters, in write mode
+	 */
+	private void scan(CharBuffer chars) {
+		chars.flip();
+		int length = chars.remaining();
+		int segment = 0;
+		for(int i = 0; i < length; i++) {
+			char c = chars.charAt(i);
+			if(c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085') {
+				if(c == '\n' && afterCarriageReturn) {
+					// second half of a \r\n pair, the line already ended
+					afterCarriageReturn = false;
+					segment = i + 1;
+					continue;
+				}
+				this.tokenize(chars, segment, i);
+				String last = tokenizer.flush();
+				if(last != null) {
+					handler.word(last, line);
+				}
+				line++;
+				afterCarriageReturn = c == '\r';
+				segment = i + 1;
+			}
+			else {
+				afterCarriageReturn = false;
+			}
+		}
+		this.tokenize(chars, segment, length);
+		chars.clear();
+	}
+
+	/**
+	 * Passes the complete words in a range of the current line to the handler
+	 *
+	 * @param chars the decoded characters
+	 * @param start the first character of the range
+	 * @param end the position after the last character of the range
+	 */
+	private void tokenize(CharBuffer chars, int start, int end) {
+		tokenizer.setInput(chars, start, end);
+		for(String word = tokenizer.nextWord(); word != null; word = tokenizer.nextWord()) {
+			handler.word(word, line);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package implementations;
+
+/**
+ * Single pass tokenizer that breaks text into lower case words without building intermediate strings.
+ *
+ * Every character is looked up in a small class table. ASCII letters are lower cased into a reusable buffer,
+ * a space ends the current word, and every other character is dropped so the letters around it join up, which
+ * matches the old regex based lineBreaker. Runs of spaces never produce empty words.
+ *
+ * The tokenizer is fed one piece of text at a time and carries an unfinished word over to the next piece, so a
+ * long line can be passed in chunks. The caller marks the end of a line with flush.
+ *
+ * @version 1.0
+ */
+public final class WordTokenizer {
+	/**
+	 * Class of characters that are dropped
+	 */
+	private static final byte IGNORED = 0;
+	/**
+	 * Class of characters that are part of a word
+	 */
+	private static final byte LETTER = 1;
+	/**
+	 * Class of characters that end a word
+	 */
+	private static final byte SEPARATOR = 2;
+	/**
+	 * Class of every ASCII character, everything above is ignored
+	 */
+	private static final byte[] CLASSES = new byte[128];
+
+	static {
+		for(char c = 'a'; c <= 'z'; c++) {
+			CLASSES[c] = LETTER;
+			CLASSES[c - 'a' + 'A'] = LETTER;
+		}
+		CLASSES[' '] = SEPARATOR;
+	}
+
+	/**
+	 * Letters of the word being read
+	 */
+	private char[] word = new char[32];
+	/**
+	 * Number of letters in the word being read
+	 */
+	private int length;
+	/**
+	 * The text being tokenized
+	 */
+	private CharSequence text;
+	/**
+	 * Position of the next character to read
+	 */
+	private int position;
+	/**
+	 * Position after the last character to read
+	 */
+	private int end;
+
+	/**
+	 * Starts reading a whole piece of text, an unfinished word from the previous piece is continued
+	 *
+	 * @param text the text to read
+	 */
+	public void setInput(CharSequence text) {
+		this.setInput(text, 0, text.length());
+	}
+
+	/**
+	 * Starts reading a range of a piece of text, an unfinished word from the previous piece is continued
+	 *
+	 * @param text the text to read
+	 * @param start position of the first character to read
+	 * @param end position after the last character to read
+	 */
+	public void setInput(CharSequence text, int start, int end) {
+		this.text = text;
+		this.position = start;
+		this.end = end;
+	}
+
+	/**
+	 * Returns the next word ended by a space in the current input
+	 *
+	 * @return the next complete word, or null when the input is used up. A word still open at the end of the
+	 *         input is kept for the next input or for flush
+	 */
+	public String nextWord() {
+		while(position < end) {
+			char c = text.charAt(position++);
+			byte type = c < 128 ? CLASSES[c] : IGNORED;
+			if(type == LETTER) {
+				if(length == word.length) {
+					char[] grown = new char[length * 2];
+					System.arraycopy(word, 0, grown, 0, length);
+					word = grown;
+				}
+				word[length++] = (char) (c | 0x20); // lower case for ASCII letters
+			}
+			else if(type == SEPARATOR && length > 0) {
+				return this.takeWord();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Ends the current line, returning the word still open at its end
+	 *
+	 * @return the unfinished word, or null if there is none
+	 */
+	public String flush() {
+		return length > 0 ? this.takeWord() : null;
+	}
+
+	/**
+	 * Builds the word read so far and starts a new one
+	 *
+	 * @return the word
+	 */
+	private String takeWord() {
+		String result = new String(word, 0, length);
+		length = 0;
+		return result;
+	}
+}
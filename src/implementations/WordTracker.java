@@ -3,14 +3,28 @@ package implementations;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.Scanner;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinPool;
 
+import utilities.FileDictionary;
 import utilities.WordStorage;
 /**
  * Program that reads through a file, stores every word from the text file, and outputs according to a formatter
@@ -28,53 +42,379 @@ public class WordTracker implements Serializable{
 	 */
 	private static final long serialVersionUID = 4568400013214735429L;
 	/**
-	 * The BSTree that stores the words read from a text file
+	 * The file the repository is saved to in the compact binary format
 	 */
-	private BSTree<WordStorage> wordTree = new BSTree<WordStorage>();
+	public static final String REPOSITORY_FILE = "repository.wtr";
+	/**
+	 * The file older versions saved the repository to with Java serialization, still read when no repository file exists
+	 */
+	public static final String LEGACY_REPOSITORY_FILE = "repository.ser";
+	/**
+	 * Files at least this large are parsed on every core instead of one
+	 */
+	public static final long PARALLEL_PARSE_SIZE = 64L << 20;
+	/**
+	 * The whole repository is written again once its log grows past this fraction of the repository file
+	 */
+	public static final double LOG_COMPACTION_RATIO = 0.5;
+	/**
+	 * The BSTree that stores the words read from a text file, kept balanced so sorted word lists stay fast
+	 */
+	private BSTree<WordStorage> wordTree = new BSTree<WordStorage>(true);
+	/**
+	 * The words found in every file, keyed by FileDictionary ID, so a file can be taken out of the tree without
+	 * walking it. Built on the first reindex and kept up to date by addWord after that, null until then
+	 */
+	private transient HashMap<Integer, ArrayList<WordStorage>> fileWords;
+	/**
+	 * Fingerprints of the files indexed into the tree, saved with it so unchanged files are skipped on later runs
+	 */
+	private transient FileManifest manifest = new FileManifest();
+	/**
+	 * IDs of the files parsed or removed since the repository was loaded or saved, the ones the next save logs
+	 */
+	private transient LinkedHashSet<Integer> changedFiles = new LinkedHashSet<Integer>();
+	/**
+	 * The file last added to changedFiles, so recording an occurrence rarely touches the set
+	 */
+	private transient int lastChangedFile = -1;
+	/**
+	 * Writes the repository file in the background, created on the first checkpoint
+	 */
+	private transient Checkpointer checkpointer;
+	/**
+	 * The last checkpoint started, null once it has been waited for
+	 */
+	private transient CompletableFuture<Checkpointer.Result> pendingCheckpoint;
+	/**
+	 * The repository the words not in the tree yet are loaded from, null once every word is in the tree. A word in
+	 * the tree always holds every occurrence it has in the repository
+	 */
+	private transient LazyRepository lazy;
+	/**
+	 * How the repository file is compressed, kept from the file that was loaded
+	 */
+	private transient RepositoryCompression compression = RepositoryCompression.NONE;
+	/**
+	 * The file the repository is saved to, its log is kept next to it
+	 */
+	private transient Path repository = Paths.get(REPOSITORY_FILE);
     /**
      * Constructor for WordTracker
      * 
-     * Checks if a file repository exists to load a previous occurrence of the BSTree from it
+     * Checks if a file repository exists to load a previous occurrence of the BSTree from it. A repository file
+     * is only opened, its words are loaded as they are first needed, so starting takes about as long whatever
+     * its size
      */
 	public WordTracker() {
-		if((new File("repository.ser")).exists()) {
+		this(Paths.get(REPOSITORY_FILE));
+	}
+	/**
+	 * Constructor for WordTracker that keeps the repository in a given file instead of REPOSITORY_FILE
+	 * 
+	 * @param repository the repository file, opened if it exists
+	 */
+	public WordTracker(Path repository) {
+		this.repository = repository;
+		if(Files.exists(repository)) {
+			try
+			{
+				this.open(repository);
+				return;
+			}
+			catch (IOException e)
+			{
+				// compressed files and files written before the record directory was added cannot be opened lazily,
+				// so they are loaded
+			}
+		}
+		if(Files.exists(repository) || (new File(LEGACY_REPOSITORY_FILE)).exists()
+				|| Files.exists(RepositoryLog.forRepository(repository).getPath())) {
 			this.deserializeTree();
 		}
 	}
 	/**
-	 * Getter for the BSTree
+	 * Constructor for WordTracker that works on a given BSTree and never loads the repository file
+	 * 
+	 * @param wordTree the tree to store words in
+	 */
+	public WordTracker(BSTree<WordStorage> wordTree) {
+		this.wordTree = wordTree;
+	}
+	/**
+	 * Returns how the repository file is compressed
+	 * @return the compression the next checkpoint uses
+	 */
+	public RepositoryCompression getCompression() {
+		return compression;
+	}
+	/**
+	 * Sets how the repository file is compressed from the next checkpoint on
+	 * @param compression the compression to use
+	 */
+	public void setCompression(RepositoryCompression compression) {
+		this.compression = compression;
+	}
+	/**
+	 * Getter for the BSTree, which loads every word of the repository not loaded yet
 	 */
 	public BSTree<WordStorage> getTree(){
+		this.loadAll();
 		return wordTree;
 	}
 	/**
 	 * Takes a string, and breaks it up by removing punctuation and returns each word in a string array
+	 * Empty words from repeated spaces are never returned
 	 * 
 	 * @param line the string (line) to be broken up and returned
 	 * @return an array of strings containing every word from the input string
 	 */
 	public String[] lineBreaker(String line) {
-		line = line.replaceAll("[^A-Za-z ]+", "").toLowerCase();
-		String[] toReturn = line.split(" ");
-		return toReturn;
+		WordTokenizer tokenizer = new WordTokenizer();
+		ArrayList<String> toReturn = new ArrayList<String>();
+		tokenizer.setInput(line);
+		for(String word = tokenizer.nextWord(); word != null; word = tokenizer.nextWord()) {
+			toReturn.add(word);
+		}
+		String last = tokenizer.flush();
+		if(last != null) {
+			toReturn.add(last);
+		}
+		return toReturn.toArray(new String[toReturn.size()]);
 	}
 	/**
 	 * Takes a 3 parameters and checks if the word is already in the BSTree. 
 	 * If it is it adds it to the occurrence that word in the tree, otherwise it adds a new entry with that word 
+	 * Both cases are handled by a single descent of the tree.
 	 * 
 	 * @param readWord is the word that is being checked
 	 * @param fileName is the name of the file 
 	 * @param lineNum is the current line
 	 */
 	public void addWord(String readWord, String fileName, int lineNum) {
-		WordStorage temp = new WordStorage(readWord);
-		if(wordTree.contains(temp)) {
-			((wordTree.search(temp)).getElement()).addOccurrence(fileName, lineNum);
+		this.addWord(readWord, FileDictionary.getInstance().idOf(fileName), lineNum);
+	}
+	/**
+	 * Records an occurrence of a word in a file known by its ID in the FileDictionary, so the name is looked up
+	 * once per file rather than once per word
+	 * 
+	 * @param readWord is the word that is being checked
+	 * @param fileId is the ID of the file
+	 * @param lineNum is the current line
+	 */
+	public void addWord(String readWord, int fileId, int lineNum) {
+		this.markChanged(fileId);
+		WordStorage entry = lazy == null ? wordTree.getOrInsert(new WordStorage(readWord)).getElement() : this.loadWord(readWord);
+		if(fileWords != null && !entry.containsFile(fileId)) {
+			this.wordsIn(fileId).add(entry);
 		}
-		else {
-			wordTree.add(new WordStorage(readWord, fileName, lineNum));
+		entry.addOccurrence(fileId, lineNum);
+	}
+	/**
+	 * Indexes a file, or every file under a directory, skipping the files whose manifest entry shows they did not
+	 * change since they were last indexed. Changed files are reindexed and files of an indexed directory that no
+	 * longer exist are removed, so a repeated run costs about as much as the changes since the last one
+	 * 
+	 * @param input is the name of a file or directory
+	 * @return the number of files parsed or removed
+	 */
+	public int index(String input) {
+		Path path = Paths.get(input);
+		if(!Files.isDirectory(path)) {
+			return this.indexFile(input) ? 1 : 0;
+		}
+		List<String> files;
+		try (Stream<Path> walk = Files.walk(path)) {
+			files = walk.filter(Files::isRegularFile).map(Path::toString).sorted().collect(Collectors.toList());
+		} catch (IOException e) 
+		{
+			e.printStackTrace();
+			return 0;
+		}
+		int updated = 0;
+		for(String file : files) {
+			updated += this.indexFile(file) ? 1 : 0;
+		}
+		int skipped = files.size() - updated;
+		String prefix = path.toString() + File.separator;
+		for(FileManifest.Entry entry : new ArrayList<FileManifest.Entry>(manifest.entries())) {
+			if(entry.getFile().startsWith(prefix) && !Files.exists(Paths.get(entry.getFile()))) {
+				this.removeFile(entry.getFile());
+				updated++;
+			}
+		}
+		System.out.println("Updated " + updated + " files in " + input + ", skipped " + skipped + " unchanged files");
+		return updated;
+	}
+	/**
+	 * Indexes one file unless its manifest entry shows it did not change
+	 * 
+	 * @param file is the name of the file
+	 * @return true if the file was parsed or removed, false if it was skipped
+	 */
+	private boolean indexFile(String file) {
+		if(manifest.get(file) == null && !Files.isRegularFile(Paths.get(file))) {
+			System.out.println("File not found: " + file);
+			return false;
+		}
+		try
+		{
+			switch(manifest.check(file)) {
+			case UNCHANGED:
+				System.out.println("Skipped unchanged file: " + file);
+				return false;
+			case MISSING:
+				System.out.println("Removed " + this.removeFile(file) + " occurrences of deleted file: " + file);
+				return true;
+			default:
+				this.reindex(file);
+				return true;
+			}
+		} catch (IOException e) 
+		{
+			e.printStackTrace();
+			return false;
+		}
+	}
+	/**
+	 * Parses a file again after it changed, replacing the occurrences recorded for it the last time it was parsed.
+	 * Only the words of the file are touched, so the cost follows the size of the file rather than the repository
+	 * once the index of words per file is built. A file that no longer exists is only removed
+	 * 
+	 * @param file is the name of the file being read
+	 * @return the number of occurrences removed
+	 */
+	public int reindex(String file) {
+		return this.reindex(file, StandardCharsets.UTF_8);
+	}
+	/**
+	 * Parses a file in a given charset again after it changed, replacing the occurrences recorded for it and its
+	 * manifest entry
+	 * 
+	 * @param file is the name of the file being read
+	 * @param charset is the charset the file is encoded in
+	 * @return the number of occurrences removed
+	 */
+	public int reindex(String file, Charset charset) {
+		int removed = this.removeFile(file);
+		Path path = Paths.get(file);
+		if(!Files.isRegularFile(path)) {
+			return removed;
+		}
+		try
+		{
+			// fingerprinted before parsing, so a change made meanwhile is seen on the next run
+			FileManifest.Entry entry = FileManifest.fingerprint(path, file);
+			this.TextParse(file, charset);
+			manifest.put(entry);
+		} catch (IOException e) 
+		{
+			e.printStackTrace();
+		}
+		return removed;
+	}
+	/**
+	 * Takes every occurrence in a file back out of the repository, dropping the words that were found nowhere else,
+	 * and forgets its manifest entry
+	 * 
+	 * @param file is the name of the file
+	 * @return the number of occurrences removed
+	 */
+	public int removeFile(String file) {
+		manifest.remove(file);
+		int fileId = FileDictionary.getInstance().find(file);
+		if(fileId < 0) {
+			return 0;
+		}
+		this.markChanged(fileId);
+		// any word may be found in the file, so every word is loaded
+		this.loadAll();
+		if(fileWords == null) {
+			this.indexFiles();
+		}
+		ArrayList<WordStorage> words = fileWords.remove(fileId);
+		if(words == null) {
+			return 0;
+		}
+		int removed = 0;
+		for(WordStorage word : words) {
+			removed += word.removeFile(fileId);
+			if(word.getFrequency() == 0) {
+				wordTree.remove(word);
+			}
+		}
+		return removed;
+	}
+	/**
+	 * Records that a file changed, so the next save logs it. A file the repository already holds has every word
+	 * loaded first, since the log replaces all of its occurrences with the ones in the tree
+	 * 
+	 * @param fileId is the ID of the file
+	 */
+	private void markChanged(int fileId) {
+		if(fileId != lastChangedFile) {
+			if(lazy != null && lazy.containsFile(fileId)) {
+				// the save logs every word of the file, including those not loaded yet
+				this.loadAll();
+			}
+			changedFiles.add(fileId);
+			lastChangedFile = fileId;
+		}
+	}
+	/**
+	 * Replaces the occurrences of a file with the ones logged for it, when the repository log is replayed
+	 * 
+	 * @param file is the name of the file
+	 * @param entry is the manifest entry of the file, null if it is no longer indexed
+	 * @param words are the words found in the file, each holding only its occurrences in the file
+	 */
+	private void applyLogged(String file, FileManifest.Entry entry, List<WordStorage> words) {
+		this.removeFile(file);
+		if(!words.isEmpty()) {
+			if(fileWords == null) {
+				this.indexFiles();
+			}
+			ArrayList<WordStorage> indexed = this.wordsIn(FileDictionary.getInstance().idOf(file));
+			for(WordStorage word : words) {
+				WordStorage stored = wordTree.getOrInsert(word).getElement();
+				if(stored != word) {
+					stored.addOccurrences(word, 0);
+				}
+				indexed.add(stored);
+			}
+		}
+		if(entry != null) {
+			manifest.put(entry);
 		}
 	}
+	/**
+	 * Builds the index of words per file with one walk of the tree. While words are still loaded lazily it only
+	 * covers the loaded ones, which hold every word of the files that are not in the repository
+	 */
+	private void indexFiles() {
+		fileWords = new HashMap<Integer, ArrayList<WordStorage>>();
+		utilities.Iterator<WordStorage> it = wordTree.inorderIterator();
+		while(it.hasNext()) {
+			WordStorage word = it.next();
+			for(int i = 0; i < word.getFileCount(); i++) {
+				this.wordsIn(word.getFileId(i)).add(word);
+			}
+		}
+	}
+	/**
+	 * Returns the indexed words of a file, adding an empty list for it if it has none
+	 * 
+	 * @param fileId is the ID of the file
+	 * @return the words found in the file
+	 */
+	private ArrayList<WordStorage> wordsIn(int fileId) {
+		ArrayList<WordStorage> words = fileWords.get(fileId);
+		if(words == null) {
+			words = new ArrayList<WordStorage>();
+			fileWords.put(fileId, words);
+		}
+		return words;
+	}
 	/**
 	 * Takes a parameter to do determine what format to display every word stored in the BSTree.
 	 * Then prints out every word stored in the BSTree on their own line.
@@ -82,13 +422,43 @@ public class WordTracker implements Serializable{
 	 * @param fmt is the format specifier
 	 */
 	public void displayEntries(String fmt) {
+		this.displayEntries(fmt, 0, Integer.MAX_VALUE);
+	}
+	/**
+	 * Prints one page of the words stored in the BSTree in the given format, seeking straight to the first word of the page.
+	 * 
+	 * @param fmt is the format specifier
+	 * @param offset is the alphabetical position of the first word to print
+	 * @param limit is the most words to print
+	 */
+	public void displayEntries(String fmt, int offset, int limit) {
+		this.printEntries(this.pageIterator(offset, limit), fmt, limit);
+	}
+	/**
+	 * Prints every word stored in the BSTree that starts with a prefix in the given format, skipping the rest of the tree.
+	 * 
+	 * @param fmt is the format specifier
+	 * @param prefix is the start every printed word shares
+	 */
+	public void displayPrefix(String fmt, String prefix) {
+		this.printEntries(this.prefixIterator(prefix), fmt, Integer.MAX_VALUE);
+	}
+	/**
+	 * Prints the words from an iterator on their own line in the given format.
+	 * 
+	 * @param itTest is the iterator positioned at the first word to print
+	 * @param fmt is the format specifier
+	 * @param limit is the most words to print
+	 */
+	private void printEntries(utilities.Iterator<WordStorage> itTest, String fmt, int limit) {
 		System.out.println("Displaying with the: " + fmt + " format!");
-		utilities.Iterator<WordStorage> itTest = wordTree.inorderIterator();
-		while(itTest.hasNext()) {
-			WordStorage thing = itTest.next();
-			System.out.println(thing.displayType(fmt));
+		// encoded and written on the report writer's thread while the next words are formatted
+		try (ReportWriter console = new ReportWriter(Channels.newChannel(System.out), Charset.defaultCharset(), false)) {
+			streamEntries(console, itTest, fmt, limit, System.lineSeparator());
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
-		
+		System.out.flush();
 	}
 	/**
 	 * Takes 2 parameter to do determine what format to write every word stored in the BSTree.
@@ -98,55 +468,396 @@ public class WordTracker implements Serializable{
 	 * @param fileName is the name of the text file being written to
 	 */
 	public void writeToFile(String fileName, String fmt) {
-	    try {
-	        FileWriter myWriter = new FileWriter(fileName);
-			utilities.Iterator<WordStorage> itTest = wordTree.inorderIterator();
-			while(itTest.hasNext()) {
-				WordStorage thing = itTest.next();
-				myWriter.write(thing.displayType(fmt)+"\n");
-			}
-	        myWriter.close();
+		this.writeToFile(fileName, fmt, 0, Integer.MAX_VALUE);
+	}
+	/**
+	 * Writes one page of the words stored in the BSTree in the given format to a file, seeking straight to the first word of the page.
+	 * 
+	 * @param fileName is the name of the text file being written to
+	 * @param fmt is the format specifier
+	 * @param offset is the alphabetical position of the first word to write
+	 * @param limit is the most words to write
+	 */
+	public void writeToFile(String fileName, String fmt, int offset, int limit) {
+		this.writeEntries(fileName, this.pageIterator(offset, limit), fmt, limit);
+	}
+	/**
+	 * Writes every word stored in the BSTree that starts with a prefix in the given format to a file, skipping the rest of the tree.
+	 * 
+	 * @param fileName is the name of the text file being written to
+	 * @param fmt is the format specifier
+	 * @param prefix is the start every written word shares
+	 */
+	public void writePrefixToFile(String fileName, String fmt, String prefix) {
+		this.writeEntries(fileName, this.prefixIterator(prefix), fmt, Integer.MAX_VALUE);
+	}
+	/**
+	 * Writes the words from an iterator to a file on their own line in the given format.
+	 * 
+	 * @param fileName is the name of the text file being written to
+	 * @param itTest is the iterator positioned at the first word to write
+	 * @param fmt is the format specifier
+	 * @param limit is the most words to write
+	 */
+	private void writeEntries(String fileName, utilities.Iterator<WordStorage> itTest, String fmt, int limit) {
+	    try (ReportWriter myWriter = ReportWriter.open(Paths.get(fileName), Charset.defaultCharset())) {
+			streamEntries(myWriter, itTest, fmt, limit, "\n");
 	      } catch (IOException e) {
 	        System.out.println("An error occurred.");
 	        e.printStackTrace();
 	      }
 	}
 	/**
-	 *  Serializes the BSTree to a file named repository.ser
+	 * Formats the words from an iterator into one reused buffer and hands it to a report writer, so no String is built for any word or line number.
+	 * 
+	 * @param out is the writer receiving the words, it is not closed
+	 * @param itTest is the iterator positioned at the first word to write
+	 * @param fmt is the format specifier
+	 * @param limit is the most words to write
+	 * @param lineEnd is written after every word
+	 * @throws IOException if the writer fails
+	 */
+	private static void streamEntries(ReportWriter out, utilities.Iterator<WordStorage> itTest, String fmt, int limit, String lineEnd) throws IOException {
+		StringBuilder entry = new StringBuilder(256);
+		for(int i = 0; i < limit && itTest.hasNext(); i++) {
+			entry.setLength(0);
+			itTest.next().appendTo(entry, fmt).append(lineEnd);
+			out.append(entry);
+		}
+	}
+	/**
+	 * Returns an in-order iterator positioned at the first word of a page
+	 * 
+	 * @param offset is the alphabetical position of the first word, past the end gives an empty page
+	 * @param limit is the most words on the page
+	 * @return an iterator starting at the offset
+	 * @throws IllegalArgumentException if the offset or limit is negative
+	 */
+	private utilities.Iterator<WordStorage> pageIterator(int offset, int limit) {
+		if(offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("Offset and limit cannot be negative!");
+		}
+		this.loadAll();
+		return wordTree.inorderIterator(Math.min(offset, wordTree.size()));
+	}
+	/**
+	 * Returns an in-order iterator over the words starting with a prefix
+	 * 
+	 * @param prefix is the start every returned word shares
+	 * @return an iterator over the matching words only
+	 */
+	private utilities.Iterator<WordStorage> prefixIterator(final String prefix) {
+		this.loadPrefix(prefix);
+		return wordTree.prefixIterator(new WordStorage(prefix), word -> word.getWord().startsWith(prefix));
+	}
+	/**
+	 *  Saves the whole BSTree to the repository file in the compact binary format and empties the repository log,
+	 *  whose changes the new file holds, returning once the file is in place
 	 */
 	public void serializeTree()
 	{
 		try
 		{
-			ObjectOutputStream oos = new ObjectOutputStream(
-					new FileOutputStream("repository.ser"));
-			
-				oos.writeObject(wordTree);
-				oos.close();
+			this.checkpoint();
+			this.awaitCheckpoint();
 		}
-		catch (FileNotFoundException e)
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 *  Starts a checkpoint, which writes a snapshot of the whole BSTree to the repository file on a background
+	 *  thread. The changes not saved yet are appended to the repository log first, so they survive a checkpoint
+	 *  that fails
+	 *  
+	 *  @return completes once the repository file is in place
+	 *  @throws IOException if the changes cannot be logged
+	 */
+	public CompletableFuture<Checkpointer.Result> checkpoint() throws IOException
+	{
+		this.awaitCheckpoint();
+		Path base = repository;
+		if(Files.exists(base)) {
+			this.appendChanges(RepositoryLog.forRepository(base));
+		}
+		this.loadAll();
+		if(checkpointer == null) {
+			checkpointer = new Checkpointer(base);
+		}
+		checkpointer.setCompression(compression);
+		pendingCheckpoint = checkpointer.checkpoint(wordTree, manifest);
+		changedFiles.clear();
+		lastChangedFile = -1;
+		return pendingCheckpoint;
+	}
+	
+	/**
+	 *  Waits for the last checkpoint started, if it is still being written, and prints how long it took
+	 *  
+	 *  @throws IOException if the checkpoint failed
+	 */
+	public void awaitCheckpoint() throws IOException
+	{
+		if(pendingCheckpoint == null) {
+			return;
+		}
+		CompletableFuture<Checkpointer.Result> checkpoint = pendingCheckpoint;
+		pendingCheckpoint = null;
+		Checkpointer.Result result = Checkpointer.await(checkpoint);
+		System.out.printf("Checkpointed %,d words (%,d bytes) in %d ms%n", result.getWords(), result.getBytes(),
+				result.getNanos() / 1000000);
+	}
+	
+	/**
+	 *  Returns the metrics of the checkpoints written by this tracker
+	 *  
+	 *  @return the checkpointer, or null if no checkpoint was started
+	 */
+	public Checkpointer getCheckpointer()
+	{
+		return checkpointer;
+	}
+	
+	/**
+	 *  Saves the changes and waits for any checkpoint they start
+	 */
+	public void saveChanges()
+	{
+		this.saveChanges(true);
+	}
+	
+	/**
+	 *  Saves the files parsed or removed since the repository was loaded by appending them to the repository log,
+	 *  so the time taken follows the size of the run rather than the repository. A checkpoint of the whole
+	 *  repository is started instead when there is no repository file yet, or once the log grows past
+	 *  LOG_COMPACTION_RATIO of it
+	 *  
+	 *  @param wait is true to return once the checkpoint is written, false to leave it to awaitCheckpoint
+	 */
+	public void saveChanges(boolean wait)
+	{
+		Path base = repository;
+		try
+		{
+			// the log must not grow while a checkpoint decides whether to empty it
+			this.awaitCheckpoint();
+			if(!Files.exists(base)) {
+				this.checkpoint();
+			}
+			else {
+				RepositoryLog log = RepositoryLog.forRepository(base);
+				this.appendChanges(log);
+				if(log.size() > Files.size(base) * LOG_COMPACTION_RATIO) {
+					this.checkpoint();
+				}
+			}
+			if(wait) {
+				this.awaitCheckpoint();
+			}
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 *  Appends the files parsed or removed since the last save to the repository log
+	 *  
+	 *  @param log is the repository log
+	 *  @throws IOException if the log cannot be written
+	 */
+	private void appendChanges(RepositoryLog log) throws IOException
+	{
+		if(changedFiles.isEmpty()) {
+			return;
+		}
+		if(fileWords == null) {
+			this.indexFiles();
+		}
+		FileDictionary dictionary = FileDictionary.getInstance();
+		RepositoryLog.Segment segment = new RepositoryLog.Segment();
+		for(int fileId : changedFiles) {
+			String file = dictionary.nameOf(fileId);
+			List<WordStorage> words = fileWords.get(fileId);
+			segment.addFile(file, fileId, manifest.get(file), words == null ? Collections.<WordStorage>emptyList() : words);
+		}
+		log.append(segment);
+		changedFiles.clear();
+		lastChangedFile = -1;
+	}
+	
+	/**
+	 *  Loads the BSTree from the repository file, or from the legacy Java serialized repository if there is none yet,
+	 *  then replays the repository log over it
+	 */
+	public void deserializeTree()
+	{
+		try
+		{
+			if(!Files.exists(repository) && (new File(LEGACY_REPOSITORY_FILE)).exists()) {
+				this.deserializeLegacyTree();
+			}
+			this.load(repository);
+		}
+		catch (IOException e)
 		{
 			e.printStackTrace();
 		}
+	}
+	
+	/**
+	 *  Loads a repository file if it exists, then replays its log over it
+	 *  
+	 *  @param base is the repository file
+	 *  @throws IOException if the file or its log cannot be read
+	 */
+	private void load(Path base) throws IOException
+	{
+		this.awaitCheckpoint();
+		this.closeLazy();
+		fileWords = null;
+		manifest.clear();
+		if(Files.exists(base)) {
+			compression = RepositoryFormat.compressionOf(base);
+			wordTree = RepositoryFormat.read(base, manifest);
+		}
+		RepositoryLog.forRepository(base).replay(this::applyLogged);
+		// the replayed changes are already saved
+		changedFiles.clear();
+		lastChangedFile = -1;
+	}
+	
+	/**
+	 *  Opens a repository file and its log without loading the words, only the manifest is read
+	 *  
+	 *  @param base is the repository file
+	 *  @throws IOException if the file cannot be opened lazily or the log cannot be read
+	 */
+	private void open(Path base) throws IOException
+	{
+		LazyRepository opened = LazyRepository.open(base);
+		this.closeLazy();
+		lazy = opened;
+		compression = RepositoryCompression.NONE;
+		wordTree = new BSTree<WordStorage>(true);
+		fileWords = null;
+		manifest = lazy.getManifest();
+		// the replayed changes are already saved
+		changedFiles.clear();
+		lastChangedFile = -1;
+	}
+	
+	/**
+	 *  Returns the tree's storage of a word, loading it from the repository the first time it is needed
+	 *  
+	 *  @param word is the word
+	 *  @return the storage of the word in the tree, added empty if the repository does not have it either
+	 */
+	private WordStorage loadWord(String word)
+	{
+		WordStorage key = new WordStorage(word);
+		BSTreeNode<WordStorage> node = wordTree.search(key);
+		if(node != null) {
+			return node.getElement();
+		}
+		try
+		{
+			WordStorage loaded = lazy.get(word);
+			return wordTree.getOrInsert(loaded == null ? key : loaded).getElement();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 *  Loads every word starting with a prefix that is not in the tree yet
+	 *  
+	 *  @param prefix is the start the loaded words share
+	 */
+	private void loadPrefix(String prefix)
+	{
+		if(lazy == null) {
+			return;
+		}
+		try
+		{
+			for(WordStorage word : lazy.getPrefix(prefix)) {
+				// a word already in the tree holds the changes made to it since it was loaded
+				wordTree.getOrInsert(word);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 *  Loads every word not in the tree yet, for the operations that touch the whole repository, and closes the
+	 *  repository file
+	 */
+	private void loadAll()
+	{
+		if(lazy == null) {
+			return;
+		}
+		try
+		{
+			BSTree<WordStorage> stored = BSTree.fromSorted(lazy.getAll());
+			wordTree = BSTree.merge(wordTree, stored, (loaded, unchanged) -> loaded);
+			fileWords = null;
+			this.closeLazy();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 *  Closes the lazily opened repository file, if there is one
+	 */
+	private void closeLazy()
+	{
+		if(lazy == null) {
+			return;
+		}
+		try
+		{
+			lazy.close();
+		}
 		catch (IOException e)
 		{
 			e.printStackTrace();
 		}
+		lazy = null;
 	}
 	
 	/**
-	 *  the BSTree from a file named repository.ser 
+	 *  Loads the BSTree from a repository saved with Java serialization by an older version
 	 */
 	@SuppressWarnings( "unchecked" )
-	public void deserializeTree()
+	private void deserializeLegacyTree()
 	{
 		try
 		{
 			ObjectInputStream ois = new ObjectInputStream(
-						new FileInputStream("repository.ser"));
+						new FileInputStream(LEGACY_REPOSITORY_FILE));
 			
-			wordTree = (BSTree<WordStorage>) ois.readObject();
+			BSTree<WordStorage> loaded = (BSTree<WordStorage>) ois.readObject();
 			ois.close();
+			if(loaded.isBalanced()) {
+				wordTree = loaded;
+			}
+			else {
+				// repositories saved before balancing was added may be degenerate, so bulk load them into a balanced tree
+				wordTree = BSTree.fromSorted(loaded.inorderIterator());
+			}
 		}
 		catch (FileNotFoundException e)
 		{
@@ -164,27 +875,155 @@ public class WordTracker implements Serializable{
 	
 	/**
 	 * Main function that reads through a file and stores the occurrence of each word in the BSTree 
+	 * The file is read as UTF-8
 	 * @param file is the name of the file being read
 	 */
 	public void TextParse(String file) {
-		File textFile = new File(file);
-		Scanner scanFile = null;
-		int currentLine = 0;
+		this.TextParse(file, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Reads through a file in a given charset and stores the occurrence of each word in the BSTree
+	 * The file is streamed through fixed size buffers, so lines of any length fit in memory, and progress is
+	 * printed for files large enough to take a while. Files of at least PARALLEL_PARSE_SIZE bytes are split
+	 * into line aligned ranges that are parsed on all cores, giving the same result
+	 * @param file is the name of the file being read
+	 * @param charset is the charset the file is encoded in
+	 */
+	public void TextParse(final String file, Charset charset) {
+		Path path = Paths.get(file);
+		if(!Files.isRegularFile(path)) {
+			System.out.println("File not found: " + file);
+			return;
+		}
+		final int fileId = FileDictionary.getInstance().idOf(file);
+		this.markChanged(fileId);
 		try 
 		{
-			scanFile = new Scanner( textFile );
-		} catch (FileNotFoundException e) 
+			ForkJoinPool pool = ForkJoinPool.commonPool();
+			if(Files.size(path) >= PARALLEL_PARSE_SIZE && pool.getParallelism() > 1 && ParallelTextParser.supports(charset)) {
+				// the chunks are merged into the tree whole, so it must hold every word first
+				this.loadAll();
+				long start = System.nanoTime();
+				wordTree = new ParallelTextParser(charset, pool, ParallelTextParser.MIN_CHUNK_SIZE).parse(path, file, wordTree);
+				fileWords = null; // the parsed words are merged into a new tree, so the index is built again when needed
+				System.out.printf("Parsed %,d MB of %s on %d threads (%.1f MB/s)%n", Files.size(path) >> 20, file,
+						pool.getParallelism(), (Files.size(path) / 1048576.0) / ((System.nanoTime() - start) / 1e9));
+				return;
+			}
+			StreamingTextReader.ProgressListener listener = null;
+			if(Files.size(path) > StreamingTextReader.PROGRESS_INTERVAL) {
+				listener = (bytes, lines, nanos) -> System.out.printf("Read %,d MB and %,d lines of %s (%.1f MB/s, %,.0f lines/s)%n",
+						bytes >> 20, lines, file, (bytes / 1048576.0) / (nanos / 1e9), lines / (nanos / 1e9));
+			}
+			new StreamingTextReader(charset).read(path, (word, line) -> this.addWord(word, fileId, line), listener);
+		} catch (IOException | UncheckedIOException e) 
 		{
 			e.printStackTrace();
 		}
-		
-		while(scanFile.hasNext()) 
+	}
+	
+	/**
+	 * Looks a word up in the repository file without loading it, by memory mapping the file and decoding only
+	 * the records the search touches. The repository log is read, without being changed, for the files logged
+	 * since the file was written. Nothing is parsed or saved.
+	 * 
+	 * @param word is the word to look up
+	 * @param fmt is the format specifier
+	 */
+	public static void queryRepository(String word, String fmt) {
+		if(!(new File(REPOSITORY_FILE)).exists()) {
+			System.out.print("No repository to query!");
+			return;
+		}
+		try
+		{
+			if(RepositoryFormat.compressionOf(Paths.get(REPOSITORY_FILE)).isCompressed()) {
+				// a compressed file cannot be mapped, so it is loaded with its log replayed
+				WordTracker loaded = new WordTracker(new BSTree<WordStorage>(true));
+				loaded.load(Paths.get(REPOSITORY_FILE));
+				BSTreeNode<WordStorage> node = loaded.wordTree.search(new WordStorage(word));
+				printQuery(word, node == null ? null : node.getElement(), fmt);
+				return;
+			}
+		}
+		catch (IOException e)
 		{
-			currentLine++;
-			String textLine = scanFile.nextLine();
-			for(String word : this.lineBreaker(textLine)) {
-				this.addWord(word, file, currentLine);
+			e.printStackTrace();
+			return;
+		}
+		try (MappedRepository repository = MappedRepository.open(Paths.get(REPOSITORY_FILE))) {
+			final WordStorage[] found = { repository.get(word) };
+			RepositoryLog log = RepositoryLog.forRepository(Paths.get(REPOSITORY_FILE));
+			if(log.size() > 0) {
+				if(found[0] == null) {
+					found[0] = new WordStorage(word);
+				}
+				log.scan((file, entry, words) -> {
+					found[0].removeFile(FileDictionary.getInstance().idOf(file));
+					for(WordStorage logged : words) {
+						if(logged.getWord().equals(word)) {
+							found[0].addOccurrences(logged, 0);
+						}
+					}
+				});
+				if(found[0].getFrequency() == 0) {
+					found[0] = null;
+				}
 			}
+			printQuery(word, found[0], fmt);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Prints the result of a query
+	 * 
+	 * @param word is the word looked up
+	 * @param found is the storage of the word, null if it is not in the repository
+	 * @param fmt is the format specifier
+	 */
+	private static void printQuery(String word, WordStorage found, String fmt) {
+		if(found == null) {
+			System.out.println("Word not found in the repository: " + word);
+		}
+		else {
+			System.out.println("Displaying with the: " + fmt + " format!");
+			System.out.println(found.displayType(fmt));
+		}
+	}
+	
+	/**
+	 * Merges the words of one repository file into another in a single pass over both, adding the occurrences
+	 * of words found in both after those already in the target
+	 * 
+	 * @param source is the repository file whose words are added
+	 * @param target is the repository file receiving them, created if it does not exist
+	 */
+	public static void mergeRepositories(String source, String target) {
+		if(!(new File(source)).exists()) {
+			System.out.print("No repository to merge from: " + source);
+			return;
+		}
+		try
+		{
+			// both repositories are loaded with their logs replayed, and the target's log is part of the result
+			WordTracker from = new WordTracker(new BSTree<WordStorage>(true));
+			from.load(Paths.get(source));
+			WordTracker into = new WordTracker(new BSTree<WordStorage>(true));
+			into.load(Paths.get(target));
+			BSTree<WordStorage> merged = BSTree.merge(into.wordTree, from.wordTree, WordStorage::merge);
+			into.manifest.putAll(from.manifest);
+			RepositoryFormat.write(merged, into.manifest, Paths.get(target), into.compression);
+			RepositoryLog.forRepository(Paths.get(target)).reset();
+			System.out.println("Merged " + from.wordTree.size() + " words into " + target + ", which now holds " + merged.size() + " words");
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
 		}
 	}
 	
@@ -196,15 +1035,65 @@ public class WordTracker implements Serializable{
 		String input;
 		String fmt;
 		String output;
+		String prefix = null;
+		if(args.length == 2 && args[0].length() > 2 && args[0].substring(0, 2).equals("-q")) {
+			// query only runs map the repository read only instead of loading it
+			fmt = args[1].toLowerCase();
+			if(fmt.equals("-pf") || fmt.equals("-po") || fmt.equals("-pl")) {
+				queryRepository(args[0].substring(2).toLowerCase(), fmt);
+			}else {
+				System.out.print("Invalid print formatter!");
+			}
+			return;
+		}
+		if(args.length >= 1 && args.length <= 2 && args[0].length() > 2 && args[0].substring(0, 2).equals("-m")) {
+			// merging works on repository files only, nothing is parsed
+			mergeRepositories(args[0].substring(2), args.length == 2 ? args[1] : REPOSITORY_FILE);
+			return;
+		}
 		WordTracker newTracker = new WordTracker();
+		if(args.length == 1 && args[0].length() > 2 && args[0].substring(0, 2).equals("-r")) {
+			// reindexing replaces a changed file's occurrences instead of adding them again
+			input = args[0].substring(2);
+			System.out.println("Removed " + newTracker.reindex(input) + " old occurrences of " + input);
+			System.out.println("All done! " + input + " reindexed, the repository holds " + newTracker.getTree().size() + " words");
+			newTracker.saveChanges();
+			return;
+		}
+		if(args.length == 1 && args[0].startsWith("-c")) {
+			// compaction folds the repository log into a new repository file, optionally changing its compression
+			if(args[0].length() > 2) {
+				try {
+					newTracker.setCompression(RepositoryCompression.parse(args[0].substring(2)));
+				} catch (IllegalArgumentException e) {
+					System.out.print("Invalid compression level!");
+					return;
+				}
+			}
+			newTracker.serializeTree();
+			System.out.println("All done! Repository compacted into " + REPOSITORY_FILE + " (compression: " + newTracker.getCompression() + ")");
+			return;
+		}
+		if(args.length > 2 && args[args.length - 1].length() > 2 && args[args.length - 1].substring(0, 2).equals("-w")) {
+			// an optional trailing -w<prefix> limits the report to words starting with the prefix
+			prefix = args[args.length - 1].substring(2).toLowerCase();
+			args = Arrays.copyOf(args, args.length - 1);
+		}
 		if(args.length == 3) {
 			if(args[2].length() > 2 && args[2].substring(0, 2).equals("-f")) {
 				input = args[0];
 				fmt = args[1].toLowerCase();
 				output = args[2].substring(2);
 				if(fmt.equals("-pf") || fmt.equals("-po") || fmt.equals("-pl")) {
-					newTracker.TextParse(input);
-					newTracker.writeToFile(output, fmt);
+					newTracker.index(input);
+					// a checkpoint started here is written while the report is
+					newTracker.saveChanges(false);
+					if(prefix == null) {
+						newTracker.writeToFile(output, fmt);
+					}
+					else {
+						newTracker.writePrefixToFile(output, fmt, prefix);
+					}
 					System.out.println("All done! ouput sent to: " +output);
 				}else {
 					System.out.print("Invalid print formatter!");
@@ -218,8 +1107,14 @@ public class WordTracker implements Serializable{
 			input = args[0];
 			fmt = args[1].toLowerCase();
 			if(fmt.equals("-pf") || fmt.equals("-po") || fmt.equals("-pl")) {
-				newTracker.TextParse(input);
-				newTracker.displayEntries(fmt);
+				newTracker.index(input);
+				newTracker.saveChanges(false);
+				if(prefix == null) {
+					newTracker.displayEntries(fmt);
+				}
+				else {
+					newTracker.displayPrefix(fmt, prefix);
+				}
 				System.out.println("All done!");
 			}else {
 				System.out.print("Invalid print formatter!");
@@ -229,6 +1124,7 @@ public class WordTracker implements Serializable{
 		else {
 			System.out.print("Not enough arguments passed, nothing will run!");
 		}
-		newTracker.serializeTree();
+		// the checkpoint thread is a daemon, so the last checkpoint must be finished before main returns
+		newTracker.saveChanges(true);
 	}
 }
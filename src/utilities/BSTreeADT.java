@@ -76,6 +76,38 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public BSTreeNode<E> search( E entry ) throws NullPointerException;
 
+	/**
+	 * Counts the elements in the tree that are smaller than the element passed in
+	 * according to the natural ordering established by the Comparable
+	 * implementation. The element itself does not need to be stored in the tree.
+	 * 
+	 * @param entry the element to compare the tree contents against
+	 * @return the number of elements in the tree smaller than the entry
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public int countLessThan( E entry ) throws NullPointerException;
+
+	/**
+	 * Determines the zero-based position of an element in the natural ordering of
+	 * the tree, which is the position it is returned at by the in-order iterator.
+	 * 
+	 * @param entry the element to find in the tree
+	 * @return the position of the element, or -1 if the element is not in the tree
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public int rank( E entry ) throws NullPointerException;
+
+	/**
+	 * Retrieves the node holding the element at a zero-based position in the
+	 * natural ordering of the tree, the k-th smallest element.
+	 * 
+	 * @param index the position of the element to retrieve
+	 * @return the node at that position
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than
+	 *         the size of the tree
+	 */
+	public BSTreeNode<E> select( int index ) throws IndexOutOfBoundsException;
+
 	/**
 	 * Adds a new element to the tree according to the natural ordering established
 	 * by the Comparable implementation.
@@ -86,6 +118,18 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public boolean add( E newEntry ) throws NullPointerException;
 
+	/**
+	 * Retrieves the node holding an element equal to the one passed in, adding
+	 * the element to the tree first if no such node exists. The tree is only
+	 * descended once either way.
+	 * 
+	 * @param entry the element to find, or to add when it is not found
+	 * @return the node holding the existing element, or the new node holding the
+	 *         entry if it was added
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public BSTreeNode<E> getOrInsert( E entry ) throws NullPointerException;
+
 	/**
 	 * Removes the smallest element in the tree according to the natural ordering
 	 * established by the Comparable implementation.
@@ -102,6 +146,16 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public BSTreeNode<E> removeMax();
 
+	/**
+	 * Removes the element equal to the one passed in according to the natural
+	 * ordering established by the Comparable implementation.
+	 * 
+	 * @param entry the element to remove from the tree
+	 * @return the removed element or null if it is not in the tree
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public BSTreeNode<E> remove( E entry ) throws NullPointerException;
+
 	/**
 	 * Generates an in-order iteration over the contents of the tree. Elements are
 	 * in their natural order.
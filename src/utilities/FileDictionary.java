@@ -0,0 +1,98 @@
+package utilities;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository wide dictionary giving every file name a small int ID, so words refer to files by ID instead of
+ * each holding its own references to the names.
+ *
+ * IDs are handed out in the order names are first seen, starting at 0, and are never reused or removed. They
+ * only live as long as the program: repository files and serialized storages keep the file names, and are
+ * given IDs again when they are read. Looking up a known name never locks, so any number of threads can
+ * record occurrences at once.
+ *
+ * @version 1.0
+ */
+public final class FileDictionary {
+	/**
+	 * The dictionary shared by every WordStorage
+	 */
+	private static final FileDictionary INSTANCE = new FileDictionary();
+
+	/**
+	 * The ID of every known name
+	 */
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	/**
+	 * The name of every ID, replaced by a larger copy when full
+	 */
+	private volatile String[] names = new String[16];
+	/**
+	 * Number of IDs handed out, only changed while holding the dictionary's lock
+	 */
+	private int size;
+
+	/**
+	 * Not instantiable, use getInstance
+	 */
+	private FileDictionary() {
+	}
+
+	/**
+	 * Returns the dictionary shared by every WordStorage
+	 * @return the dictionary
+	 */
+	public static FileDictionary getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the ID of a file name, giving it the next free ID if it has none yet
+	 * @param name the file name
+	 * @return the ID of the name
+	 */
+	public int idOf(String name) {
+		Integer id = ids.get(name);
+		if(id != null) {
+			return id;
+		}
+		synchronized(this) {
+			id = ids.get(name);
+			if(id != null) {
+				return id;
+			}
+			if(size == names.length) {
+				names = Arrays.copyOf(names, size * 2);
+			}
+			// the name is stored before its ID is published, so every thread that finds the ID finds the name
+			names[size] = name;
+			ids.put(name, size);
+			return size++;
+		}
+	}
+
+	/**
+	 * Returns the ID of a file name without giving it one
+	 * @param name the file name
+	 * @return the ID of the name, or -1 if it has none
+	 */
+	public int find(String name) {
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the file name of an ID
+	 * @param id the ID
+	 * @return the file name
+	 * @throws IndexOutOfBoundsException if no name has the ID
+	 */
+	public String nameOf(int id) throws IndexOutOfBoundsException {
+		String[] current = names;
+		if(id < 0 || id >= current.length || current[id] == null) {
+			throw new IndexOutOfBoundsException("No file with ID " + id);
+		}
+		return current[id];
+	}
+}
@@ -0,0 +1,331 @@
+package utilities;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Growable list of line numbers stored as compressed bytes instead of boxed Integers.
+ *
+ * Each line is stored as its difference from the previous one, zigzag encoded so a step backwards stays small,
+ * and written as a variable length integer of seven bits per byte. Lines are mostly recorded in increasing
+ * order, so an occurrence usually takes one byte, against the 16 to 20 bytes of an Integer and its reference
+ * in an ArrayList. This is the same encoding RepositoryFormat uses for a file's lines, so the bytes are copied
+ * to and from repository files without decoding every line.
+ *
+ * Lines are read back in order through a Cursor, which never boxes them.
+ *
+ * Bytes already in the list are never changed in place: lines are only appended, and shifting the lines
+ * encodes them into a new array. A view made by snapshot can therefore share the array, and copies it the
+ * first time it is written to itself.
+ *
+ * @version 1.0
+ */
+public final class PostingList {
+	/**
+	 * The encoded differences, only the first length bytes are used
+	 */
+	private byte[] bytes;
+	/**
+	 * Number of bytes in use
+	 */
+	private int length;
+	/**
+	 * Number of lines in the list
+	 */
+	private int count;
+	/**
+	 * The last line added, which the next difference is taken from
+	 */
+	private int last;
+	/**
+	 * True while the byte array is shared with the list this one is a snapshot of
+	 */
+	private boolean shared;
+
+	/**
+	 * Constructor for an empty PostingList
+	 */
+	public PostingList() {
+		this.bytes = new byte[4];
+	}
+
+	/**
+	 * Constructor for a PostingList over encoded lines
+	 * @param bytes the encoded lines
+	 * @param length the number of bytes in use
+	 * @param count the number of lines
+	 * @param last the last line
+	 */
+	private PostingList(byte[] bytes, int length, int count, int last) {
+		this.bytes = bytes;
+		this.length = length;
+		this.count = count;
+		this.last = last;
+	}
+
+	/**
+	 * Returns the number of lines in the list
+	 * @return the line count
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of bytes the encoded lines take, not counting unused capacity
+	 * @return the encoded size
+	 */
+	public int encodedSize() {
+		return length;
+	}
+
+	/**
+	 * Adds a line to the end of the list
+	 * @param line the line number
+	 */
+	public void add(int line) {
+		this.writeVarInt(zigzag(line - last));
+		last = line;
+		count++;
+	}
+
+	/**
+	 * Adds every line of another list to the end of this one. Only the first line of the other list is
+	 * encoded again, the rest of its bytes are copied as they are
+	 * @param other the list to copy the lines from
+	 * @param lineOffset is added to every copied line number
+	 */
+	public void addAll(PostingList other, int lineOffset) {
+		if(other.count == 0) {
+			return;
+		}
+		int firstLength = varIntLength(other.bytes, 0);
+		int rest = other.length - firstLength;
+		int otherCount = other.count;
+		int otherLast = other.last;
+		this.add(unzigzag(readVarInt(other.bytes, 0)) + lineOffset);
+		this.ensureCapacity(length + rest);
+		System.arraycopy(other.bytes, firstLength, bytes, length, rest);
+		length += rest;
+		count += otherCount - 1;
+		last = otherLast + lineOffset;
+	}
+
+	/**
+	 * Adds a number to every line in the list. Since the lines are stored as differences only the first one
+	 * changes
+	 * @param lineOffset is added to every line number
+	 */
+	public void shift(int lineOffset) {
+		if(count == 0 || lineOffset == 0) {
+			return;
+		}
+		PostingList shifted = new PostingList();
+		shifted.addAll(this, lineOffset);
+		this.bytes = shifted.bytes;
+		this.length = shifted.length;
+		this.last = shifted.last;
+	}
+
+	/**
+	 * Returns a list holding the lines added so far, which lines added to this list later do not change. The
+	 * bytes are shared instead of copied until either list is written to
+	 * @return the snapshot
+	 */
+	public PostingList snapshot() {
+		PostingList view = new PostingList(bytes, length, count, last);
+		view.shared = true;
+		return view;
+	}
+
+	/**
+	 * Returns a cursor over the lines in the order they were added. Lines added later are not returned
+	 * @return a cursor positioned before the first line
+	 */
+	public Cursor cursor() {
+		return new Cursor(bytes, length, count);
+	}
+
+	/**
+	 * Returns the lines in a new array
+	 * @return the line numbers in the order they were added
+	 */
+	public int[] toArray() {
+		int[] lines = new int[count];
+		Cursor cursor = this.cursor();
+		for(int i = 0; i < lines.length; i++) {
+			lines[i] = cursor.next();
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes the encoded lines without their count, as a repository record stores them
+	 * @param out the stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.write(bytes, 0, length);
+	}
+
+	/**
+	 * Reads lines written by writeTo
+	 * @param in the stream positioned at the first encoded line
+	 * @param count the number of lines to read
+	 * @return a list holding the lines
+	 * @throws IOException if the stream cannot be read or a line is malformed
+	 */
+	public static PostingList readFrom(DataInput in, int count) throws IOException {
+		PostingList list = new PostingList();
+		list.ensureCapacity(count);
+		for(int i = 0; i < count; i++) {
+			int value = 0;
+			for(int shift = 0; ; shift += 7) {
+				if(shift == 35) {
+					throw new IOException("Malformed variable length integer");
+				}
+				byte b = in.readByte();
+				list.ensureCapacity(list.length + 1);
+				list.bytes[list.length++] = b;
+				value |= (b & 0x7F) << shift;
+				if(b >= 0) {
+					break;
+				}
+			}
+			list.last += unzigzag(value);
+		}
+		list.count = count;
+		return list;
+	}
+
+	/**
+	 * Appends an unsigned integer using seven bits per byte, with the high bit marking that more bytes follow
+	 * @param value the value to write, treated as unsigned
+	 */
+	private void writeVarInt(int value) {
+		this.ensureCapacity(length + 5);
+		while((value & ~0x7F) != 0) {
+			bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[length++] = (byte) value;
+	}
+
+	/**
+	 * Grows the byte array by half again, or more if needed, when it cannot hold the given number of bytes. A
+	 * shared array is always copied, so the list it is shared with keeps its bytes
+	 * @param capacity the number of bytes needed
+	 */
+	private void ensureCapacity(int capacity) {
+		if(capacity > bytes.length || shared) {
+			byte[] grown = new byte[Math.max(capacity, bytes.length + (bytes.length >> 1) + 1)];
+			System.arraycopy(bytes, 0, grown, 0, length);
+			bytes = grown;
+			shared = false;
+		}
+	}
+
+	/**
+	 * Reads an unsigned integer written by writeVarInt
+	 * @param bytes the encoded bytes
+	 * @param offset the position of the first byte of the value
+	 * @return the value
+	 */
+	private static int readVarInt(byte[] bytes, int offset) {
+		int value = 0;
+		for(int shift = 0; ; shift += 7) {
+			byte b = bytes[offset++];
+			value |= (b & 0x7F) << shift;
+			if(b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of an encoded value
+	 * @param bytes the encoded bytes
+	 * @param offset the position of the first byte of the value
+	 * @return the length of the value in bytes
+	 */
+	private static int varIntLength(byte[] bytes, int offset) {
+		int start = offset;
+		while(bytes[offset] < 0) {
+			offset++;
+		}
+		return offset - start + 1;
+	}
+
+	/**
+	 * Maps a signed difference to an unsigned one so small negative differences stay small
+	 * @param value the signed value
+	 * @return the zigzag encoded value
+	 */
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	/**
+	 * Reverses zigzag
+	 * @param value the zigzag encoded value
+	 * @return the signed value
+	 */
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads the lines of a list one at a time without boxing them
+	 */
+	public static final class Cursor {
+		private final byte[] bytes;
+		private final int length;
+		private int remaining;
+		private int position;
+		private int line;
+
+		/**
+		 * Constructor for Cursor
+		 * @param bytes the encoded lines
+		 * @param length the number of bytes in use
+		 * @param count the number of lines
+		 */
+		Cursor(byte[] bytes, int length, int count) {
+			this.bytes = bytes;
+			this.length = length;
+			this.remaining = count;
+		}
+
+		/**
+		 * Checks if there are more lines
+		 * @return true if next can be called
+		 */
+		public boolean hasNext() {
+			return remaining > 0 && position < length;
+		}
+
+		/**
+		 * Returns the next line
+		 * @return the line number
+		 * @throws NoSuchElementException if there are no more lines
+		 */
+		public int next() throws NoSuchElementException {
+			if(!hasNext()) {
+				throw new NoSuchElementException("No more lines in the list");
+			}
+			int value = 0;
+			for(int shift = 0; ; shift += 7) {
+				byte b = bytes[position++];
+				value |= (b & 0x7F) << shift;
+				if(b >= 0) {
+					break;
+				}
+			}
+			remaining--;
+			line += unzigzag(value);
+			return line;
+		}
+	}
+}
@@ -1,12 +1,24 @@
 package utilities;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Class that stores a word, every ocurrence of that word, and files its found in as well as every line its found on.
+ * Occurrences can be added from several threads at once, every method that reads or changes them locks the storage.
+ * Files are referred to by their ID in the FileDictionary and the lines of each file are kept in a compressed
+ * PostingList, but the storage is serialized in its original form with file names so old repositories can still be read.
  * 
  * @version 1.0
  * @author Abduallah Shaklaoon
@@ -20,6 +32,21 @@ public class WordStorage implements Serializable, Comparable<WordStorage>{
 	 * Serialization ID
 	 */
 	private static final long serialVersionUID = -4109924332741632030L;
+	/**
+	 * The serialized form, which still holds the lines of each file as a list of Integers
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("word", String.class),
+			new ObjectStreamField("freq", int.class),
+			new ObjectStreamField("files", Map.class) };
+	/**
+	 * Lines of a file the word is not found in
+	 */
+	private static final PostingList EMPTY = new PostingList();
+	/**
+	 * The dictionary the file IDs come from
+	 */
+	private static final FileDictionary DICTIONARY = FileDictionary.getInstance();
 	/**
 	 * The word being stored
 	 */
@@ -29,9 +56,17 @@ public class WordStorage implements Serializable, Comparable<WordStorage>{
 	 */
 	private int freq = 0;
 	/**
-	 * A hashmap containing the name of the files and lines the word is found in
+	 * The IDs of the files the word is found in, in the order they were first recorded
+	 */
+	private int[] fileIds = new int[1];
+	/**
+	 * The lines the word is found on in each file, at the same position as the file's ID
 	 */
-	private Map<String, ArrayList<Integer>> files = new LinkedHashMap<String, ArrayList<Integer>>();
+	private PostingList[] postings = new PostingList[1];
+	/**
+	 * Number of files the word is found in
+	 */
+	private int fileCount = 0;
 
 	/**
 	 * Constructor for the class
@@ -41,10 +76,7 @@ public class WordStorage implements Serializable, Comparable<WordStorage>{
 	 */
 	public WordStorage(String readWord, String fileName, int line) {
 		this.word = readWord;
-		ArrayList<Integer> lineAdd = new ArrayList<Integer>();
-		lineAdd.add(line);
-		files.put(fileName, lineAdd);
-		freq+=1;
+		this.addOccurrence(fileName, line);
 	}
 	/**
 	 * Constructor that only uses the word, used for comparisons
@@ -60,63 +92,153 @@ public class WordStorage implements Serializable, Comparable<WordStorage>{
 	public String getWord() {
 		return this.word;
 	}
+	/**
+	 * Returns how many times the word is recorded
+	 * @return freq
+	 */
+	public synchronized int getFrequency() {
+		return this.freq;
+	}
+	/**
+	 * Returns the names of the files the word is found in, in the order they were first recorded
+	 * @return a read only copy of the file names
+	 */
+	public synchronized Set<String> getFileNames() {
+		Set<String> names = new LinkedHashSet<String>();
+		for(int i = 0; i < fileCount; i++) {
+			names.add(DICTIONARY.nameOf(fileIds[i]));
+		}
+		return Collections.unmodifiableSet(names);
+	}
+	/**
+	 * Returns the number of files the word is found in
+	 * @return the file count
+	 */
+	public synchronized int getFileCount() {
+		return fileCount;
+	}
+	/**
+	 * Returns the ID of a file the word is found in
+	 * @param index the position of the file in the order the files were first recorded
+	 * @return the file's ID in the FileDictionary
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the file count
+	 */
+	public synchronized int getFileId(int index) throws IndexOutOfBoundsException {
+		return fileIds[this.checkIndex(index)];
+	}
+	/**
+	 * Returns the lines the word is found on in a file, in the order they were recorded
+	 * @param fileName the name of the file
+	 * @return a cursor over the line numbers recorded so far, empty if the word is not in the file
+	 */
+	public synchronized PostingList.Cursor getLines(String fileName) {
+		int index = this.indexOf(DICTIONARY.find(fileName));
+		return index < 0 ? EMPTY.cursor() : postings[index].cursor();
+	}
+	/**
+	 * Returns the lines the word is found on in one of its files, in the order they were recorded
+	 * @param index the position of the file in the order the files were first recorded
+	 * @return a cursor over the line numbers recorded so far
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the file count
+	 */
+	public synchronized PostingList.Cursor getLinesAt(int index) throws IndexOutOfBoundsException {
+		return postings[this.checkIndex(index)].cursor();
+	}
+	/**
+	 * Returns how many times the word is recorded in a file
+	 * @param fileName the name of the file
+	 * @return the number of lines recorded for the file, 0 if the word is not in the file
+	 */
+	public synchronized int getLineCount(String fileName) {
+		int index = this.indexOf(DICTIONARY.find(fileName));
+		return index < 0 ? 0 : postings[index].size();
+	}
+	/**
+	 * Returns how many times the word is recorded in one of its files
+	 * @param index the position of the file in the order the files were first recorded
+	 * @return the number of lines recorded for the file
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the file count
+	 */
+	public synchronized int getLineCountAt(int index) throws IndexOutOfBoundsException {
+		return postings[this.checkIndex(index)].size();
+	}
+	/**
+	 * Writes the compressed lines of one of the word's files without their count, as a repository record stores them
+	 * @param index the position of the file in the order the files were first recorded
+	 * @param out the stream to write to
+	 * @throws IOException if the stream cannot be written
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the file count
+	 */
+	public synchronized void writeLinesAt(int index, DataOutput out) throws IOException, IndexOutOfBoundsException {
+		postings[this.checkIndex(index)].writeTo(out);
+	}
+	/**
+	 * Returns the number of bytes the compressed lines of every file take
+	 * @return the encoded size of the lines
+	 */
+	public synchronized long getEncodedSize() {
+		long size = 0;
+		for(int i = 0; i < fileCount; i++) {
+			size += postings[i].encodedSize();
+		}
+		return size;
+	}
 	/**
 	 * Returns a string representation of the word according to the formatter it reads
 	 * @param fmt the format to be used
 	 * @return a string representation of the word matching the specified format
 	 */
 	public String displayType(String fmt) {
-		if(fmt.equals("-pf")) {
-			return this.displayFiles();
-		}
-		else if(fmt.equals("-pl")) {
-			return this.displayFilesLines();
-		}
-		else {
-			return this.displayAll();
-		}
+		return this.appendTo(new StringBuilder(), fmt).toString();
 	}
 	/**
 	 * Returns the class  formatted to display the file names and lines for those files the word is found in
 	 * @return the string representation of the class with lines, files
 	 */
 	public String displayFilesLines() {
-		String toReturn = "Word: " + "==="+this.word+"=== found in file(s): " ;
-		for (String file : files.keySet()) {
-			  toReturn +=   file + " on lines: ";
-			  for(int line : files.get(file)) {
-				  toReturn += line +", ";
-			  }
-
-			}
-		return toReturn;
+		return this.appendTo(new StringBuilder(), "-pl").toString();
 	}
 	/**
 	 * Returns the class formatted to display the file names and lines for those files, and how many time the word is recorded
 	 * @return the string representation of the class with lines, files and frequency
 	 */
 	public String displayAll() {
-		String toReturn = "Word: " + "==="+this.word+"=== number of entries: "+ this.freq + ", found in file(s): " ;
-		for (String file : files.keySet()) {
-			  toReturn +=   file + " on lines: ";
-			  for(int line : files.get(file)) {
-				  toReturn += line +", ";
-			  }
-
-			}
-		return toReturn;
+		return this.appendTo(new StringBuilder(), "-po").toString();
 	}
 	/**
 	 * Returns the class formatted to show the word and files it is in
 	 * @return the string representation of the class with the word and files
 	 */
 	public String displayFiles() {
-		String toReturn = "Word: " + "==="+this.word+"=== found in file(s): " ;
-		for (String file : files.keySet()) {
-			  toReturn += file + ", ";
-
+		return this.appendTo(new StringBuilder(), "-pf").toString();
+	}
+	/**
+	 * Appends the representation displayType returns to a builder, which can be reused for every word of a report
+	 * @param out the builder the representation is appended to
+	 * @param fmt the format to be used, -pf for files, -pl for files and lines, anything else for files, lines and frequency
+	 * @return the same builder
+	 */
+	public synchronized StringBuilder appendTo(StringBuilder out, String fmt) {
+		boolean lines = !fmt.equals("-pf");
+		out.append("Word: ===").append(this.word);
+		if(lines && !fmt.equals("-pl")) {
+			out.append("=== number of entries: ").append(this.freq).append(", found in file(s): ");
+		}
+		else {
+			out.append("=== found in file(s): ");
+		}
+		for (int i = 0; i < fileCount; i++) {
+			out.append(DICTIONARY.nameOf(fileIds[i]));
+			if(!lines) {
+				out.append(", ");
+				continue;
+			}
+			out.append(" on lines: ");
+			for(PostingList.Cursor cursor = postings[i].cursor(); cursor.hasNext(); ) {
+				out.append(cursor.next()).append(", ");
 			}
-		return toReturn;
+		}
+		return out;
 	}
 	/**
 	 * Adds an occurrence of a word to be stored in the hash map
@@ -124,17 +246,195 @@ public class WordStorage implements Serializable, Comparable<WordStorage>{
 	 * @param lineNum the line number its on
 	 */
 	public void addOccurrence(String fileName, int lineNum) {
-		if(this.files.containsKey(fileName)) {
-			ArrayList<Integer> dataChange = files.get(fileName);
-			dataChange.add(lineNum);
-			files.put(fileName, dataChange);
+		this.addOccurrence(DICTIONARY.idOf(fileName), lineNum);
+	}
+	/**
+	 * Adds an occurrence of a word in a file known by its ID
+	 * @param fileId the ID of the file in the FileDictionary
+	 * @param lineNum the line number its on
+	 */
+	public synchronized void addOccurrence(int fileId, int lineNum) {
+		this.postingsFor(fileId).add(lineNum);
+		freq+=1;
+	}
+	/**
+	 * Adds every occurrence recorded in another storage of the same word after the ones already here, file by file
+	 * @param other the storage to copy the occurrences from, which must not be changed meanwhile
+	 * @param lineOffset is added to every copied line number
+	 */
+	public synchronized void addOccurrences(WordStorage other, int lineOffset) {
+		for (int i = 0; i < other.fileCount; i++) {
+			this.addOccurrences(other.fileIds[i], other.postings[i], lineOffset);
+		}
+	}
+	/**
+	 * Adds lines of one file after the ones already recorded for it
+	 * @param fileId the ID of the file in the FileDictionary
+	 * @param lines the lines to copy, which must not be changed meanwhile
+	 * @param lineOffset is added to every copied line number
+	 */
+	public synchronized void addOccurrences(int fileId, PostingList lines, int lineOffset) {
+		this.postingsFor(fileId).addAll(lines, lineOffset);
+		freq += lines.size();
+	}
+	/**
+	 * Checks if the word is recorded in a file known by its ID
+	 * @param fileId the ID of the file in the FileDictionary
+	 * @return true if the word has occurrences in the file
+	 */
+	public synchronized boolean containsFile(int fileId) {
+		return this.indexOf(fileId) >= 0;
+	}
+	/**
+	 * Returns the position of a file among the files the word is found in
+	 * @param fileId the ID of the file in the FileDictionary
+	 * @return the position of the file, or -1 if the word is not found in it
+	 */
+	public synchronized int getFileIndex(int fileId) {
+		return this.indexOf(fileId);
+	}
+	/**
+	 * Takes every occurrence in a file back out of the word, keeping the order of the other files
+	 * @param fileId the ID of the file in the FileDictionary
+	 * @return the number of occurrences removed, 0 if the word is not found in the file
+	 */
+	public synchronized int removeFile(int fileId) {
+		int index = this.indexOf(fileId);
+		if(index < 0) {
+			return 0;
+		}
+		int removed = postings[index].size();
+		System.arraycopy(fileIds, index + 1, fileIds, index, fileCount - index - 1);
+		System.arraycopy(postings, index + 1, postings, index, fileCount - index - 1);
+		postings[--fileCount] = null;
+		freq -= removed;
+		return removed;
+	}
+	/**
+	 * Returns a copy of the word that later changes to this one do not affect. The lines of each file are
+	 * shared with PostingList snapshots instead of copied, so the cost follows the number of files, not lines
+	 * @return the copy
+	 */
+	public synchronized WordStorage snapshot() {
+		WordStorage copy = new WordStorage(word);
+		int capacity = Math.max(1, fileCount);
+		copy.freq = freq;
+		copy.fileCount = fileCount;
+		copy.fileIds = Arrays.copyOf(fileIds, capacity);
+		copy.postings = new PostingList[capacity];
+		for (int i = 0; i < fileCount; i++) {
+			copy.postings[i] = postings[i].snapshot();
+		}
+		return copy;
+	}
+	/**
+	 * Adds a number to every line this word is recorded on, in every file
+	 * @param lineOffset is added to every line number
+	 */
+	public synchronized void offsetLines(int lineOffset) {
+		for (int i = 0; i < fileCount; i++) {
+			postings[i].shift(lineOffset);
+		}
+	}
+	/**
+	 * Finds the position of a file among the files the word is found in. Occurrences are mostly added to the file
+	 * that was recorded last, so that one is checked first
+	 * @param fileId the ID of the file
+	 * @return the position of the file, or -1 if the word is not found in it
+	 */
+	private int indexOf(int fileId) {
+		if(fileCount > 0 && fileIds[fileCount - 1] == fileId) {
+			return fileCount - 1;
+		}
+		for(int i = 0; i < fileCount; i++) {
+			if(fileIds[i] == fileId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	/**
+	 * Returns the lines of a file, adding the file after the others if the word is not found in it yet
+	 * @param fileId the ID of the file
+	 * @return the lines recorded for the file
+	 */
+	private PostingList postingsFor(int fileId) {
+		int index = this.indexOf(fileId);
+		if(index >= 0) {
+			return postings[index];
+		}
+		if(fileCount == fileIds.length) {
+			fileIds = Arrays.copyOf(fileIds, fileCount * 2);
+			postings = Arrays.copyOf(postings, fileCount * 2);
+		}
+		fileIds[fileCount] = fileId;
+		postings[fileCount] = new PostingList();
+		return postings[fileCount++];
+	}
+	/**
+	 * Checks the position of one of the word's files
+	 * @param index the position of the file
+	 * @return the same position
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the file count
+	 */
+	private int checkIndex(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= fileCount) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Files: " + fileCount);
+		}
+		return index;
+	}
+	/**
+	 * Merge function for two storages of the same word, such as when combining repositories with BSTree.merge.
+	 * The occurrences of the second storage are added after those of the first, file by file, and the frequencies are summed.
+	 * The first storage is changed and returned so its occurrences are not copied
+	 * @param first the storage receiving the occurrences
+	 * @param second the storage whose occurrences are added
+	 * @return the first storage
+	 */
+	public static WordStorage merge(WordStorage first, WordStorage second) {
+		first.addOccurrences(second, 0);
+		return first;
+	}
+	
+	/**
+	 * Writes the storage in its original form while no occurrences are being added
+	 */
+	private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+		Map<String, ArrayList<Integer>> legacy = new LinkedHashMap<String, ArrayList<Integer>>();
+		for (int i = 0; i < fileCount; i++) {
+			ArrayList<Integer> lines = new ArrayList<Integer>(postings[i].size());
+			for(PostingList.Cursor cursor = postings[i].cursor(); cursor.hasNext(); ) {
+				lines.add(cursor.next());
+			}
+			legacy.put(DICTIONARY.nameOf(fileIds[i]), lines);
+		}
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("word", word);
+		fields.put("freq", freq);
+		fields.put("files", legacy);
+		out.writeFields();
+	}
+	/**
+	 * Reads a storage written in its original form, compressing the lines
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		word = (String) fields.get("word", "");
+		freq = fields.get("freq", 0);
+		Map<String, ArrayList<Integer>> legacy = (Map<String, ArrayList<Integer>>) fields.get("files", null);
+		int size = legacy == null ? 0 : legacy.size();
+		fileIds = new int[Math.max(size, 1)];
+		postings = new PostingList[Math.max(size, 1)];
+		fileCount = 0;
+		if(legacy != null) {
+			for (Map.Entry<String, ArrayList<Integer>> entry : legacy.entrySet()) {
+				PostingList lines = this.postingsFor(DICTIONARY.idOf(entry.getKey()));
+				for(int line : entry.getValue()) {
+					lines.add(line);
+				}
 			}
-		else {
-			ArrayList<Integer> toAdd = new ArrayList<Integer>();
-			toAdd.add(lineNum);
-			files.put(fileName, toAdd);
 		}
-		freq+=1;
 	}
 	
 	/**
@@ -0,0 +1,117 @@
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import implementations.BSTree;
+import implementations.ConcurrentBSTree;
+import implementations.WordTokenizer;
+import utilities.BSTreeADT;
+import utilities.WordStorage;
+
+/**
+ * Measures ingestion throughput into one shared tree at 1, 2, 4, 8 and 16 threads.
+ *
+ * Every thread records the words of the input file as occurrences in a file of its own, the way several
+ * TextParse calls sharing a repository would. ConcurrentBSTree is compared against a BSTree behind a single
+ * monitor, which is what sharing the plain tree between threads takes.
+ *
+ * Usage: java benchmarks.ConcurrentBSTreeBenchmark [input file] [passes per thread] [rounds]
+ */
+public class ConcurrentBSTreeBenchmark
+{
+	private static final int[] THREADS = { 1, 2, 4, 8, 16 };
+
+	public static void main( String[] args ) throws Exception
+	{
+		List<String> words = new ArrayList<String>();
+		WordTokenizer tokenizer = new WordTokenizer();
+		for( String line : Files.readAllLines( Paths.get( args.length > 0 ? args[0] : "res/test3.txt" ),
+				StandardCharsets.UTF_8 ) )
+		{
+			tokenizer.setInput( line );
+			for( String word = tokenizer.nextWord(); word != null; word = tokenizer.nextWord() )
+			{
+				words.add( word );
+			}
+			String last = tokenizer.flush();
+			if( last != null )
+			{
+				words.add( last );
+			}
+		}
+		int passes = args.length > 1 ? Integer.parseInt( args[1] ) : 20;
+		int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : 3;
+		System.out.println( Runtime.getRuntime().availableProcessors() + " cores, " + words.size() + " words" );
+
+		for( int round = 0; round < rounds; round++ )
+		{
+			for( int threads : THREADS )
+			{
+				final BSTree<WordStorage> plain = new BSTree<WordStorage>( true );
+				report( "synchronized BSTree", threads, words.size() * (long) passes * threads,
+						run( threads, passes, words, ( word, file, line ) -> {
+							synchronized( plain )
+							{
+								plain.getOrInsert( new WordStorage( word ) ).getElement().addOccurrence( file, line );
+							}
+						} ) );
+				final BSTreeADT<WordStorage> concurrent = new ConcurrentBSTree<WordStorage>();
+				report( "ConcurrentBSTree", threads, words.size() * (long) passes * threads,
+						run( threads, passes, words, ( word, file, line ) -> concurrent
+								.getOrInsert( new WordStorage( word ) ).getElement().addOccurrence( file, line ) ) );
+			}
+		}
+	}
+
+	private interface Recorder
+	{
+		void record( String word, String file, int line );
+	}
+
+	private static long run( int threads, final int passes, final List<String> words, final Recorder recorder )
+			throws InterruptedException
+	{
+		final CountDownLatch start = new CountDownLatch( 1 );
+		Thread[] workers = new Thread[threads];
+		for( int t = 0; t < threads; t++ )
+		{
+			final String file = "file" + t;
+			workers[t] = new Thread( () -> {
+				try
+				{
+					start.await();
+				}
+				catch( InterruptedException e )
+				{
+					return;
+				}
+				for( int pass = 0; pass < passes; pass++ )
+				{
+					for( int i = 0; i < words.size(); i++ )
+					{
+						recorder.record( words.get( i ), file, i );
+					}
+				}
+			} );
+			workers[t].start();
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for( Thread worker : workers )
+		{
+			worker.join();
+		}
+		return System.nanoTime() - begin;
+	}
+
+	private static void report( String name, int threads, long operations, long nanos )
+	{
+		System.out.printf( "%-20s %2d threads %10.0f ops/ms %8.0f ms%n", name, threads,
+				operations / ( nanos / 1e6 ), nanos / 1e6 );
+	}
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import implementations.BSTree;
+import implementations.WordTracker;
+import utilities.Iterator;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+/**
+ * Reports heap used per recorded occurrence, for the compressed PostingList WordStorage keeps lines in and for
+ * the boxed ArrayList of Integer it used before.
+ *
+ * The input file is parsed several times into one repository to make a large corpus. The same postings are
+ * then copied into LinkedHashMap of ArrayList of Integer per word, as WordStorage used to hold them, and the
+ * heap growth of each is divided by the number of occurrences. Run with a heap large enough for both.
+ *
+ * Usage: java benchmarks.PostingMemoryBenchmark [input file] [copies]
+ */
+public class PostingMemoryBenchmark
+{
+	public static void main( String[] args ) throws Exception
+	{
+		String input = args.length > 0 ? args[0] : "res/test3.txt";
+		int copies = args.length > 1 ? Integer.parseInt( args[1] ) : 50;
+
+		long empty = usedHeap();
+		WordTracker tracker = new WordTracker( new BSTree<WordStorage>( true ) );
+		for( int i = 0; i < copies; i++ )
+		{
+			tracker.TextParse( input );
+		}
+		BSTree<WordStorage> tree = tracker.getTree();
+		long occurrences = 0;
+		long encoded = 0;
+		Iterator<WordStorage> it = tree.inorderIterator();
+		while( it.hasNext() )
+		{
+			WordStorage word = it.next();
+			occurrences += word.getFrequency();
+			encoded += word.getEncodedSize();
+		}
+		long compressed = usedHeap() - empty;
+
+		List<Map<String, ArrayList<Integer>>> boxed = new ArrayList<Map<String, ArrayList<Integer>>>( tree.size() );
+		long before = usedHeap();
+		it = tree.inorderIterator();
+		while( it.hasNext() )
+		{
+			WordStorage word = it.next();
+			Map<String, ArrayList<Integer>> files = new LinkedHashMap<String, ArrayList<Integer>>();
+			for( String file : word.getFileNames() )
+			{
+				ArrayList<Integer> lines = new ArrayList<Integer>();
+				for( PostingList.Cursor cursor = word.getLines( file ); cursor.hasNext(); )
+				{
+					lines.add( cursor.next() );
+				}
+				files.put( file, lines );
+			}
+			boxed.add( files );
+		}
+		long legacy = usedHeap() - before;
+
+		// boxed is used here so it stays reachable until the heap was measured
+		System.out.printf( "%d words (%d copied), %d occurrences, %d bytes of encoded lines%n", tree.size(),
+				boxed.size(), occurrences, encoded );
+		System.out.printf( "PostingList repository     %8.2f bytes per occurrence (whole tree)%n",
+				compressed / (double) occurrences );
+		System.out.printf( "ArrayList<Integer> postings %7.2f bytes per occurrence (postings alone)%n",
+				legacy / (double) occurrences );
+	}
+
+	private static long usedHeap() throws InterruptedException
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for( int i = 0; i < 4; i++ )
+		{
+			System.gc();
+			Thread.sleep( 50 );
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import implementations.BSTree;
+import implementations.RepositoryCompression;
+import implementations.RepositoryFormat;
+import implementations.WordTracker;
+import utilities.WordStorage;
+
+/**
+ * Compares the size and the save and load times of repository files written with each RepositoryCompression
+ * setting, on corpora of increasing size.
+ *
+ * Each corpus is the input file ingested once per copy under a different file name, as in
+ * RepositoryFormatBenchmark, so both the number of occurrences and the file dictionary grow with the copy count.
+ *
+ * Usage: java benchmarks.RepositoryCompressionBenchmark [input file] [rounds] [copies...]
+ */
+public class RepositoryCompressionBenchmark
+{
+	private static final RepositoryCompression[] SETTINGS = { RepositoryCompression.NONE,
+			RepositoryCompression.HUFFMAN_ONLY, RepositoryCompression.level( 1 ), RepositoryCompression.level( 6 ),
+			RepositoryCompression.level( 9 ) };
+
+	public static void main( String[] args ) throws Exception
+	{
+		Path input = Paths.get( args.length > 0 ? args[0] : "res/test3.txt" );
+		int rounds = args.length > 1 ? Integer.parseInt( args[1] ) : 5;
+		int[] scales = { 5, 20, 80 };
+		if( args.length > 2 )
+		{
+			scales = new int[args.length - 2];
+			for( int i = 2; i < args.length; i++ )
+			{
+				scales[i - 2] = Integer.parseInt( args[i] );
+			}
+		}
+
+		Path dir = Files.createTempDirectory( "compression-benchmark" );
+		Path file = dir.resolve( "repository.wtr" );
+		for( int copies : scales )
+		{
+			WordTracker tracker = new WordTracker( new BSTree<WordStorage>( true ) );
+			for( int i = 0; i < copies; i++ )
+			{
+				Path copy = dir.resolve( "copy" + i + ".txt" );
+				Files.copy( input, copy );
+				tracker.TextParse( copy.toString() );
+				Files.delete( copy );
+			}
+			BSTree<WordStorage> tree = tracker.getTree();
+			System.out.println( "Words: " + tree.size() + ", files: " + copies );
+			System.out.printf( "%-16s %12s %8s %10s %10s%n", "compression", "bytes", "ratio", "save ms", "load ms" );
+
+			long uncompressed = 0;
+			for( RepositoryCompression compression : SETTINGS )
+			{
+				long save = Long.MAX_VALUE, load = Long.MAX_VALUE, bytes = 0;
+				for( int round = 0; round < rounds; round++ )
+				{
+					long start = System.nanoTime();
+					bytes = RepositoryFormat.write( tree, null, file, compression );
+					save = Math.min( save, System.nanoTime() - start );
+
+					start = System.nanoTime();
+					RepositoryFormat.read( file );
+					load = Math.min( load, System.nanoTime() - start );
+				}
+				if( !compression.isCompressed() )
+				{
+					uncompressed = bytes;
+				}
+				System.out.printf( "%-16s %12d %8.3f %10.1f %10.1f%n", compression, bytes, (double) bytes / uncompressed,
+						save / 1e6, load / 1e6 );
+			}
+			System.out.println();
+		}
+
+		Files.delete( file );
+		Files.delete( dir );
+	}
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import implementations.BSTree;
+import implementations.RepositoryFormat;
+import implementations.WordTracker;
+import utilities.WordStorage;
+
+/**
+ * Compares the size and the save and load times of the compact repository format against the Java serialized
+ * repository.ser written by older versions.
+ *
+ * The corpus is the input file ingested once per copy under a different file name, so both the number of
+ * occurrences and the file dictionary grow with the copy count.
+ *
+ * Usage: java benchmarks.RepositoryFormatBenchmark [input file] [copies] [rounds]
+ */
+public class RepositoryFormatBenchmark
+{
+	public static void main( String[] args ) throws Exception
+	{
+		Path input = Paths.get( args.length > 0 ? args[0] : "res/test3.txt" );
+		int copies = args.length > 1 ? Integer.parseInt( args[1] ) : 20;
+		int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : 5;
+
+		Path dir = Files.createTempDirectory( "repository-benchmark" );
+		WordTracker tracker = new WordTracker( new BSTree<WordStorage>( true ) );
+		for( int i = 0; i < copies; i++ )
+		{
+			Path copy = dir.resolve( "copy" + i + ".txt" );
+			Files.copy( input, copy );
+			tracker.TextParse( copy.toString() );
+		}
+		BSTree<WordStorage> tree = tracker.getTree();
+		System.out.println( "Words: " + tree.size() + ", files: " + copies );
+
+		Path serFile = dir.resolve( "repository.ser" );
+		Path binFile = dir.resolve( "repository.wtr" );
+		long serSave = Long.MAX_VALUE, serLoad = Long.MAX_VALUE, binSave = Long.MAX_VALUE, binLoad = Long.MAX_VALUE;
+
+		for( int round = 0; round < rounds; round++ )
+		{
+			long start = System.nanoTime();
+			try( ObjectOutputStream oos = new ObjectOutputStream( new FileOutputStream( serFile.toFile() ) ) )
+			{
+				oos.writeObject( tree );
+			}
+			serSave = Math.min( serSave, System.nanoTime() - start );
+
+			start = System.nanoTime();
+			try( ObjectInputStream ois = new ObjectInputStream(
+					new BufferedInputStream( new FileInputStream( serFile.toFile() ) ) ) )
+			{
+				ois.readObject();
+			}
+			serLoad = Math.min( serLoad, System.nanoTime() - start );
+
+			start = System.nanoTime();
+			RepositoryFormat.write( tree, binFile );
+			binSave = Math.min( binSave, System.nanoTime() - start );
+
+			start = System.nanoTime();
+			RepositoryFormat.read( binFile );
+			binLoad = Math.min( binLoad, System.nanoTime() - start );
+		}
+
+		System.out.printf( "%-22s %12s %10s %10s%n", "format", "bytes", "save ms", "load ms" );
+		System.out.printf( "%-22s %12d %10.1f %10.1f%n", "java serialization", Files.size( serFile ), serSave / 1e6,
+				serLoad / 1e6 );
+		System.out.printf( "%-22s %12d %10.1f %10.1f%n", "compact binary", Files.size( binFile ), binSave / 1e6,
+				binLoad / 1e6 );
+
+		for( int i = 0; i < copies; i++ )
+		{
+			Files.delete( dir.resolve( "copy" + i + ".txt" ) );
+		}
+		Files.delete( serFile );
+		Files.delete( binFile );
+		Files.delete( dir );
+	}
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import implementations.WordTokenizer;
+
+/**
+ * Compares the regex based line breaking WordTracker used before against WordTokenizer.
+ *
+ * The lines of the input file are replayed until the requested amount of text has been tokenized, so the run
+ * can be scaled to gigabytes without holding them in memory. Every word is consumed so the work cannot be
+ * optimized away.
+ *
+ * Usage: java benchmarks.TokenizerBenchmark [input file] [megabytes] [rounds]
+ */
+public class TokenizerBenchmark
+{
+	public static void main( String[] args ) throws Exception
+	{
+		List<String> lines = Files.readAllLines( Paths.get( args.length > 0 ? args[0] : "res/test3.txt" ),
+				StandardCharsets.UTF_8 );
+		long target = ( args.length > 1 ? Long.parseLong( args[1] ) : 256 ) << 20;
+		int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : 3;
+
+		for( int round = 0; round < rounds; round++ )
+		{
+			long start = System.nanoTime();
+			long chars = 0, words = 0, empty = 0, hash = 0;
+			while( chars < target )
+			{
+				for( String line : lines )
+				{
+					chars += line.length() + 1;
+					for( String word : line.replaceAll( "[^A-Za-z ]+", "" ).toLowerCase().split( " " ) )
+					{
+						words++;
+						empty += word.isEmpty() ? 1 : 0;
+						hash += word.hashCode();
+					}
+				}
+			}
+			report( "regex lineBreaker", chars, words, empty, System.nanoTime() - start, hash );
+
+			start = System.nanoTime();
+			chars = 0;
+			words = 0;
+			hash = 0;
+			WordTokenizer tokenizer = new WordTokenizer();
+			while( chars < target )
+			{
+				for( String line : lines )
+				{
+					chars += line.length() + 1;
+					tokenizer.setInput( line );
+					for( String word = tokenizer.nextWord(); word != null; word = tokenizer.nextWord() )
+					{
+						words++;
+						hash += word.hashCode();
+					}
+					String last = tokenizer.flush();
+					if( last != null )
+					{
+						words++;
+						hash += last.hashCode();
+					}
+				}
+			}
+			report( "WordTokenizer", chars, words, 0, System.nanoTime() - start, hash );
+		}
+	}
+
+	private static void report( String name, long chars, long words, long empty, long nanos, long hash )
+	{
+		System.out.printf( "%-18s %8.1f MB/s %12d words %10d empty %8.0f ms (%d)%n", name,
+				chars / ( nanos / 1e9 ) / ( 1 << 20 ), words, empty, nanos / 1e6, hash & 0xF );
+	}
+}
@@ -607,4 +607,452 @@ public class BSTreeTest
 	{
 		assertNull( "Failed to return maximum value.", tree.removeMax() );
 	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#add(java.lang.Comparable)} to
+	 * keep a balanced tree shallow when elements arrive in sorted order.
+	 */
+	@Test
+	public void testAdd_BalancedSortedInput()
+	{
+		BSTree<Integer> balancedTree = new BSTree<Integer>( true );
+		balancedTree.add( one );
+		balancedTree.add( two );
+		balancedTree.add( three );
+		balancedTree.add( four );
+		balancedTree.add( five );
+		balancedTree.add( six );
+		balancedTree.add( seven );
+
+		assertEquals( "Failed to update size correctly.", 7, balancedTree.size() );
+		assertEquals( "Failed to keep the tree balanced.", 3, balancedTree.getHeight() );
+		assertEquals( "Failed to rotate the middle element to the root.", four, balancedTree.getRoot().getElement() );
+
+		Integer[] shouldBe = { one, two, three, four, five, six, seven };
+		Iterator<Integer> it = balancedTree.inorderIterator();
+		int i = 0;
+		while( it.hasNext() )
+		{
+			assertEquals( "In-order iterator is out of order ", shouldBe[i++], it.next() );
+		}
+		assertEquals( "Failed to iterate over every element.", 7, i );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#removeMin()} to keep a balanced
+	 * tree balanced while the left side is drained.
+	 */
+	@Test
+	public void testRemoveMin_Balanced()
+	{
+		BSTree<Integer> balancedTree = new BSTree<Integer>( true );
+		for( int i = 1; i <= 15; i++ )
+		{
+			balancedTree.add( i );
+		}
+
+		for( int i = 1; i <= 8; i++ )
+		{
+			assertEquals( "Failed to return minimum value.", Integer.valueOf( i ), balancedTree.removeMin().getElement() );
+		}
+
+		assertEquals( "Failed to update size.", 7, balancedTree.size() );
+		assertEquals( "Failed to keep the tree balanced.", 3, balancedTree.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#removeMax()} to keep a balanced
+	 * tree balanced while the right side is drained.
+	 */
+	@Test
+	public void testRemoveMax_Balanced()
+	{
+		BSTree<Integer> balancedTree = new BSTree<Integer>( true );
+		for( int i = 1; i <= 15; i++ )
+		{
+			balancedTree.add( i );
+		}
+
+		for( int i = 15; i >= 8; i-- )
+		{
+			assertEquals( "Failed to remove the maximum value.", Integer.valueOf( i ), balancedTree.removeMax().getElement() );
+		}
+
+		assertEquals( "Failed to update size.", 7, balancedTree.size() );
+		assertEquals( "Failed to keep the tree balanced.", 3, balancedTree.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#remove(java.lang.Comparable)}
+	 * to remove a leaf, a node with one child and a node with two children.
+	 */
+	@Test
+	public void testRemove()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( three );
+		tree.add( seven );
+
+		assertEquals( "Failed to remove a leaf.", one, tree.remove( one ).getElement() );
+		assertEquals( "Failed to remove a node with one child.", six, tree.remove( six ).getElement() );
+		assertEquals( "Failed to remove the root with two children.", four, tree.remove( four ).getElement() );
+		assertNull( "Failed to ignore a missing element.", tree.remove( five ) );
+
+		assertEquals( "Failed to update size.", 3, tree.size() );
+		assertEquals( "Failed to replace the root with its successor.", seven, tree.getRoot().getElement() );
+		assertEquals( "Failed to update height.", 3, tree.getHeight() );
+		Iterator<Integer> it = tree.inorderIterator();
+		assertEquals( "Failed to keep the order.", two, it.next() );
+		assertEquals( "Failed to keep the order.", three, it.next() );
+		assertEquals( "Failed to keep the order.", seven, it.next() );
+		assertFalse( "Failed to stop after the last element.", it.hasNext() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#remove(java.lang.Comparable)}
+	 * to keep a balanced tree balanced and its ranks current.
+	 */
+	@Test
+	public void testRemove_Balanced()
+	{
+		BSTree<Integer> balancedTree = new BSTree<Integer>( true );
+		for( int i = 1; i <= 31; i++ )
+		{
+			balancedTree.add( i );
+		}
+
+		for( int i = 2; i <= 31; i += 2 )
+		{
+			assertEquals( "Failed to remove the element.", Integer.valueOf( i ), balancedTree.remove( i ).getElement() );
+		}
+
+		assertEquals( "Failed to update size.", 16, balancedTree.size() );
+		assertEquals( "Failed to keep the tree balanced.", 5, balancedTree.getHeight() );
+		for( int i = 0; i < 16; i++ )
+		{
+			assertEquals( "Failed to keep the ranks.", Integer.valueOf( 2 * i + 1 ), balancedTree.select( i ).getElement() );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getHeight()} and
+	 * {@link implementations.BSTree#size()} to stay current as elements are
+	 * removed from an ill-balanced tree.
+	 */
+	@Test
+	public void testHeightAndSize_AfterRemovals()
+	{
+		tree.add( one );
+		tree.add( two );
+		tree.add( three );
+		tree.add( four );
+		tree.add( five );
+
+		tree.removeMax();
+		assertEquals( "Failed to update size.", 4, tree.size() );
+		assertEquals( "Failed to update height.", 4, tree.getHeight() );
+
+		tree.removeMin();
+		assertEquals( "Failed to update size.", 3, tree.size() );
+		assertEquals( "Failed to update height.", 3, tree.getHeight() );
+		assertEquals( "Failed to track subtree size at the root.", 3, tree.getRoot().getSize() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#countLessThan(java.lang.Comparable)}
+	 * to count elements smaller than values inside and outside the tree.
+	 */
+	@Test
+	public void testCountLessThan()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+
+		assertEquals( "Failed to count smaller elements.", 0, tree.countLessThan( one ) );
+		assertEquals( "Failed to count smaller elements.", 2, tree.countLessThan( three ) );
+		assertEquals( "Failed to count smaller elements.", 3, tree.countLessThan( five ) );
+		assertEquals( "Failed to count smaller elements.", 5, tree.countLessThan( seven ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rank(java.lang.Comparable)} to
+	 * return the in-order position of an element, or -1 when it is not found.
+	 */
+	@Test
+	public void testRank()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+
+		assertEquals( "Failed to return the correct rank.", 0, tree.rank( one ) );
+		assertEquals( "Failed to return the correct rank.", 2, tree.rank( four ) );
+		assertEquals( "Failed to return the correct rank.", 4, tree.rank( six ) );
+		assertEquals( "Failed to return -1.", -1, tree.rank( three ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#select(int)} to return the
+	 * k-th smallest element and reject positions outside the tree.
+	 */
+	@Test
+	public void testSelect()
+	{
+		BSTree<Integer> balancedTree = new BSTree<Integer>( true );
+		for( int i = 0; i < 100; i++ )
+		{
+			balancedTree.add( i * 11 );
+		}
+
+		for( int i = 0; i < 100; i++ )
+		{
+			assertEquals( "Failed to select the correct element.", Integer.valueOf( i * 11 ), balancedTree.select( i ).getElement() );
+		}
+
+		try
+		{
+			balancedTree.select( 100 );
+			fail( "Failed to throw IndexOutOfBoundsException." );
+		}
+		catch( IndexOutOfBoundsException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#inorderIterator(int)} to start
+	 * the in-order traversal part way through the tree.
+	 */
+	@Test
+	public void testInorderIterator_StartIndex()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		Integer[] shouldBe = { one, two, three, four, five, six, seven };
+		for( int start = 0; start <= shouldBe.length; start++ )
+		{
+			Iterator<Integer> it = tree.inorderIterator( start );
+			int i = start;
+			while( it.hasNext() )
+			{
+				assertEquals( "In-order iterator is out of order ", shouldBe[i++], it.next() );
+			}
+			assertEquals( "Failed to iterate to the end.", shouldBe.length, i );
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#subSet(java.lang.Comparable, java.lang.Comparable)}
+	 * to return the elements from the lower bound up to, but not including, the
+	 * upper bound.
+	 */
+	@Test
+	public void testSubSet()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		Integer[] shouldBe = { two, three, four, five };
+		Iterator<Integer> it = tree.subSet( 20, six );
+		int i = 0;
+		while( it.hasNext() )
+		{
+			assertEquals( "Range iterator is out of order ", shouldBe[i++], it.next() );
+		}
+		assertEquals( "Failed to return every element in range.", shouldBe.length, i );
+		assertFalse( "Failed to return an empty range.", tree.subSet( 12, 21 ).hasNext() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#headSet(java.lang.Comparable)}
+	 * and {@link implementations.BSTree#tailSet(java.lang.Comparable)} to split the
+	 * tree at an element.
+	 */
+	@Test
+	public void testHeadSetAndTailSet()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+
+		Iterator<Integer> head = tree.headSet( four );
+		assertEquals( one, head.next() );
+		assertEquals( two, head.next() );
+		assertFalse( "Head set went past the bound.", head.hasNext() );
+
+		Iterator<Integer> tail = tree.tailSet( four );
+		assertEquals( four, tail.next() );
+		assertEquals( five, tail.next() );
+		assertEquals( six, tail.next() );
+		assertFalse( "Tail set went past the end.", tail.hasNext() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#prefixIterator(java.lang.Comparable, java.util.function.Predicate)}
+	 * to return only the words starting with a prefix.
+	 */
+	@Test
+	public void testPrefixIterator()
+	{
+		BSTree<String> words = new BSTree<String>( true );
+		String[] input = { "internal", "in", "apple", "inter", "interval", "into", "zebra", "interact" };
+		for( String word : input )
+		{
+			words.add( word );
+		}
+
+		String[] shouldBe = { "inter", "interact", "internal", "interval" };
+		Iterator<String> it = words.prefixIterator( "inter", word -> word.startsWith( "inter" ) );
+		int i = 0;
+		while( it.hasNext() )
+		{
+			assertEquals( "Prefix iterator is out of order ", shouldBe[i++], it.next() );
+		}
+		assertEquals( "Failed to return every matching word.", shouldBe.length, i );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getOrInsert(java.lang.Comparable)}
+	 * to add a missing element and return the existing node for a present one.
+	 */
+	@Test
+	public void testGetOrInsert()
+	{
+		BSTree<Integer> balancedTree = new BSTree<Integer>( true );
+		balancedTree.add( one );
+		balancedTree.add( two );
+
+		BSTreeNode<Integer> added = balancedTree.getOrInsert( three );
+		assertSame( "Failed to return the node holding the new element.", three, added.getElement() );
+		assertEquals( "Failed to update size.", 3, balancedTree.size() );
+		assertEquals( "Failed to rebalance after inserting.", two, balancedTree.getRoot().getElement() );
+
+		BSTreeNode<Integer> found = balancedTree.getOrInsert( Integer.valueOf( 22 ) );
+		assertSame( "Failed to return the existing node.", balancedTree.search( two ), found );
+		assertEquals( "Failed to leave size unchanged.", 3, balancedTree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#fromSorted(java.util.List)} to
+	 * build a perfectly balanced tree from sorted input.
+	 */
+	@Test
+	public void testFromSorted()
+	{
+		Integer[] sorted = { one, two, three, four, five, six, seven };
+		BSTree<Integer> built = BSTree.fromSorted( sorted );
+
+		assertEquals( "Failed to add every element.", 7, built.size() );
+		assertEquals( "Failed to build a balanced tree.", 3, built.getHeight() );
+		assertEquals( "Failed to put the middle element at the root.", four, built.getRoot().getElement() );
+		assertTrue( "Failed to build the tree in balanced mode.", built.isBalanced() );
+
+		Integer[] shouldBe = { four, two, one, three, six, five, seven };
+		Iterator<Integer> it = built.preorderIterator();
+		int i = 0;
+		while( it.hasNext() )
+		{
+			assertEquals( "Preorder iterator is out of order ", shouldBe[i++], it.next() );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#fromSorted(java.util.List)} to
+	 * reject input that is not in strictly ascending order.
+	 */
+	@Test
+	public void testFromSorted_Unsorted()
+	{
+		Integer[] unsorted = { one, three, two };
+		try
+		{
+			BSTree.fromSorted( unsorted );
+			fail( "Failed to throw IllegalArgumentException." );
+		}
+		catch( IllegalArgumentException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rebuild()} to rebalance an
+	 * ill-balanced tree while keeping its nodes.
+	 */
+	@Test
+	public void testRebuild()
+	{
+		tree.add( one );
+		tree.add( two );
+		tree.add( three );
+		tree.add( four );
+		tree.add( five );
+		tree.add( six );
+		tree.add( seven );
+		BSTreeNode<Integer> node = tree.search( five );
+
+		tree.rebuild();
+
+		assertEquals( "Failed to rebalance the tree.", 3, tree.getHeight() );
+		assertEquals( "Failed to keep every element.", 7, tree.size() );
+		assertSame( "Failed to keep the existing nodes.", node, tree.search( five ) );
+		assertEquals( "Failed to keep the order.", 4, tree.rank( five ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#merge(implementations.BSTree, implementations.BSTree, java.util.function.BinaryOperator)}.
+	 */
+	@Test
+	public void testMerge()
+	{
+		tree.add( one );
+		tree.add( three );
+		tree.add( five );
+		tree.add( seven );
+		BSTree<Integer> other = new BSTree<Integer>();
+		other.add( two );
+		other.add( three );
+		other.add( four );
+		other.add( seven );
+		final int[] combined = new int[1];
+
+		BSTree<Integer> merged = BSTree.merge( tree, other, ( a, b ) -> { combined[0]++; return a; } );
+
+		assertEquals( "Failed to combine the shared elements.", 2, combined[0] );
+		assertEquals( "Failed to keep every element.", 6, merged.size() );
+		assertEquals( "Failed to balance the merged tree.", 3, merged.getHeight() );
+		assertTrue( "Failed to build a balanced tree.", merged.isBalanced() );
+		Iterator<Integer> it = merged.inorderIterator();
+		for( Integer expected : new Integer[] { one, two, three, four, five, seven } )
+		{
+			assertEquals( "Failed to merge in order.", expected, it.next() );
+		}
+		assertFalse( "Failed to stop after the last element.", it.hasNext() );
+		assertEquals( "Failed to leave the first tree unchanged.", 4, tree.size() );
+		assertEquals( "Failed to leave the second tree unchanged.", 4, other.size() );
+	}
 }
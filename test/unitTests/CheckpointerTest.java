@@ -0,0 +1,119 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.FileDictionary;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.Checkpointer;
+import implementations.FileManifest;
+import implementations.RepositoryFormat;
+import implementations.RepositoryLog;
+
+/**
+ * Tests for Checkpointer, including changes made to the tree while a
+ * checkpoint of it is written.
+ */
+public class CheckpointerTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private Path repository;
+	private Checkpointer checkpointer;
+	private BSTree<WordStorage> tree;
+	private int fileId;
+
+	/**
+	 * Creates a tree of two words and a checkpointer in a temporary folder.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		repository = folder.getRoot().toPath().resolve( "repository.wtr" );
+		checkpointer = new Checkpointer( repository );
+		fileId = FileDictionary.getInstance().idOf( "checkpoint-a.txt" );
+		tree = new BSTree<WordStorage>( true );
+		WordStorage alpha = new WordStorage( "alpha" );
+		alpha.addOccurrence( fileId, 1 );
+		alpha.addOccurrence( fileId, 3 );
+		tree.add( alpha );
+		WordStorage beta = new WordStorage( "beta" );
+		beta.addOccurrence( fileId, 2 );
+		tree.add( beta );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		checkpointer.close();
+		checkpointer = null;
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.Checkpointer#checkpointAndWait(implementations.BSTree, implementations.FileManifest)}.
+	 */
+	@Test
+	public void testCheckpointAndWait() throws Exception
+	{
+		RepositoryLog log = RepositoryLog.forRepository( repository );
+		RepositoryLog.Segment segment = new RepositoryLog.Segment();
+		segment.addFile( "checkpoint-a.txt", fileId, null, Arrays.asList( tree.search( new WordStorage( "beta" ) ).getElement() ) );
+		log.append( segment );
+
+		Checkpointer.Result result = checkpointer.checkpointAndWait( tree, new FileManifest() );
+
+		assertEquals( "Failed to count the words written.", 2, result.getWords() );
+		assertEquals( "Failed to count the bytes written.", Files.size( repository ), result.getBytes() );
+		assertEquals( "Failed to record the checkpoint.", 1, checkpointer.getCheckpointCount() );
+		assertEquals( "Failed to record the bytes written.", result.getBytes(), checkpointer.getTotalBytes() );
+		assertFalse( "Failed to empty the log held by the checkpoint.", Files.exists( log.getPath() ) );
+		assertFalse( "Failed to move the temporary file into place.", Files.exists( repository.resolveSibling( "repository.wtr.tmp" ) ) );
+		assertEquals( "Failed to write a readable repository.", 2, RepositoryFormat.read( repository ).size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.Checkpointer#checkpoint(implementations.BSTree, implementations.FileManifest)}
+	 * to write the tree as it was when the checkpoint started.
+	 */
+	@Test
+	public void testCheckpoint_Snapshot() throws Exception
+	{
+		CompletableFuture<Checkpointer.Result> pending = checkpointer.checkpoint( tree, null );
+		WordStorage alpha = tree.search( new WordStorage( "alpha" ) ).getElement();
+		alpha.addOccurrence( fileId, 4 );
+		alpha.offsetLines( 10 );
+		tree.add( new WordStorage( "gamma", "checkpoint-a.txt", 5 ) );
+		Checkpointer.await( pending );
+
+		BSTree<WordStorage> written = RepositoryFormat.read( repository );
+		assertEquals( "Failed to leave out words added later.", 2, written.size() );
+		WordStorage copy = written.search( new WordStorage( "alpha" ) ).getElement();
+		assertEquals( "Failed to leave out occurrences added later.", 2, copy.getFrequency() );
+		PostingList.Cursor lines = copy.getLines( "checkpoint-a.txt" );
+		assertEquals( "Failed to leave out lines shifted later.", 1, lines.next() );
+		assertEquals( "Failed to leave out lines shifted later.", 3, lines.next() );
+		assertEquals( "Failed to keep the later changes in the tree.", 3, alpha.getFrequency() );
+	}
+}
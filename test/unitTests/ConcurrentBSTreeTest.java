@@ -0,0 +1,228 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+import utilities.WordStorage;
+
+import implementations.ConcurrentBSTree;
+
+/**
+ * Stress tests for ConcurrentBSTree, running many threads against one tree
+ * and checking that no update is lost and the tree stays ordered and balanced.
+ */
+public class ConcurrentBSTreeTest
+{
+	// Attributes
+	private static final int THREADS = 8;
+	private ExecutorService pool;
+	private CountDownLatch start;
+
+	/**
+	 * Creates the worker threads and the gate that releases them together.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		pool = Executors.newFixedThreadPool( THREADS );
+		start = new CountDownLatch( 1 );
+	}
+
+	/**
+	 * Stops the worker threads.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		pool.shutdownNow();
+		assertTrue( "Failed to stop the workers.", pool.awaitTermination( 10, TimeUnit.SECONDS ) );
+		pool = null;
+		start = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#add(java.lang.Comparable)}
+	 * with every thread adding the same elements in a different order.
+	 */
+	@Test
+	public void testAdd_Concurrent() throws Exception
+	{
+		final ConcurrentBSTree<Integer> tree = new ConcurrentBSTree<Integer>();
+		final int count = 20000;
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for( int t = 0; t < THREADS; t++ )
+		{
+			final List<Integer> values = new ArrayList<Integer>();
+			for( int i = 0; i < count; i++ )
+			{
+				values.add( i );
+			}
+			Collections.shuffle( values, new Random( t ) );
+			tasks.add( () -> {
+				start.await();
+				int added = 0;
+				for( Integer value : values )
+				{
+					added += tree.add( value ) ? 1 : 0;
+				}
+				return added;
+			} );
+		}
+
+		int added = 0;
+		for( Future<Integer> result : run( tasks ) )
+		{
+			added += result.get();
+		}
+
+		assertEquals( "Failed to add every element exactly once.", count, added );
+		assertEquals( "Failed to keep the size.", count, tree.size() );
+		assertTrue( "Failed to keep the tree balanced.", tree.getHeight() <= 21 );
+		Iterator<Integer> it = tree.inorderIterator();
+		for( int i = 0; i < count; i++ )
+		{
+			assertEquals( "Failed to keep the order.", Integer.valueOf( i ), it.next() );
+		}
+		assertFalse( "Failed to stop after the last element.", it.hasNext() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#getOrInsert(java.lang.Comparable)}
+	 * with every thread recording occurrences of the same words, as WordTracker does.
+	 */
+	@Test
+	public void testGetOrInsert_ConcurrentOccurrences() throws Exception
+	{
+		final ConcurrentBSTree<WordStorage> tree = new ConcurrentBSTree<WordStorage>();
+		final int words = 500;
+		final int occurrences = 20000;
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for( int t = 0; t < THREADS; t++ )
+		{
+			final String fileName = "file" + ( t % 2 );
+			final Random random = new Random( t );
+			tasks.add( () -> {
+				start.await();
+				for( int i = 0; i < occurrences; i++ )
+				{
+					String word = "w" + random.nextInt( words );
+					tree.getOrInsert( new WordStorage( word ) ).getElement().addOccurrence( fileName, i );
+				}
+				return occurrences;
+			} );
+		}
+		run( tasks );
+
+		assertEquals( "Failed to add every word exactly once.", words, tree.size() );
+		int frequency = 0;
+		int lines = 0;
+		Iterator<WordStorage> it = tree.inorderIterator();
+		while( it.hasNext() )
+		{
+			WordStorage storage = it.next();
+			frequency += storage.getFrequency();
+			lines += storage.getLineCount( "file0" ) + storage.getLineCount( "file1" );
+		}
+		assertEquals( "Failed to count every occurrence.", THREADS * occurrences, frequency );
+		assertEquals( "Failed to record every line.", THREADS * occurrences, lines );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#contains(java.lang.Comparable)}
+	 * while other threads keep rebalancing the tree.
+	 */
+	@Test
+	public void testContains_DuringWrites() throws Exception
+	{
+		final ConcurrentBSTree<Integer> tree = new ConcurrentBSTree<Integer>();
+		final int count = 20000;
+		for( int i = 0; i < count; i += 2 )
+		{
+			tree.add( i );
+		}
+		final AtomicBoolean writing = new AtomicBoolean( true );
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for( int t = 0; t < THREADS; t++ )
+		{
+			final int writer = t;
+			if( writer < 2 )
+			{
+				tasks.add( () -> {
+					start.await();
+					for( int i = 1 + 2 * writer; i < count; i += 4 )
+					{
+						tree.add( i );
+					}
+					writing.set( false );
+					return 0;
+				} );
+			}
+			else
+			{
+				final Random random = new Random( t );
+				tasks.add( () -> {
+					start.await();
+					int missed = 0;
+					do
+					{
+						for( int i = 0; i < 1000; i++ )
+						{
+							missed += tree.contains( 2 * random.nextInt( count / 2 ) ) ? 0 : 1;
+						}
+					} while( writing.get() );
+					return missed;
+				} );
+			}
+		}
+
+		int missed = 0;
+		for( Future<Integer> result : run( tasks ) )
+		{
+			missed += result.get();
+		}
+
+		assertEquals( "Failed to find elements that were in the tree all along.", 0, missed );
+		assertEquals( "Failed to keep the size.", count, tree.size() );
+	}
+
+	/**
+	 * Starts the tasks together and waits for all of them.
+	 *
+	 * @param tasks the tasks to run
+	 * @return the results of the tasks
+	 */
+	private List<Future<Integer>> run( List<Callable<Integer>> tasks ) throws Exception
+	{
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+		for( Callable<Integer> task : tasks )
+		{
+			results.add( pool.submit( task ) );
+		}
+		start.countDown();
+		for( Future<Integer> result : results )
+		{
+			result.get( 60, TimeUnit.SECONDS );
+		}
+		return results;
+	}
+}
@@ -0,0 +1,114 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import utilities.FileDictionary;
+import utilities.WordStorage;
+
+/**
+ * Tests for FileDictionary, which every WordStorage shares, so each test uses
+ * file names of its own.
+ */
+public class FileDictionaryTest
+{
+	/**
+	 * Test method for {@link utilities.FileDictionary#idOf(java.lang.String)}
+	 * giving a name the same ID every time.
+	 */
+	@Test
+	public void testIdOf()
+	{
+		FileDictionary dictionary = FileDictionary.getInstance();
+		int first = dictionary.idOf( "dictionary-a.txt" );
+		int second = dictionary.idOf( "dictionary-b.txt" );
+
+		assertEquals( "Failed to keep the ID of a name.", first, dictionary.idOf( "dictionary-a.txt" ) );
+		assertEquals( "Failed to keep the ID of a name.", first, dictionary.idOf( new String( "dictionary-a.txt" ) ) );
+		assertEquals( "Failed to hand out the next ID.", first + 1, second );
+		assertSame( "Failed to share the dictionary.", dictionary, FileDictionary.getInstance() );
+		assertEquals( "Failed to give a storage the dictionary's ID.", second,
+				new WordStorage( "word", "dictionary-b.txt", 1 ).getFileId( 0 ) );
+	}
+
+	/**
+	 * Test method for {@link utilities.FileDictionary#nameOf(int)} and
+	 * {@link utilities.FileDictionary#find(java.lang.String)}.
+	 */
+	@Test
+	public void testNameOf_Find()
+	{
+		FileDictionary dictionary = FileDictionary.getInstance();
+		assertEquals( "Failed to miss an unknown name.", -1, dictionary.find( "dictionary-c.txt" ) );
+		int id = dictionary.idOf( "dictionary-c.txt" );
+		assertEquals( "Failed to find a known name.", id, dictionary.find( "dictionary-c.txt" ) );
+		assertEquals( "Failed to return the name of an ID.", "dictionary-c.txt", dictionary.nameOf( id ) );
+
+		for( int unknown : new int[] { -1, Integer.MAX_VALUE } )
+		{
+			try
+			{
+				dictionary.nameOf( unknown );
+				fail( "Failed to reject the unknown ID " + unknown + "." );
+			}
+			catch( IndexOutOfBoundsException e )
+			{
+				assertTrue( true );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link utilities.FileDictionary#idOf(java.lang.String)}
+	 * with many threads adding the same names at once, past the first growth of
+	 * the name table.
+	 */
+	@Test
+	public void testIdOf_Concurrent() throws Exception
+	{
+		final FileDictionary dictionary = FileDictionary.getInstance();
+		final ConcurrentHashMap<String, Integer> seen = new ConcurrentHashMap<String, Integer>();
+		final CountDownLatch start = new CountDownLatch( 1 );
+		final boolean[] mismatch = new boolean[1];
+		Thread[] threads = new Thread[8];
+		for( int t = 0; t < threads.length; t++ )
+		{
+			threads[t] = new Thread( () -> {
+				try
+				{
+					start.await();
+				}
+				catch( InterruptedException e )
+				{
+					return;
+				}
+				for( int i = 0; i < 100; i++ )
+				{
+					String name = "dictionary-concurrent-" + i + ".txt";
+					Integer previous = seen.putIfAbsent( name, dictionary.idOf( name ) );
+					if( previous != null && previous != dictionary.idOf( name ) )
+					{
+						mismatch[0] = true;
+					}
+				}
+			} );
+			threads[t].start();
+		}
+		start.countDown();
+		for( Thread thread : threads )
+		{
+			thread.join();
+		}
+
+		assertFalse( "Failed to give a name one ID across threads.", mismatch[0] );
+		for( int i = 0; i < 100; i++ )
+		{
+			String name = "dictionary-concurrent-" + i + ".txt";
+			assertEquals( "Failed to map an ID back to its name.", name, dictionary.nameOf( seen.get( name ) ) );
+		}
+	}
+}
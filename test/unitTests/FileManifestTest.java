@@ -0,0 +1,136 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import implementations.FileManifest;
+
+/**
+ * Tests for FileManifest checking input files against their entries.
+ */
+public class FileManifestTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private FileManifest manifest;
+	private Path input;
+	private String name;
+
+	/**
+	 * Writes an input file and adds its entry to a manifest.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		input = folder.getRoot().toPath().resolve( "input.txt" );
+		name = input.toString();
+		write( "alpha beta", 1000000L );
+		manifest = new FileManifest();
+		manifest.put( FileManifest.fingerprint( input, name ) );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		manifest = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.FileManifest#check(java.lang.String)}
+	 * with files that have no entry.
+	 */
+	@Test
+	public void testCheck_New() throws Exception
+	{
+		Path other = folder.newFile( "other.txt" ).toPath();
+		assertEquals( "Failed to report a file without an entry.", FileManifest.Status.NEW,
+				manifest.check( other.toString() ) );
+		assertEquals( "Failed to report a missing file without an entry.", FileManifest.Status.NEW,
+				manifest.check( folder.getRoot().toPath().resolve( "absent.txt" ).toString() ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.FileManifest#check(java.lang.String)}
+	 * with a file left as it was.
+	 */
+	@Test
+	public void testCheck_Unchanged() throws Exception
+	{
+		assertEquals( "Failed to report an unchanged file.", FileManifest.Status.UNCHANGED, manifest.check( name ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.FileManifest#check(java.lang.String)}
+	 * with a file whose size, or only content, changed.
+	 */
+	@Test
+	public void testCheck_Changed() throws Exception
+	{
+		write( "alpha beta gamma", 2000000L );
+		assertEquals( "Failed to report a file of a new size.", FileManifest.Status.CHANGED, manifest.check( name ) );
+
+		// same size, new content and time
+		manifest.put( FileManifest.fingerprint( input, name ) );
+		write( "alpha bexa gamma", 3000000L );
+		assertEquals( "Failed to report a file of the same size with new content.", FileManifest.Status.CHANGED,
+				manifest.check( name ) );
+		assertEquals( "Failed to keep the old entry of a changed file.", 2000000L, manifest.get( name ).getModified() );
+	}
+
+	/**
+	 * Test method for {@link implementations.FileManifest#check(java.lang.String)}
+	 * with a file that was deleted.
+	 */
+	@Test
+	public void testCheck_Missing() throws Exception
+	{
+		Files.delete( input );
+		assertEquals( "Failed to report a deleted file.", FileManifest.Status.MISSING, manifest.check( name ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.FileManifest#check(java.lang.String)}
+	 * with a file rewritten with the same content under a new modified time,
+	 * which is hashed once and then has its entry updated.
+	 */
+	@Test
+	public void testCheck_Touched() throws Exception
+	{
+		byte[] hash = manifest.get( name ).getHash();
+		write( "alpha beta", 5000000L );
+
+		assertEquals( "Failed to recognise the same content.", FileManifest.Status.UNCHANGED, manifest.check( name ) );
+		FileManifest.Entry entry = manifest.get( name );
+		assertEquals( "Failed to update the modified time.", 5000000L, entry.getModified() );
+		assertArrayEquals( "Failed to keep the hash.", hash, entry.getHash() );
+		assertEquals( "Failed to keep the size.", 10L, entry.getSize() );
+		assertEquals( "Failed to stay unchanged after the update.", FileManifest.Status.UNCHANGED, manifest.check( name ) );
+	}
+
+	/**
+	 * Writes the input file and sets its modified time
+	 */
+	private void write( String text, long modified ) throws Exception
+	{
+		Files.write( input, text.getBytes( StandardCharsets.US_ASCII ) );
+		Files.setLastModifiedTime( input, FileTime.fromMillis( modified ) );
+	}
+}
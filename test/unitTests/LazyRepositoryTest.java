@@ -0,0 +1,139 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.FileDictionary;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.LazyRepository;
+import implementations.RepositoryFormat;
+import implementations.RepositoryLog;
+
+/**
+ * Tests for LazyRepository, which must load words in the state replaying the
+ * whole log over the whole repository file leaves them in.
+ */
+public class LazyRepositoryTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private LazyRepository repository;
+	private int first;
+	private int second;
+	private int third;
+
+	/**
+	 * Writes a repository of two files, then logs the first file changed and a
+	 * third file added.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		Path base = folder.getRoot().toPath().resolve( "repository.wtr" );
+		FileDictionary dictionary = FileDictionary.getInstance();
+		first = dictionary.idOf( "lazy-a.txt" );
+		second = dictionary.idOf( "lazy-b.txt" );
+		third = dictionary.idOf( "lazy-c.txt" );
+
+		BSTree<WordStorage> tree = new BSTree<WordStorage>( true );
+		tree.add( word( "apple", first, 1, second, 2 ) );
+		tree.add( word( "banana", first, 3 ) );
+		tree.add( word( "cherry", second, 1 ) );
+		RepositoryFormat.write( tree, base );
+
+		RepositoryLog log = RepositoryLog.forRepository( base );
+		RepositoryLog.Segment changed = new RepositoryLog.Segment();
+		changed.addFile( "lazy-a.txt", first, null, Arrays.asList( word( "apple", first, 5 ), word( "avocado", first, 6 ) ) );
+		log.append( changed );
+		RepositoryLog.Segment added = new RepositoryLog.Segment();
+		added.addFile( "lazy-c.txt", third, null, Arrays.asList( word( "cherry", third, 7 ) ) );
+		log.append( added );
+
+		repository = LazyRepository.open( base );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		repository.close();
+		repository = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.LazyRepository#get(java.lang.String)}.
+	 */
+	@Test
+	public void testGet() throws Exception
+	{
+		WordStorage apple = repository.get( "apple" );
+		assertEquals( "Failed to replace the logged file.", 2, apple.getFrequency() );
+		assertEquals( "Failed to keep the files in replay order.", second, apple.getFileId( 0 ) );
+		assertEquals( "Failed to keep the files in replay order.", first, apple.getFileId( 1 ) );
+		PostingList.Cursor lines = apple.getLines( "lazy-a.txt" );
+		assertEquals( "Failed to load the logged lines.", 5, lines.next() );
+		assertFalse( "Failed to drop the replaced lines.", lines.hasNext() );
+		assertNull( "Failed to drop a word the log took out.", repository.get( "banana" ) );
+		assertEquals( "Failed to load a word only found in the log.", 1, repository.get( "avocado" ).getFrequency() );
+		assertEquals( "Failed to add a logged file to a stored word.", 2, repository.get( "cherry" ).getFrequency() );
+		assertNull( "Failed to return null for a missing word.", repository.get( "durian" ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.LazyRepository#getPrefix(java.lang.String)}
+	 * and {@link implementations.LazyRepository#getAll()}.
+	 */
+	@Test
+	public void testGetPrefix() throws Exception
+	{
+		assertEquals( "Failed to load the words with the prefix in order.", Arrays.asList( "apple", "avocado" ), words( repository.getPrefix( "a" ) ) );
+		assertTrue( "Failed to skip a prefix without words.", repository.getPrefix( "b" ).isEmpty() );
+		assertEquals( "Failed to load every word in order.", Arrays.asList( "apple", "avocado", "cherry" ), words( repository.getAll() ) );
+	}
+
+	/**
+	 * Returns the text of each word.
+	 */
+	private static List<String> words( List<WordStorage> storages )
+	{
+		List<String> words = new ArrayList<String>();
+		for( WordStorage storage : storages )
+		{
+			words.add( storage.getWord() );
+		}
+		return words;
+	}
+
+	/**
+	 * Creates a word found on the given lines, as pairs of file ID and line.
+	 */
+	private static WordStorage word( String text, int... occurrences )
+	{
+		WordStorage word = new WordStorage( text );
+		for( int i = 0; i < occurrences.length; i += 2 )
+		{
+			word.addOccurrence( occurrences[i], occurrences[i + 1] );
+		}
+		return word;
+	}
+}
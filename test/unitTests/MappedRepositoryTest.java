@@ -0,0 +1,176 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.MappedRepository;
+import implementations.RepositoryCompression;
+import implementations.RepositoryFormat;
+
+/**
+ * Tests for MappedRepository against files written by RepositoryFormat.
+ */
+public class MappedRepositoryTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private BSTree<WordStorage> tree;
+	private Path repository;
+	private MappedRepository mapped;
+
+	/**
+	 * Writes and maps a repository of the words b, d, f, ... each found on its
+	 * own position in the alphabet.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		repository = folder.getRoot().toPath().resolve( "repository.wtr" );
+		tree = new BSTree<WordStorage>( true );
+		for( char c = 'b'; c <= 'y'; c += 2 )
+		{
+			WordStorage word = new WordStorage( String.valueOf( c ) );
+			word.addOccurrence( "mapped-a.txt", c - 'a' );
+			word.addOccurrence( "mapped-b.txt", 1 );
+			tree.add( word );
+		}
+		RepositoryFormat.write( tree, repository );
+		mapped = MappedRepository.open( repository );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		mapped.close();
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.MappedRepository#get(java.lang.String)}.
+	 */
+	@Test
+	public void testGet() throws Exception
+	{
+		WordStorage word = mapped.get( "f" );
+		assertNotNull( "Failed to find a stored word.", word );
+		assertEquals( "Failed to decode the frequency.", 2, word.getFrequency() );
+		PostingList.Cursor lines = word.getLines( "mapped-a.txt" );
+		assertEquals( "Failed to decode the lines.", 5, lines.next() );
+		assertFalse( "Failed to decode the lines.", lines.hasNext() );
+		assertNotNull( "Failed to find the first word.", mapped.get( "b" ) );
+		assertNotNull( "Failed to find the last word.", mapped.get( "x" ) );
+		assertNull( "Failed to miss a word between two others.", mapped.get( "e" ) );
+		assertNull( "Failed to miss a word before the first.", mapped.get( "a" ) );
+		assertNull( "Failed to miss a word after the last.", mapped.get( "z" ) );
+		assertNull( "Failed to miss a prefix of a word.", mapped.get( "" ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.MappedRepository#lowerBound(java.lang.String)}.
+	 */
+	@Test
+	public void testLowerBound() throws Exception
+	{
+		assertEquals( "Failed to count the words.", tree.size(), mapped.size() );
+		assertEquals( "Failed to find a stored word.", 2, mapped.lowerBound( "f" ) );
+		assertEquals( "Failed to find the word after an absent one.", 2, mapped.lowerBound( "e" ) );
+		assertEquals( "Failed to find the word after a longer one.", 3, mapped.lowerBound( "fa" ) );
+		assertEquals( "Failed to stop before the first word.", 0, mapped.lowerBound( "a" ) );
+		assertEquals( "Failed to stop after the last word.", mapped.size(), mapped.lowerBound( "z" ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.MappedRepository#wordAt(int)} and
+	 * {@link implementations.MappedRepository#storageAt(int)}.
+	 */
+	@Test
+	public void testWordAt() throws Exception
+	{
+		for( int i = 0; i < mapped.size(); i++ )
+		{
+			String expected = String.valueOf( (char) ( 'b' + 2 * i ) );
+			assertEquals( "Failed to read the word in order.", expected, mapped.wordAt( i ) );
+			WordStorage word = mapped.storageAt( i );
+			assertEquals( "Failed to decode the word.", expected, word.getWord() );
+			assertEquals( "Failed to decode the files.", 2, word.getFileCount() );
+		}
+		try
+		{
+			mapped.wordAt( mapped.size() );
+			fail( "Failed to reject a position after the last word." );
+		}
+		catch( IndexOutOfBoundsException e )
+		{
+			assertTrue( true );
+		}
+		try
+		{
+			mapped.storageAt( -1 );
+			fail( "Failed to reject a negative position." );
+		}
+		catch( IndexOutOfBoundsException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.MappedRepository#open(java.nio.file.Path)}
+	 * to refuse compressed files and version 1 files, which have no directory.
+	 */
+	@Test
+	public void testOpen_Unmappable() throws Exception
+	{
+		Path compressed = folder.getRoot().toPath().resolve( "compressed.wtr" );
+		RepositoryFormat.write( tree, null, compressed, RepositoryCompression.level( 1 ) );
+		Path legacy = folder.getRoot().toPath().resolve( "legacy.wtr" );
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream( bytes );
+		out.writeInt( RepositoryFormat.MAGIC );
+		out.writeInt( 1 );
+		// one file, one word found on line 1 of it
+		out.writeByte( 1 );
+		out.writeUTF( "mapped-a.txt" );
+		out.writeByte( 1 );
+		out.writeUTF( "word" );
+		out.write( new byte[] { 1, 0, 1, 2 } );
+		Files.write( legacy, bytes.toByteArray() );
+
+		for( Path path : new Path[] { compressed, legacy } )
+		{
+			try
+			{
+				MappedRepository.open( path ).close();
+				fail( "Failed to refuse " + path.getFileName() + "." );
+			}
+			catch( IOException e )
+			{
+				assertTrue( true );
+			}
+		}
+		assertEquals( "Failed to keep the legacy file loadable.", 1, RepositoryFormat.read( legacy ).size() );
+	}
+}
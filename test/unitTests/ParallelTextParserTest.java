@@ -0,0 +1,108 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.Iterator;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.ParallelTextParser;
+import implementations.WordTracker;
+
+/**
+ * Tests for ParallelTextParser against the sequential TextParse, with ranges
+ * small enough that the file is cut into many of them.
+ */
+public class ParallelTextParserTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private ForkJoinPool pool;
+	private Path input;
+	private Path other;
+
+	/**
+	 * Writes a file of lines with mixed line breaks, punctuation and multi-byte
+	 * characters, and a second file already in the tree.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		pool = new ForkJoinPool( 4 );
+		String[] words = { "alpha", "beta", "gamma", "don't", "caf\u00e9", "na\u00efve", "delta", "x" };
+		String[] breaks = { "\n", "\r\n", "\n\n", "\r\n\r\n" };
+		Random random = new Random( 304 );
+		StringBuilder text = new StringBuilder();
+		for( int line = 0; line < 2000; line++ )
+		{
+			int count = random.nextInt( 6 );
+			for( int i = 0; i < count; i++ )
+			{
+				text.append( words[random.nextInt( words.length )] ).append( i % 3 == 0 ? ", " : " " );
+			}
+			text.append( breaks[random.nextInt( breaks.length )] );
+		}
+		input = folder.getRoot().toPath().resolve( "parallel.txt" );
+		Files.write( input, text.toString().getBytes( StandardCharsets.UTF_8 ) );
+		other = folder.getRoot().toPath().resolve( "other.txt" );
+		Files.write( other, "beta zeta\nalpha\n".getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		pool.shutdown();
+		pool = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.ParallelTextParser#parse(java.nio.file.Path, java.lang.String, implementations.BSTree)}
+	 * giving the same words, files, lines and frequencies as a sequential parse
+	 * at several range sizes.
+	 */
+	@Test
+	public void testParse() throws Exception
+	{
+		WordTracker sequential = new WordTracker( new BSTree<WordStorage>( true ) );
+		sequential.TextParse( other.toString() );
+		sequential.TextParse( input.toString() );
+
+		for( long chunkSize : new long[] { 1, 7, 256, 4096, 1 << 20 } )
+		{
+			WordTracker tracker = new WordTracker( new BSTree<WordStorage>( true ) );
+			tracker.TextParse( other.toString() );
+			BSTree<WordStorage> parsed = new ParallelTextParser( StandardCharsets.UTF_8, pool, chunkSize )
+					.parse( input, input.toString(), tracker.getTree() );
+
+			assertEquals( "Failed to find every word with ranges of " + chunkSize + " bytes.",
+					sequential.getTree().size(), parsed.size() );
+			Iterator<WordStorage> expected = sequential.getTree().inorderIterator();
+			Iterator<WordStorage> actual = parsed.inorderIterator();
+			while( expected.hasNext() )
+			{
+				assertEquals( "Failed to match the sequential parse with ranges of " + chunkSize + " bytes.",
+						expected.next().displayAll(), actual.next().displayAll() );
+			}
+		}
+	}
+}
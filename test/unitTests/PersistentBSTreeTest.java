@@ -0,0 +1,182 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.BSTree;
+import implementations.BSTreeNode;
+import implementations.PersistentBSTree;
+
+/**
+ * Tests for PersistentBSTree, checking that updates copy their path instead of
+ * changing the nodes snapshots and iterators are reading.
+ */
+public class PersistentBSTreeTest
+{
+	// Attributes
+	private PersistentBSTree<Integer> tree;
+
+	/**
+	 * Initializes a tree holding the even numbers below 100.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tree = new PersistentBSTree<Integer>();
+		for( int i = 0; i < 100; i += 2 )
+		{
+			tree.add( i );
+		}
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#add(java.lang.Comparable)}
+	 * with sorted input, which must not degrade the tree.
+	 */
+	@Test
+	public void testAdd_SortedBalanced()
+	{
+		assertEquals( "Failed to count the elements.", 50, tree.size() );
+		assertEquals( "Failed to keep the tree balanced.", 6, tree.getHeight() );
+		assertFalse( "Failed to reject a duplicate.", tree.add( 10 ) );
+		assertEquals( "Failed to keep the size after a duplicate.", 50, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#snapshot()}.
+	 */
+	@Test
+	public void testSnapshot_Isolated()
+	{
+		BSTreeNode<Integer> root = tree.getRoot();
+		PersistentBSTree<Integer> snapshot = tree.snapshot();
+
+		tree.add( 51 );
+		tree.removeMin();
+		snapshot.add( 1001 );
+
+		assertEquals( "Failed to keep the snapshot unchanged.", 51, snapshot.size() );
+		assertFalse( "Failed to keep later additions out of the snapshot.", snapshot.contains( 51 ) );
+		assertTrue( "Failed to keep removed elements in the snapshot.", snapshot.contains( 0 ) );
+		assertFalse( "Failed to keep snapshot additions out of the tree.", tree.contains( 1001 ) );
+		assertEquals( "Failed to update the tree.", 50, tree.size() );
+		assertEquals( "Failed to leave the old root alone.", 50, root.getSize() );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#inorderIterator()}
+	 * while the tree is being changed.
+	 */
+	@Test
+	public void testInorderIterator_UnaffectedByUpdates()
+	{
+		Iterator<Integer> it = tree.inorderIterator();
+		List<Integer> seen = new ArrayList<Integer>();
+		while( it.hasNext() )
+		{
+			Integer next = it.next();
+			seen.add( next );
+			tree.add( next + 1 );
+			tree.removeMax();
+		}
+
+		assertEquals( "Failed to iterate over the version it started on.", 50, seen.size() );
+		for( int i = 0; i < seen.size(); i++ )
+		{
+			assertEquals( "Failed to keep the order.", Integer.valueOf( 2 * i ), seen.get( i ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#removeMin()} and
+	 * {@link implementations.PersistentBSTree#removeMax()}.
+	 */
+	@Test
+	public void testRemoveMinMax()
+	{
+		assertEquals( "Failed to remove the smallest element.", Integer.valueOf( 0 ), tree.removeMin().getElement() );
+		assertEquals( "Failed to remove the largest element.", Integer.valueOf( 98 ), tree.removeMax().getElement() );
+		assertEquals( "Failed to update the size.", 48, tree.size() );
+		assertEquals( "Failed to keep the order statistics.", Integer.valueOf( 2 ), tree.select( 0 ).getElement() );
+		assertEquals( "Failed to keep the ranks.", 47, tree.rank( 96 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#remove(java.lang.Comparable)}
+	 * with a snapshot taken before the removals.
+	 */
+	@Test
+	public void testRemove()
+	{
+		PersistentBSTree<Integer> snapshot = tree.snapshot();
+		Integer root = tree.getRoot().getElement();
+
+		assertEquals( "Failed to remove the root.", root, tree.remove( root ).getElement() );
+		for( int i = 0; i < 100; i += 4 )
+		{
+			tree.remove( i );
+		}
+		assertNull( "Failed to ignore a missing element.", tree.remove( 51 ) );
+
+		assertEquals( "Failed to update the size.", 24, tree.size() );
+		assertFalse( "Failed to remove the element.", tree.contains( root ) );
+		assertTrue( "Failed to keep the tree balanced.", tree.getHeight() <= 6 );
+		assertEquals( "Failed to keep the order statistics.", Integer.valueOf( 2 ), tree.select( 0 ).getElement() );
+		assertEquals( "Failed to keep the snapshot unchanged.", 50, snapshot.size() );
+		assertTrue( "Failed to keep removed elements in the snapshot.", snapshot.contains( root ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#getOrInsert(java.lang.Comparable)}.
+	 */
+	@Test
+	public void testGetOrInsert()
+	{
+		Integer existing = tree.search( 40 ).getElement();
+
+		assertSame( "Failed to find the existing element.", existing, tree.getOrInsert( 40 ).getElement() );
+		assertEquals( "Failed to return the new element.", Integer.valueOf( 41 ), tree.getOrInsert( 41 ).getElement() );
+		assertEquals( "Failed to add the new element.", 51, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#PersistentBSTree(implementations.BSTree)}.
+	 */
+	@Test
+	public void testConstructor_CopiesTree()
+	{
+		BSTree<Integer> source = new BSTree<Integer>();
+		for( int i = 0; i < 10; i++ )
+		{
+			source.add( i );
+		}
+
+		PersistentBSTree<Integer> copy = new PersistentBSTree<Integer>( source );
+		source.add( 10 );
+
+		assertEquals( "Failed to copy every element.", 10, copy.size() );
+		assertEquals( "Failed to balance the copy.", 4, copy.getHeight() );
+		assertFalse( "Failed to keep the copy apart from the source.", copy.contains( 10 ) );
+	}
+}
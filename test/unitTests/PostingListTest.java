@@ -0,0 +1,234 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import utilities.PostingList;
+
+/**
+ * Tests for PostingList encoding lines as zigzag variable length differences.
+ */
+public class PostingListTest
+{
+	/**
+	 * Test method for {@link utilities.PostingList#add(int)} with steps
+	 * backwards, which encode as negative differences.
+	 */
+	@Test
+	public void testAdd_Backward()
+	{
+		int[] lines = { 5, 4, 4, 3, 1000000, 1, 70, 6, Integer.MAX_VALUE, 0 };
+		PostingList list = list( lines );
+		assertEquals( "Failed to count the lines.", lines.length, list.size() );
+		assertArrayEquals( "Failed to read back the steps backwards.", lines, list.toArray() );
+
+		PostingList.Cursor cursor = list.cursor();
+		for( int line : lines )
+		{
+			assertTrue( "Failed to have another line.", cursor.hasNext() );
+			assertEquals( "Failed to read the line through the cursor.", line, cursor.next() );
+		}
+		assertFalse( "Failed to end after the last line.", cursor.hasNext() );
+		try
+		{
+			cursor.next();
+			fail( "Failed to reject reading past the last line." );
+		}
+		catch( NoSuchElementException e )
+		{
+			assertTrue( true );
+		}
+
+		// a step of one back zigzags to 1 and takes a byte, like a step of one forward
+		assertEquals( "Failed to keep small steps backwards to one byte.", 4, list( 9, 8, 7, 6 ).encodedSize() );
+		assertEquals( "Failed to encode -64 in one byte.", 2 + 1, list( 100, 36 ).encodedSize() );
+		assertEquals( "Failed to encode -65 in two bytes.", 2 + 2, list( 100, 35 ).encodedSize() );
+	}
+
+	/**
+	 * Test method for {@link utilities.PostingList#addAll(utilities.PostingList, int)}
+	 * encoding only the first copied line again.
+	 */
+	@Test
+	public void testAddAll() throws Exception
+	{
+		PostingList list = list( 1, 5, 9 );
+		PostingList other = list( 2, 3, 100, 50 );
+		list.addAll( other, 1000 );
+		assertArrayEquals( "Failed to offset every copied line.", new int[] { 1, 5, 9, 1002, 1003, 1100, 1050 }, list.toArray() );
+		assertArrayEquals( "Failed to leave the copied list alone.", new int[] { 2, 3, 100, 50 }, other.toArray() );
+
+		// 1002 - 9 takes two bytes where 2 took one, the other differences are copied as they are
+		byte[] copied = bytes( other );
+		byte[] combined = bytes( list );
+		assertEquals( "Failed to encode only the first line again.", 3 + 2 + copied.length - 1, combined.length );
+		assertArrayEquals( "Failed to copy the rest of the bytes.", Arrays.copyOfRange( copied, 1, copied.length ),
+				Arrays.copyOfRange( combined, 5, combined.length ) );
+
+		list.add( 1051 );
+		assertEquals( "Failed to continue from the offset last line.", 1051, list.toArray()[list.size() - 1] );
+
+		PostingList backward = list( 10 );
+		backward.addAll( list( 20, 25 ), -15 );
+		assertArrayEquals( "Failed to copy with a negative offset.", new int[] { 10, 5, 10 }, backward.toArray() );
+		backward.addAll( new PostingList(), 7 );
+		assertArrayEquals( "Failed to ignore an empty list.", new int[] { 10, 5, 10 }, backward.toArray() );
+		PostingList empty = new PostingList();
+		empty.addAll( list( 3, 4 ), 1 );
+		assertArrayEquals( "Failed to copy into an empty list.", new int[] { 4, 5 }, empty.toArray() );
+	}
+
+	/**
+	 * Test method for {@link utilities.PostingList#shift(int)}.
+	 */
+	@Test
+	public void testShift()
+	{
+		PostingList list = list( 3, 1, 200 );
+		list.shift( 1000 );
+		assertArrayEquals( "Failed to shift every line.", new int[] { 1003, 1001, 1200 }, list.toArray() );
+		list.add( 1199 );
+		assertArrayEquals( "Failed to continue from the shifted last line.", new int[] { 1003, 1001, 1200, 1199 }, list.toArray() );
+		list.shift( -1000 );
+		assertArrayEquals( "Failed to shift back.", new int[] { 3, 1, 200, 199 }, list.toArray() );
+		assertEquals( "Failed to encode the shifted list like a new one.", list( 3, 1, 200, 199 ).encodedSize(), list.encodedSize() );
+		list.shift( 0 );
+		assertArrayEquals( "Failed to ignore a shift of 0.", new int[] { 3, 1, 200, 199 }, list.toArray() );
+
+		PostingList empty = new PostingList();
+		empty.shift( 5 );
+		assertEquals( "Failed to leave an empty list empty.", 0, empty.size() );
+		empty.add( 2 );
+		assertArrayEquals( "Failed to add after shifting an empty list.", new int[] { 2 }, empty.toArray() );
+	}
+
+	/**
+	 * Test method for {@link utilities.PostingList#snapshot()} copying the
+	 * shared bytes the first time either list is written to.
+	 */
+	@Test
+	public void testSnapshot()
+	{
+		PostingList list = list( 1, 2, 3 );
+		PostingList snapshot = list.snapshot();
+		PostingList.Cursor cursor = list.cursor();
+		list.add( 4 );
+		assertArrayEquals( "Failed to keep the snapshot when the list grew.", new int[] { 1, 2, 3 }, snapshot.toArray() );
+		assertArrayEquals( "Failed to add to the list.", new int[] { 1, 2, 3, 4 }, list.toArray() );
+		assertArrayEquals( "Failed to keep a cursor to the lines added before it.", new int[] { 1, 2, 3 }, lines( cursor ) );
+
+		snapshot.add( 7 );
+		assertArrayEquals( "Failed to add to the snapshot.", new int[] { 1, 2, 3, 7 }, snapshot.toArray() );
+		assertArrayEquals( "Failed to keep the list when the snapshot grew.", new int[] { 1, 2, 3, 4 }, list.toArray() );
+
+		PostingList again = list.snapshot();
+		list.shift( 10 );
+		list.addAll( list( 5 ), 0 );
+		assertArrayEquals( "Failed to keep the snapshot when the list shifted.", new int[] { 1, 2, 3, 4 }, again.toArray() );
+		assertArrayEquals( "Failed to change the list.", new int[] { 11, 12, 13, 14, 5 }, list.toArray() );
+
+		// both lists share the bytes until each writes to a copy of its own
+		PostingList last = list.snapshot();
+		last.add( 6 );
+		list.add( 8 );
+		assertArrayEquals( "Failed to keep the snapshot apart.", new int[] { 11, 12, 13, 14, 5, 6 }, last.toArray() );
+		assertArrayEquals( "Failed to keep the list apart.", new int[] { 11, 12, 13, 14, 5, 8 }, list.toArray() );
+	}
+
+	/**
+	 * Test method for {@link utilities.PostingList#writeTo(java.io.DataOutput)}
+	 * and {@link utilities.PostingList#readFrom(java.io.DataInput, int)}.
+	 */
+	@Test
+	public void testWriteTo_ReadFrom() throws Exception
+	{
+		Random random = new Random( 15 );
+		int[] lines = new int[1000];
+		for( int i = 0; i < lines.length; i++ )
+		{
+			lines[i] = i % 10 == 0 ? random.nextInt( Integer.MAX_VALUE ) : random.nextInt( 300 );
+		}
+		PostingList list = list( lines );
+		byte[] written = bytes( list );
+		assertEquals( "Failed to write the encoded size.", list.encodedSize(), written.length );
+
+		DataInputStream in = new DataInputStream( new ByteArrayInputStream( written ) );
+		PostingList read = PostingList.readFrom( in, lines.length );
+		assertEquals( "Failed to read every byte.", -1, in.read() );
+		assertArrayEquals( "Failed to read back the lines.", lines, read.toArray() );
+		assertEquals( "Failed to keep the encoded size.", list.encodedSize(), read.encodedSize() );
+		read.add( 42 );
+		list.add( 42 );
+		assertArrayEquals( "Failed to continue from the last line read.", bytes( list ), bytes( read ) );
+
+		assertEquals( "Failed to read an empty list.", 0,
+				PostingList.readFrom( new DataInputStream( new ByteArrayInputStream( new byte[0] ) ), 0 ).size() );
+		try
+		{
+			PostingList.readFrom( new DataInputStream( new ByteArrayInputStream( written, 0, written.length - 1 ) ), lines.length );
+			fail( "Failed to reject a truncated list." );
+		}
+		catch( EOFException e )
+		{
+			assertTrue( true );
+		}
+		try
+		{
+			byte[] malformed = { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 1 };
+			PostingList.readFrom( new DataInputStream( new ByteArrayInputStream( malformed ) ), 1 );
+			fail( "Failed to reject a value longer than five bytes." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Returns a list holding the lines.
+	 */
+	private static PostingList list( int... lines )
+	{
+		PostingList list = new PostingList();
+		for( int line : lines )
+		{
+			list.add( line );
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the bytes writeTo writes for a list.
+	 */
+	private static byte[] bytes( PostingList list ) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		list.writeTo( new DataOutputStream( bytes ) );
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Returns the lines left in a cursor.
+	 */
+	private static int[] lines( PostingList.Cursor cursor )
+	{
+		int[] lines = new int[0];
+		while( cursor.hasNext() )
+		{
+			lines = Arrays.copyOf( lines, lines.length + 1 );
+			lines[lines.length - 1] = cursor.next();
+		}
+		return lines;
+	}
+}
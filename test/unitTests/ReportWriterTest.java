@@ -0,0 +1,116 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import implementations.ReportWriter;
+
+/**
+ * Tests for ReportWriter, with blocks small enough that every report spans
+ * several of them.
+ */
+public class ReportWriterTest
+{
+	/**
+	 * Test method for {@link implementations.ReportWriter#write(java.lang.String, int, int)}
+	 * and {@link implementations.ReportWriter#append(java.lang.CharSequence)}
+	 * with a surrogate pair split between two blocks.
+	 */
+	@Test
+	public void testWrite() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StringBuilder expected = new StringBuilder();
+		ReportWriter writer = new ReportWriter( Channels.newChannel( out ), StandardCharsets.UTF_8, true, 4, 1 );
+		// the pair starts at the last char of the first block
+		writer.write( "abc\uD83D\uDE00" );
+		expected.append( "abc\uD83D\uDE00" );
+		for( int i = 0; i < 100; i++ )
+		{
+			StringBuilder line = new StringBuilder( "Word: ===caf\u00e9=== line " ).append( i ).append( '\n' );
+			writer.append( line );
+			writer.write( '\uD83D' );
+			writer.write( '\uDE00' );
+			expected.append( line ).append( "\uD83D\uDE00" );
+		}
+		writer.close();
+
+		assertArrayEquals( "Failed to write the report.", expected.toString().getBytes( StandardCharsets.UTF_8 ),
+				out.toByteArray() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ReportWriter#close()} after the
+	 * channel failed, which must still stop the writer thread.
+	 */
+	@Test
+	public void testClose_Failure() throws Exception
+	{
+		int before = writerThreads();
+		WritableByteChannel failing = new WritableByteChannel()
+		{
+			private boolean open = true;
+
+			public int write( ByteBuffer src ) throws IOException
+			{
+				throw new IOException( "Disk full" );
+			}
+
+			public boolean isOpen()
+			{
+				return open;
+			}
+
+			public void close()
+			{
+				open = false;
+			}
+		};
+		ReportWriter writer = new ReportWriter( failing, StandardCharsets.UTF_8, true, 4, 1 );
+		try
+		{
+			writer.write( "more than one block" );
+			writer.flush();
+			fail( "Failed to report the channel error." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+		try
+		{
+			writer.close();
+			fail( "Failed to report the channel error on close." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+		assertFalse( "Failed to close the channel.", failing.isOpen() );
+		assertEquals( "Failed to stop the writer thread.", before, writerThreads() );
+	}
+
+	/**
+	 * Counts the live report writer threads
+	 */
+	private static int writerThreads()
+	{
+		int count = 0;
+		for( Thread thread : Thread.getAllStackTraces().keySet() )
+		{
+			if( thread.isAlive() && thread.getName().equals( "report-writer" ) )
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,130 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.FileDictionary;
+import utilities.Iterator;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.MappedRepository;
+import implementations.RepositoryCompression;
+import implementations.RepositoryFormat;
+
+/**
+ * Tests for repository files written with every kind of RepositoryCompression,
+ * large enough to span several compressed blocks.
+ */
+public class RepositoryCompressionTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private BSTree<WordStorage> tree;
+	private Path repository;
+
+	/**
+	 * Creates a tree whose repository file is several blocks long.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		repository = folder.getRoot().toPath().resolve( "repository.wtr" );
+		int fileId = FileDictionary.getInstance().idOf( "compression-a.txt" );
+		tree = new BSTree<WordStorage>( true );
+		for( int i = 0; i < 20000; i++ )
+		{
+			WordStorage word = new WordStorage( "word" + i );
+			for( int line = 1; line <= 10; line++ )
+			{
+				word.addOccurrence( fileId, i + line * 7 );
+			}
+			tree.add( word );
+		}
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryFormat#write(implementations.BSTree, implementations.FileManifest, java.nio.file.Path, implementations.RepositoryCompression)}
+	 * and {@link implementations.RepositoryFormat#read(java.nio.file.Path)} with every kind of compression.
+	 */
+	@Test
+	public void testWriteRead() throws Exception
+	{
+		RepositoryCompression[] settings = { RepositoryCompression.NONE, RepositoryCompression.HUFFMAN_ONLY,
+				RepositoryCompression.level( 1 ), RepositoryCompression.level( 9 ) };
+		long uncompressed = 0;
+		for( RepositoryCompression compression : settings )
+		{
+			long bytes = RepositoryFormat.write( tree, null, repository, compression );
+			if( !compression.isCompressed() )
+			{
+				uncompressed = bytes;
+				assertTrue( "Failed to span several blocks.", bytes > 2 * RepositoryCompression.BLOCK_SIZE );
+			}
+			else
+			{
+				assertTrue( "Failed to compress with " + compression + ".", bytes < uncompressed );
+			}
+			assertSame( "Failed to store the compression.", compression, RepositoryFormat.compressionOf( repository ) );
+
+			BSTree<WordStorage> read = RepositoryFormat.read( repository );
+			assertEquals( "Failed to read every word with " + compression + ".", tree.size(), read.size() );
+			Iterator<WordStorage> expected = tree.inorderIterator();
+			Iterator<WordStorage> actual = read.inorderIterator();
+			while( expected.hasNext() )
+			{
+				WordStorage word = expected.next();
+				WordStorage copy = actual.next();
+				assertEquals( "Failed to keep the word order.", word.getWord(), copy.getWord() );
+				PostingList.Cursor lines = word.getLinesAt( 0 );
+				PostingList.Cursor copied = copy.getLinesAt( 0 );
+				while( lines.hasNext() )
+				{
+					assertEquals( "Failed to keep the lines with " + compression + ".", lines.next(), copied.next() );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.MappedRepository#open(java.nio.file.Path)}
+	 * to refuse a compressed file.
+	 */
+	@Test
+	public void testMappedRepository_Compressed() throws Exception
+	{
+		RepositoryFormat.write( tree, null, repository, RepositoryCompression.level( 6 ) );
+		try
+		{
+			MappedRepository.open( repository ).close();
+			fail( "Failed to refuse a compressed repository." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.Iterator;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.FileManifest;
+import implementations.RepositoryFormat;
+
+/**
+ * Tests for RepositoryFormat, including files written by older versions and
+ * files whose directory or footer is damaged.
+ */
+public class RepositoryFormatTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private BSTree<WordStorage> tree;
+	private Path repository;
+
+	/**
+	 * Creates a tree of words found in two files, some lines out of order.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		repository = folder.getRoot().toPath().resolve( "repository.wtr" );
+		tree = new BSTree<WordStorage>( true );
+		for( int i = 0; i < 300; i++ )
+		{
+			WordStorage word = new WordStorage( "word" + i );
+			word.addOccurrence( "format-a.txt", i + 1 );
+			word.addOccurrence( "format-a.txt", 1 );
+			if( i % 3 == 0 )
+			{
+				word.addOccurrence( "format-b.txt", 100000 + i );
+			}
+			tree.add( word );
+		}
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryFormat#write(implementations.BSTree, implementations.FileManifest, java.nio.file.Path)}
+	 * and {@link implementations.RepositoryFormat#read(java.nio.file.Path, implementations.FileManifest)}.
+	 */
+	@Test
+	public void testWriteRead() throws Exception
+	{
+		Path input = folder.newFile( "format-a.txt" ).toPath();
+		Files.write( input, Arrays.asList( "word0 word1" ) );
+		FileManifest manifest = new FileManifest();
+		manifest.put( FileManifest.fingerprint( input, "format-a.txt" ) );
+		RepositoryFormat.write( tree, manifest, repository );
+
+		FileManifest readManifest = new FileManifest();
+		BSTree<WordStorage> read = RepositoryFormat.read( repository, readManifest );
+		assertEquals( "Failed to read every word.", tree.size(), read.size() );
+		Iterator<WordStorage> expected = tree.inorderIterator();
+		Iterator<WordStorage> actual = read.inorderIterator();
+		while( expected.hasNext() )
+		{
+			WordStorage word = expected.next();
+			WordStorage copy = actual.next();
+			assertEquals( "Failed to keep the word order.", word.getWord(), copy.getWord() );
+			assertEquals( "Failed to keep the frequency.", word.getFrequency(), copy.getFrequency() );
+			assertEquals( "Failed to keep the files.", word.getFileNames(), copy.getFileNames() );
+			for( String file : word.getFileNames() )
+			{
+				assertEquals( "Failed to keep the lines.", lines( word, file ), lines( copy, file ) );
+			}
+		}
+		assertEquals( "Failed to keep the manifest.", 1, readManifest.size() );
+		assertArrayEquals( "Failed to keep the manifest entry.", manifest.get( "format-a.txt" ).getHash(),
+				readManifest.get( "format-a.txt" ).getHash() );
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryFormat#read(java.nio.file.Path)}
+	 * with files written by versions 1 to 3.
+	 */
+	@Test
+	public void testRead_OldVersions() throws Exception
+	{
+		for( int version = 1; version <= 3; version++ )
+		{
+			Files.write( repository, legacy( version ) );
+			BSTree<WordStorage> read = RepositoryFormat.read( repository );
+
+			assertEquals( "Failed to read version " + version + ".", 2, read.size() );
+			WordStorage alpha = read.search( new WordStorage( "alpha" ) ).getElement();
+			assertEquals( "Failed to read the frequency of version " + version + ".", 3, alpha.getFrequency() );
+			assertEquals( "Failed to read the lines of version " + version + ".", Arrays.asList( 1, 3 ),
+					lines( alpha, "legacy-a.txt" ) );
+			assertEquals( "Failed to read the lines of version " + version + ".", Arrays.asList( 2 ),
+					lines( alpha, "legacy-b.txt" ) );
+			WordStorage beta = read.search( new WordStorage( "beta" ) ).getElement();
+			assertEquals( "Failed to read the lines of version " + version + ".", Arrays.asList( 5 ),
+					lines( beta, "legacy-b.txt" ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryFormat#read(java.nio.file.Path)}
+	 * with the directory and footer cut short at every length.
+	 */
+	@Test
+	public void testRead_TruncatedFooter() throws Exception
+	{
+		RepositoryFormat.write( tree, repository );
+		byte[] bytes = Files.readAllBytes( repository );
+		int directorySize = 8 * tree.size() + 8;
+		for( int cut = 1; cut <= directorySize; cut++ )
+		{
+			Files.write( repository, Arrays.copyOf( bytes, bytes.length - cut ) );
+			try
+			{
+				RepositoryFormat.read( repository );
+				fail( "Failed to reject a file missing " + cut + " bytes." );
+			}
+			catch( IOException e )
+			{
+				assertTrue( true );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryFormat#read(java.nio.file.Path)}
+	 * with a damaged footer or directory entry.
+	 */
+	@Test
+	public void testRead_CorruptFooter() throws Exception
+	{
+		RepositoryFormat.write( tree, repository );
+		byte[] bytes = Files.readAllBytes( repository );
+		ByteBuffer buffer = ByteBuffer.wrap( bytes );
+		long directory = buffer.getLong( bytes.length - 8 );
+		int[] positions = { bytes.length - 8, (int) directory, (int) directory + 8 * 150 };
+		for( int position : positions )
+		{
+			byte[] corrupt = bytes.clone();
+			ByteBuffer.wrap( corrupt ).putLong( position, buffer.getLong( position ) + 1 );
+			Files.write( repository, corrupt );
+			try
+			{
+				RepositoryFormat.read( repository );
+				fail( "Failed to reject a corrupt long at " + position + "." );
+			}
+			catch( IOException e )
+			{
+				assertTrue( true );
+			}
+		}
+	}
+
+	/**
+	 * Returns the lines a word is found on in a file
+	 */
+	private static List<Integer> lines( WordStorage word, String file )
+	{
+		List<Integer> lines = new ArrayList<Integer>();
+		for( PostingList.Cursor cursor = word.getLines( file ); cursor.hasNext(); )
+		{
+			lines.add( cursor.next() );
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes the words alpha, on lines 1 and 3 of legacy-a.txt and line 2 of
+	 * legacy-b.txt, and beta, on line 5 of legacy-b.txt, the way a version
+	 * before 4 did. Every count and line difference fits in one byte.
+	 */
+	private static byte[] legacy( int version ) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream( bytes );
+		out.writeInt( RepositoryFormat.MAGIC );
+		out.writeInt( version );
+		out.writeByte( 2 );
+		out.writeUTF( "legacy-a.txt" );
+		out.writeUTF( "legacy-b.txt" );
+		if( version >= 3 )
+		{
+			// an empty manifest
+			out.writeByte( 0 );
+		}
+		out.writeByte( 2 );
+		long[] offsets = new long[2];
+		offsets[0] = out.size();
+		out.writeUTF( "alpha" );
+		out.write( new byte[] { 2, 0, 2, 2, 4, 1, 1, 4 } );
+		offsets[1] = out.size();
+		out.writeUTF( "beta" );
+		out.write( new byte[] { 1, 1, 1, 10 } );
+		if( version >= 2 )
+		{
+			long directory = out.size();
+			for( long offset : offsets )
+			{
+				out.writeLong( offset );
+			}
+			out.writeLong( directory );
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,199 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.FileDictionary;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.FileManifest;
+import implementations.RepositoryLog;
+
+/**
+ * Tests for RepositoryLog, including logs cut short or damaged the way a crash
+ * in the middle of an append leaves them.
+ */
+public class RepositoryLogTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private RepositoryLog log;
+	private List<String> replayed;
+
+	/**
+	 * Creates an empty log in a temporary folder.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		log = new RepositoryLog( folder.getRoot().toPath().resolve( "repository.wtr.log" ) );
+		replayed = new ArrayList<String>();
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		log = null;
+		replayed = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryLog#append(implementations.RepositoryLog.Segment)}
+	 * and {@link implementations.RepositoryLog#replay(implementations.RepositoryLog.Handler)}.
+	 */
+	@Test
+	public void testAppendReplay() throws Exception
+	{
+		Path input = folder.newFile( "a.txt" ).toPath();
+		Files.write( input, Arrays.asList( "alpha beta", "beta" ) );
+		FileManifest.Entry entry = FileManifest.fingerprint( input, "log-a.txt" );
+		int fileId = FileDictionary.getInstance().idOf( "log-a.txt" );
+
+		RepositoryLog.Segment first = new RepositoryLog.Segment();
+		first.addFile( "log-a.txt", fileId, entry, Arrays.asList( word( "alpha", fileId, 1 ), word( "beta", fileId, 1, 2 ) ) );
+		RepositoryLog.Segment second = new RepositoryLog.Segment();
+		second.addFile( "log-a.txt", fileId, null, new ArrayList<WordStorage>() );
+		log.append( first );
+		log.append( second );
+
+		final List<FileManifest.Entry> entries = new ArrayList<FileManifest.Entry>();
+		final List<List<WordStorage>> words = new ArrayList<List<WordStorage>>();
+		int segments = log.replay( ( file, logged, fileWords ) -> {
+			replayed.add( file );
+			entries.add( logged );
+			words.add( fileWords );
+		} );
+
+		assertEquals( "Failed to replay every segment.", 2, segments );
+		assertEquals( "Failed to replay the files in order.", Arrays.asList( "log-a.txt", "log-a.txt" ), replayed );
+		assertArrayEquals( "Failed to keep the manifest entry.", entry.getHash(), entries.get( 0 ).getHash() );
+		assertNull( "Failed to log a removed file without an entry.", entries.get( 1 ) );
+		assertEquals( "Failed to keep the words.", 2, words.get( 0 ).size() );
+		assertEquals( "Failed to keep the words in order.", "beta", words.get( 0 ).get( 1 ).getWord() );
+		assertEquals( "Failed to keep the frequency.", 2, words.get( 0 ).get( 1 ).getFrequency() );
+		PostingList.Cursor lines = words.get( 0 ).get( 1 ).getLines( "log-a.txt" );
+		assertEquals( "Failed to keep the lines.", 1, lines.next() );
+		assertEquals( "Failed to keep the lines.", 2, lines.next() );
+		assertTrue( "Failed to log a removed file without words.", words.get( 1 ).isEmpty() );
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryLog#replay(implementations.RepositoryLog.Handler)}
+	 * with the last segment cut short at every possible length, as a crash while
+	 * appending leaves it.
+	 */
+	@Test
+	public void testReplay_TornSegment() throws Exception
+	{
+		log.append( segment( "log-b.txt", "first" ) );
+		long intact = log.size();
+		log.append( segment( "log-c.txt", "second" ) );
+		long full = log.size();
+		byte[] bytes = Files.readAllBytes( log.getPath() );
+
+		for( long cut = intact + 1; cut < full; cut++ )
+		{
+			Files.write( log.getPath(), Arrays.copyOf( bytes, (int) cut ) );
+			replayed.clear();
+
+			assertEquals( "Failed to stop at the torn segment.", 1, log.replay( ( file, entry, words ) -> replayed.add( file ) ) );
+			assertEquals( "Failed to replay the intact segment.", Arrays.asList( "log-b.txt" ), replayed );
+			assertEquals( "Failed to cut off the torn segment.", intact, log.size() );
+		}
+
+		log.append( segment( "log-d.txt", "third" ) );
+		replayed.clear();
+		assertEquals( "Failed to append after the repaired log.", 2, log.replay( ( file, entry, words ) -> replayed.add( file ) ) );
+		assertEquals( "Failed to replay the appended segment.", Arrays.asList( "log-b.txt", "log-d.txt" ), replayed );
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryLog#replay(implementations.RepositoryLog.Handler)}
+	 * with a damaged byte in the payload of the last segment.
+	 */
+	@Test
+	public void testReplay_CorruptChecksum() throws Exception
+	{
+		log.append( segment( "log-e.txt", "first" ) );
+		long intact = log.size();
+		log.append( segment( "log-f.txt", "second" ) );
+		try( RandomAccessFile file = new RandomAccessFile( log.getPath().toFile(), "rw" ) )
+		{
+			file.seek( log.size() - 2 );
+			int b = file.read();
+			file.seek( log.size() - 2 );
+			file.write( b ^ 0xFF );
+		}
+
+		assertEquals( "Failed to reject the damaged segment.", 1, log.replay( ( file, entry, words ) -> replayed.add( file ) ) );
+		assertEquals( "Failed to replay the intact segment.", Arrays.asList( "log-e.txt" ), replayed );
+		assertEquals( "Failed to cut off the damaged segment.", intact, log.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.RepositoryLog#scan(implementations.RepositoryLog.Handler)}
+	 * to leave a torn log as it is.
+	 */
+	@Test
+	public void testScan_LeavesLog() throws Exception
+	{
+		log.append( segment( "log-g.txt", "first" ) );
+		try( FileChannel channel = FileChannel.open( log.getPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND ) )
+		{
+			channel.write( ByteBuffer.wrap( new byte[] { 0x57, 0x54 } ) );
+		}
+		long size = log.size();
+
+		assertEquals( "Failed to replay the intact segment.", 1, log.scan( ( file, entry, words ) -> replayed.add( file ) ) );
+		assertEquals( "Failed to leave the log unchanged.", size, log.size() );
+	}
+
+	/**
+	 * Creates a segment logging one word on the first line of a file.
+	 */
+	private static RepositoryLog.Segment segment( String file, String text ) throws IOException
+	{
+		int fileId = FileDictionary.getInstance().idOf( file );
+		RepositoryLog.Segment segment = new RepositoryLog.Segment();
+		segment.addFile( file, fileId, null, Arrays.asList( word( text, fileId, 1 ) ) );
+		return segment;
+	}
+
+	/**
+	 * Creates a word found on the given lines of a file.
+	 */
+	private static WordStorage word( String text, int fileId, int... lines )
+	{
+		WordStorage word = new WordStorage( text );
+		for( int line : lines )
+		{
+			word.addOccurrence( fileId, line );
+		}
+		return word;
+	}
+}
@@ -0,0 +1,175 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.StreamingTextReader;
+import implementations.WordTracker;
+
+/**
+ * Tests for StreamingTextReader numbering lines the way the Scanner based
+ * TextParse did.
+ */
+public class StreamingTextReaderTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private Path file;
+
+	/**
+	 * Picks the file the tests write.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		file = folder.getRoot().toPath().resolve( "streaming.txt" );
+	}
+
+	/**
+	 * Test method for {@link implementations.StreamingTextReader#read(java.nio.file.Path, implementations.StreamingTextReader.WordHandler, implementations.StreamingTextReader.ProgressListener)}
+	 * with a \r\n pair split between two buffers.
+	 */
+	@Test
+	public void testRead_SplitCrLf() throws Exception
+	{
+		StringBuilder text = new StringBuilder();
+		while( text.length() < ( 1 << 20 ) - 7 )
+		{
+			text.append( "word " );
+		}
+		while( text.length() < ( 1 << 20 ) - 1 )
+		{
+			text.append( 'x' );
+		}
+		// the \r is the last byte of the first buffer and the \n the first of the next
+		text.append( "\r\nafter\r\n\r\nlast" );
+		Files.write( file, text.toString().getBytes( StandardCharsets.US_ASCII ) );
+
+		List<String> words = new ArrayList<String>();
+		int lines = read( words );
+		assertEquals( "Failed to count the line breaks.", 3, lines );
+		assertEquals( "Failed to number the lines like Scanner.", scanner(), words );
+		assertEquals( "Failed to join the \\r\\n pair.", "after@2", words.get( words.size() - 2 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.StreamingTextReader#read(java.nio.file.Path, implementations.StreamingTextReader.WordHandler, implementations.StreamingTextReader.ProgressListener)}
+	 * with lone \r breaks and Unicode line separators.
+	 */
+	@Test
+	public void testRead_LoneCarriageReturn() throws Exception
+	{
+		Files.write( file, "one\rtwo\r\rfour\n\rsix\u2028seven\u0085eight\n".getBytes( StandardCharsets.UTF_8 ) );
+
+		List<String> words = new ArrayList<String>();
+		int lines = read( words );
+		assertEquals( "Failed to count the line breaks.", 8, lines );
+		assertEquals( "Failed to end lines at \\r.",
+				Arrays.asList( "one@1", "two@2", "four@4", "six@6", "seven@7", "eight@8" ), words );
+		assertEquals( "Failed to number the lines like Scanner.", scanner(), words );
+	}
+
+	/**
+	 * Test method for {@link implementations.StreamingTextReader#read(java.nio.file.Path, implementations.StreamingTextReader.WordHandler, implementations.StreamingTextReader.ProgressListener)}
+	 * with a last line that has no line break.
+	 */
+	@Test
+	public void testRead_NoFinalNewline() throws Exception
+	{
+		Files.write( file, "first line\nsecond".getBytes( StandardCharsets.UTF_8 ) );
+
+		List<String> words = new ArrayList<String>();
+		int lines = read( words );
+		assertEquals( "Failed to count the line breaks.", 1, lines );
+		assertEquals( "Failed to read the last word.", Arrays.asList( "first@1", "line@1", "second@2" ), words );
+	}
+
+	/**
+	 * Test method for {@link implementations.StreamingTextReader#read(java.nio.file.Path, implementations.StreamingTextReader.WordHandler, implementations.StreamingTextReader.ProgressListener)}
+	 * with a file that does not exist.
+	 */
+	@Test
+	public void testRead_MissingFile() throws Exception
+	{
+		try
+		{
+			read( new ArrayList<String>() );
+			fail( "Failed to report a missing file." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#TextParse(java.lang.String)}
+	 * reading files as UTF-8 whatever the platform charset is. U+2028 only ends
+	 * a line when its three bytes are decoded as UTF-8.
+	 */
+	@Test
+	public void testTextParse_Utf8() throws Exception
+	{
+		Files.write( file, "one\u2028two".getBytes( StandardCharsets.UTF_8 ) );
+		WordTracker tracker = new WordTracker( new BSTree<WordStorage>( true ) );
+		tracker.TextParse( file.toString() );
+
+		WordStorage two = tracker.getTree().search( new WordStorage( "two" ) ).getElement();
+		PostingList.Cursor lines = two.getLines( file.toString() );
+		assertEquals( "Failed to decode the file as UTF-8.", 2, lines.next() );
+	}
+
+	/**
+	 * Reads the file as UTF-8, recording every word as word@line
+	 */
+	private int read( final List<String> words ) throws IOException
+	{
+		return new StreamingTextReader( StandardCharsets.UTF_8 ).read( file,
+				( word, line ) -> words.add( word + "@" + line ), null );
+	}
+
+	/**
+	 * Reads the file the way TextParse did with a Scanner, recording every word
+	 * as word@line
+	 */
+	private List<String> scanner() throws IOException
+	{
+		List<String> words = new ArrayList<String>();
+		try( Scanner scan = new Scanner( file.toFile(), "UTF-8" ) )
+		{
+			int line = 0;
+			while( scan.hasNextLine() )
+			{
+				line++;
+				for( String word : scan.nextLine().replaceAll( "[^A-Za-z ]+", "" ).toLowerCase().split( " " ) )
+				{
+					if( !word.isEmpty() )
+					{
+						words.add( word + "@" + line );
+					}
+				}
+			}
+		}
+		return words;
+	}
+}
@@ -0,0 +1,240 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.FileDictionary;
+import utilities.Iterator;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.WordTracker;
+
+/**
+ * Tests for the WordStorage report formats, lines and serialized form.
+ */
+public class WordStorageTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	/**
+	 * A WordStorage holding "legacy" on lines 3, 1 and 4 of legacy-a.txt and
+	 * line 2 of legacy-b.txt, serialized by the version that kept the lines in a
+	 * LinkedHashMap of file names to Integer lists
+	 */
+	private static final String LEGACY_FORM = "rO0ABXNyABV1dGlsaXRpZXMuV29yZFN0b3JhZ2XG9p2YPTNf4gIAA0kABGZyZXFMAAVmaWxlc3QAD0xqYXZhL3V0aWwvTWFw"
+			+ "O0wABHdvcmR0ABJMamF2YS9sYW5nL1N0cmluZzt4cAAAAARzcgAXamF2YS51dGlsLkxpbmtlZEhhc2hNYXA0wE5cEGzA+wIA"
+			+ "AVoAC2FjY2Vzc09yZGVyeHIAEWphdmEudXRpbC5IYXNoTWFwBQfawcMWYNEDAAJGAApsb2FkRmFjdG9ySQAJdGhyZXNob2xk"
+			+ "eHA/QAAAAAAADHcIAAAAEAAAAAJ0AAxsZWdhY3ktYS50eHRzcgATamF2YS51dGlsLkFycmF5TGlzdHiB0h2Zx2GdAwABSQAE"
+			+ "c2l6ZXhwAAAAA3cEAAAAA3NyABFqYXZhLmxhbmcuSW50ZWdlchLioKT3gYc4AgABSQAFdmFsdWV4cgAQamF2YS5sYW5nLk51"
+			+ "bWJlcoaslR0LlOCLAgAAeHAAAAADc3EAfgAKAAAAAXNxAH4ACgAAAAR4dAAMbGVnYWN5LWIudHh0c3EAfgAIAAAAAXcEAAAA"
+			+ "AXNxAH4ACgAAAAJ4eAB0AAZsZWdhY3k=";
+	private WordTracker tracker;
+
+	/**
+	 * Parses two files sharing some of their words.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		Path first = folder.newFile( "first.txt" ).toPath();
+		Files.write( first, Arrays.asList( "The cat, the hat.", "", "A cat's caf\u00e9 hat" ), StandardCharsets.UTF_8 );
+		Path second = folder.newFile( "second.txt" ).toPath();
+		Files.write( second, Arrays.asList( "hat", "the end the end" ), StandardCharsets.UTF_8 );
+		tracker = new WordTracker( new BSTree<WordStorage>( true ) );
+		tracker.TextParse( first.toString() );
+		tracker.TextParse( second.toString() );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tracker = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#writeToFile(java.lang.String, java.lang.String)}
+	 * writing the same bytes as concatenating the displayType strings did, for
+	 * every format.
+	 */
+	@Test
+	public void testWriteToFile() throws Exception
+	{
+		for( String fmt : new String[] { "-pf", "-pl", "-po" } )
+		{
+			StringBuilder expected = new StringBuilder();
+			Iterator<WordStorage> it = tracker.getTree().inorderIterator();
+			while( it.hasNext() )
+			{
+				expected.append( concatenated( it.next(), fmt ) + "\n" );
+			}
+			Path report = folder.getRoot().toPath().resolve( "report" + fmt + ".txt" );
+			tracker.writeToFile( report.toString(), fmt );
+
+			assertArrayEquals( "Failed to write the " + fmt + " report.",
+					expected.toString().getBytes( Charset.defaultCharset() ), Files.readAllBytes( report ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link utilities.WordStorage#displayType(java.lang.String)}
+	 * and {@link utilities.WordStorage#appendTo(java.lang.StringBuilder, java.lang.String)}
+	 * against concatenated strings.
+	 */
+	@Test
+	public void testDisplayType()
+	{
+		StringBuilder reused = new StringBuilder();
+		Iterator<WordStorage> it = tracker.getTree().inorderIterator();
+		while( it.hasNext() )
+		{
+			WordStorage word = it.next();
+			assertEquals( "Failed to display the files.", concatenated( word, "-pf" ), word.displayFiles() );
+			assertEquals( "Failed to display the lines.", concatenated( word, "-pl" ), word.displayFilesLines() );
+			assertEquals( "Failed to display everything.", concatenated( word, "-po" ), word.displayAll() );
+			reused.setLength( 0 );
+			assertEquals( "Failed to append into a reused builder.", concatenated( word, "-po" ),
+					word.appendTo( reused, "-po" ).toString() );
+		}
+	}
+
+	/**
+	 * Test method for {@link utilities.WordStorage#getLines(java.lang.String)}
+	 * and {@link utilities.WordStorage#getLineCount(java.lang.String)}.
+	 */
+	@Test
+	public void testGetLines()
+	{
+		WordStorage word = new WordStorage( "lines", "storage-a.txt", 5 );
+		word.addOccurrence( "storage-b.txt", 1 );
+		word.addOccurrence( "storage-a.txt", 2 );
+
+		assertEquals( "Failed to return the lines in order.", Arrays.asList( 5, 2 ), lines( word, "storage-a.txt" ) );
+		assertEquals( "Failed to count the lines.", 2, word.getLineCount( "storage-a.txt" ) );
+		assertFalse( "Failed to return no lines for another file.", word.getLines( "storage-c.txt" ).hasNext() );
+		assertEquals( "Failed to count no lines for another file.", 0, word.getLineCount( "storage-c.txt" ) );
+	}
+
+	/**
+	 * Test method for reading a storage serialized with file names and Integer
+	 * lists, as repository.ser files and old repositories hold them.
+	 */
+	@Test
+	public void testReadObject_Legacy() throws Exception
+	{
+		WordStorage word = deserialize( Base64.getDecoder().decode( LEGACY_FORM ) );
+
+		assertEquals( "Failed to read the word.", "legacy", word.getWord() );
+		assertEquals( "Failed to read the frequency.", 4, word.getFrequency() );
+		assertEquals( "Failed to keep the file order.", new ArrayList<String>( Arrays.asList( "legacy-a.txt", "legacy-b.txt" ) ),
+				new ArrayList<String>( word.getFileNames() ) );
+		assertEquals( "Failed to read the lines.", Arrays.asList( 3, 1, 4 ), lines( word, "legacy-a.txt" ) );
+		assertEquals( "Failed to read the lines.", Arrays.asList( 2 ), lines( word, "legacy-b.txt" ) );
+		assertEquals( "Failed to give the file its dictionary ID.", FileDictionary.getInstance().find( "legacy-a.txt" ),
+				word.getFileId( 0 ) );
+	}
+
+	/**
+	 * Test method for writing a storage in the serialized form with file names,
+	 * which the version with a map of Integer lists reads.
+	 */
+	@Test
+	public void testWriteObject() throws Exception
+	{
+		WordStorage word = new WordStorage( "serial", "storage-a.txt", 7 );
+		word.addOccurrence( "storage-b.txt", 3 );
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+		{
+			out.writeObject( word );
+		}
+		WordStorage copy = deserialize( bytes.toByteArray() );
+
+		assertEquals( "Failed to write the frequency.", 2, copy.getFrequency() );
+		assertEquals( "Failed to write the lines.", Arrays.asList( 7 ), lines( copy, "storage-a.txt" ) );
+		assertEquals( "Failed to write the lines.", Arrays.asList( 3 ), lines( copy, "storage-b.txt" ) );
+		assertTrue( "Failed to write the file names.",
+				new String( bytes.toByteArray(), StandardCharsets.ISO_8859_1 ).contains( "storage-b.txt" ) );
+	}
+
+	/**
+	 * Reads a serialized storage
+	 */
+	private static WordStorage deserialize( byte[] bytes ) throws Exception
+	{
+		try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes ) ) )
+		{
+			return (WordStorage) in.readObject();
+		}
+	}
+
+	/**
+	 * Returns the lines a word is found on in a file
+	 */
+	private static List<Integer> lines( WordStorage word, String file )
+	{
+		List<Integer> lines = new ArrayList<Integer>();
+		for( PostingList.Cursor cursor = word.getLines( file ); cursor.hasNext(); )
+		{
+			lines.add( cursor.next() );
+		}
+		return lines;
+	}
+
+	/**
+	 * Builds an entry by concatenating strings, the way displayType used to
+	 */
+	private static String concatenated( WordStorage word, String fmt )
+	{
+		String toReturn = "Word: " + "===" + word.getWord() + "===";
+		if( fmt.equals( "-pf" ) || fmt.equals( "-pl" ) )
+		{
+			toReturn += " found in file(s): ";
+		}
+		else
+		{
+			toReturn += " number of entries: " + word.getFrequency() + ", found in file(s): ";
+		}
+		for( String file : word.getFileNames() )
+		{
+			if( fmt.equals( "-pf" ) )
+			{
+				toReturn += file + ", ";
+				continue;
+			}
+			toReturn += file + " on lines: ";
+			for( PostingList.Cursor lines = word.getLines( file ); lines.hasNext(); )
+			{
+				toReturn += lines.next() + ", ";
+			}
+		}
+		return toReturn;
+	}
+}
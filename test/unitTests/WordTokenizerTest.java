@@ -0,0 +1,143 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.WordTokenizer;
+import implementations.WordTracker;
+
+/**
+ * Tests for WordTokenizer and lineBreaker against the regex the words used to
+ * be split with.
+ */
+public class WordTokenizerTest
+{
+	// Attributes
+	private static final String[] LINES = { "", " ", "   ", "Hello", "Hello, World!", "  two  spaces  ",
+			"don't stop", "it's 'quoted'", "abc123def 456", "2024 was a year", "e-mail me@home.com",
+			"tab\tseparated\twords", "caf\u00e9 na\u00efve", "MiXeD CaSe", "end.", "...", "a b  c   d" };
+	private WordTracker tracker;
+
+	/**
+	 * Creates a tracker that never touches the repository file.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tracker = new WordTracker( new BSTree<WordStorage>( true ) );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tracker = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#lineBreaker(java.lang.String)}
+	 * on lines with punctuation, digits, apostrophes and repeated spaces.
+	 */
+	@Test
+	public void testLineBreaker()
+	{
+		for( String line : LINES )
+		{
+			assertEquals( "Failed to split \"" + line + "\".", regex( line ),
+					Arrays.asList( tracker.lineBreaker( line ) ) );
+		}
+		assertEquals( "Failed to join the letters around an apostrophe.", Arrays.asList( "dont", "stop" ),
+				Arrays.asList( tracker.lineBreaker( "don't stop" ) ) );
+		assertEquals( "Failed to drop the digits.", Arrays.asList( "abcdef" ),
+				Arrays.asList( tracker.lineBreaker( "abc123def 456" ) ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#lineBreaker(java.lang.String)}
+	 * on random lines, which must never give an empty word.
+	 */
+	@Test
+	public void testLineBreaker_Random()
+	{
+		char[] chars = "aZq  '.,-0179\t\u00e9!".toCharArray();
+		Random random = new Random( 304 );
+		for( int i = 0; i < 2000; i++ )
+		{
+			char[] line = new char[random.nextInt( 20 )];
+			for( int j = 0; j < line.length; j++ )
+			{
+				line[j] = chars[random.nextInt( chars.length )];
+			}
+			String text = new String( line );
+			String[] words = tracker.lineBreaker( text );
+			assertEquals( "Failed to split \"" + text + "\".", regex( text ), Arrays.asList( words ) );
+			for( String word : words )
+			{
+				assertFalse( "Failed to skip an empty word in \"" + text + "\".", word.isEmpty() );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTokenizer#setInput(java.lang.CharSequence)}
+	 * and {@link implementations.WordTokenizer#flush()} with a line fed in pieces.
+	 */
+	@Test
+	public void testSetInput_Pieces()
+	{
+		String line = "Don't split words, at the 3 piece boundaries!";
+		for( int piece = 1; piece <= line.length(); piece++ )
+		{
+			WordTokenizer tokenizer = new WordTokenizer();
+			List<String> words = new ArrayList<String>();
+			for( int start = 0; start < line.length(); start += piece )
+			{
+				tokenizer.setInput( line, start, Math.min( line.length(), start + piece ) );
+				for( String word = tokenizer.nextWord(); word != null; word = tokenizer.nextWord() )
+				{
+					words.add( word );
+				}
+			}
+			String last = tokenizer.flush();
+			if( last != null )
+			{
+				words.add( last );
+			}
+			assertEquals( "Failed to split the line in pieces of " + piece + ".", regex( line ), words );
+		}
+	}
+
+	/**
+	 * Splits a line with the regex lineBreaker used before, leaving out the
+	 * empty words it gave for repeated spaces
+	 */
+	private static List<String> regex( String line )
+	{
+		List<String> words = new ArrayList<String>();
+		for( String word : line.replaceAll( "[^A-Za-z ]+", "" ).toLowerCase().split( " " ) )
+		{
+			if( !word.isEmpty() )
+			{
+				words.add( word );
+			}
+		}
+		return words;
+	}
+}
@@ -0,0 +1,173 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import utilities.FileDictionary;
+import utilities.PostingList;
+import utilities.WordStorage;
+
+import implementations.BSTree;
+import implementations.BSTreeNode;
+import implementations.RepositoryLog;
+import implementations.WordTracker;
+
+/**
+ * Tests for WordTracker saving changes to the repository log and opening the
+ * repository lazily again.
+ */
+public class WordTrackerTest
+{
+	// Attributes
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private Path repository;
+	private Path input;
+	private String base;
+	private String file;
+
+	/**
+	 * Indexes a base file large enough that saving a small change only appends
+	 * to the log, and a file holding "alpha beta", then saves the repository.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		repository = folder.getRoot().toPath().resolve( "repository.wtr" );
+		input = folder.newFolder( "input" ).toPath();
+		base = write( "base.txt", text() );
+		file = write( "f.txt", "alpha beta\n" );
+
+		WordTracker tracker = new WordTracker( repository );
+		tracker.index( base );
+		tracker.index( file );
+		tracker.saveChanges();
+		assertTrue( "Failed to write the repository file.", Files.exists( repository ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#TextParse(java.lang.String)}
+	 * parsing a file the lazily opened repository already holds, which must not
+	 * lose the file's words that were never loaded.
+	 */
+	@Test
+	public void testTextParse_Lazy() throws Exception
+	{
+		write( "f.txt", "alpha\n" );
+		WordTracker tracker = new WordTracker( repository );
+		tracker.TextParse( file );
+		tracker.saveChanges();
+		assertTrue( "Failed to log the change instead of writing the repository again.",
+				RepositoryLog.forRepository( repository ).size() > 0 );
+
+		BSTree<WordStorage> reopened = new WordTracker( repository ).getTree();
+		assertArrayEquals( "Failed to keep a word that was not loaded.", new int[] { 1 }, lines( reopened, "beta", file ) );
+		assertArrayEquals( "Failed to add the parsed occurrence.", new int[] { 1, 1 }, lines( reopened, "alpha", file ) );
+		assertArrayEquals( "Failed to keep the other file.", new int[] { 3 }, lines( reopened, "word", base ) );
+		assertSameWords( reopened );
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#index(java.lang.String)}
+	 * reindexing a changed file and adding a new one to a lazily opened
+	 * repository.
+	 */
+	@Test
+	public void testIndex_Lazy() throws Exception
+	{
+		write( "f.txt", "alpha gamma\n" );
+		String added = write( "g.txt", "delta\nbeta\n" );
+		WordTracker tracker = new WordTracker( repository );
+		assertEquals( "Failed to parse the changed and added files.", 2, tracker.index( input.toString() ) );
+		tracker.saveChanges();
+		assertTrue( "Failed to log the change instead of writing the repository again.",
+				RepositoryLog.forRepository( repository ).size() > 0 );
+
+		BSTree<WordStorage> reopened = new WordTracker( repository ).getTree();
+		assertArrayEquals( "Failed to drop the replaced occurrence.", new int[0], lines( reopened, "beta", file ) );
+		assertArrayEquals( "Failed to add the new file.", new int[] { 2 }, lines( reopened, "beta", added ) );
+		assertArrayEquals( "Failed to add the new word.", new int[] { 1 }, lines( reopened, "gamma", file ) );
+		assertArrayEquals( "Failed to keep the unchanged file.", new int[] { 3 }, lines( reopened, "word", base ) );
+		assertSameWords( reopened );
+	}
+
+	/**
+	 * Checks a lazily opened tree against the repository loaded whole with its
+	 * log replayed.
+	 */
+	private void assertSameWords( BSTree<WordStorage> lazy ) throws Exception
+	{
+		WordTracker loaded = new WordTracker( repository );
+		loaded.deserializeTree();
+		BSTree<WordStorage> whole = loaded.getTree();
+		assertEquals( "Failed to load as many words as a full load.", whole.size(), lazy.size() );
+		utilities.Iterator<WordStorage> expected = whole.inorderIterator();
+		utilities.Iterator<WordStorage> actual = lazy.inorderIterator();
+		while( expected.hasNext() )
+		{
+			assertEquals( "Failed to load the words a full load does.", expected.next().displayType( "-pl" ),
+					actual.next().displayType( "-pl" ) );
+		}
+	}
+
+	/**
+	 * Returns the lines a word was found on in a file, none if it was not.
+	 */
+	private static int[] lines( BSTree<WordStorage> tree, String word, String file )
+	{
+		BSTreeNode<WordStorage> node = tree.search( new WordStorage( word ) );
+		if( node == null || !node.getElement().containsFile( FileDictionary.getInstance().idOf( file ) ) )
+		{
+			return new int[0];
+		}
+		PostingList.Cursor cursor = node.getElement().getLines( file );
+		int[] lines = new int[0];
+		while( cursor.hasNext() )
+		{
+			lines = Arrays.copyOf( lines, lines.length + 1 );
+			lines[lines.length - 1] = cursor.next();
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes a file in the input folder and returns its name.
+	 */
+	private String write( String name, String text ) throws Exception
+	{
+		Path path = input.resolve( name );
+		Files.write( path, text.getBytes( StandardCharsets.UTF_8 ) );
+		return path.toString();
+	}
+
+	/**
+	 * Returns the text of the base file, a few thousand made up words with
+	 * "word" on line 3.
+	 */
+	private static String text()
+	{
+		StringBuilder text = new StringBuilder();
+		for( int line = 1; line <= 500; line++ )
+		{
+			for( int i = 0; i < 8; i++ )
+			{
+				int n = line * 8 + i;
+				text.append( (char) ( 'a' + n % 26 ) ).append( (char) ( 'a' + n / 26 % 26 ) )
+						.append( (char) ( 'a' + n / 676 % 26 ) ).append( 'x' ).append( ' ' );
+			}
+			text.append( line == 3 ? "word\n" : "\n" );
+		}
+		return text.toString();
+	}
+}